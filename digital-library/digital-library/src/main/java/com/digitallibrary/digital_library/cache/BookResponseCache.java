@@ -0,0 +1,166 @@
+package com.digitallibrary.digital_library.cache;
+
+import com.digitallibrary.digital_library.dtos.response.BookResponse;
+import com.digitallibrary.digital_library.search.AuthorBookIndex;
+import com.digitallibrary.digital_library.search.AuthorChangeEvent;
+import com.digitallibrary.digital_library.search.CatalogChangeEvent;
+import com.digitallibrary.digital_library.search.CategoryChangeEvent;
+import com.digitallibrary.digital_library.search.InventoryChangeEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Respuestas de detalle de libro ya armadas, por id, con un índice ISBN → id para las búsquedas
+ * por ISBN. Acotada por tamaño con desalojo W-TinyLFU; las entradas se invalidan tras el commit
+ * de cualquier cambio del libro, de su inventario o de sus autores y categorías.
+ */
+@Component
+public class BookResponseCache {
+
+    private static final int MAX_BOOKS = 10_000;
+
+    private final Cache<Long, BookResponse> byId = Caffeine.newBuilder()
+        .maximumSize(MAX_BOOKS)
+        .recordStats()
+        .build();
+    private final Cache<String, Long> idByIsbn = Caffeine.newBuilder()
+        .maximumSize(MAX_BOOKS)
+        .recordStats()
+        .build();
+    private final AuthorBookIndex authorBookIndex;
+    private final Object invalidationLock = new Object();
+    private long invalidations;
+
+    public BookResponseCache(AuthorBookIndex authorBookIndex) {
+        this.authorBookIndex = authorBookIndex;
+    }
+
+    /**
+     * Devuelve la respuesta cacheada o la arma con {@code loader}. Una invalidación concurrente
+     * espera a que termine la carga en curso, así que no puede quedar una respuesta anterior al cambio.
+     */
+    public BookResponse get(Long bookId, Function<Long, BookResponse> loader) {
+        return byId.get(bookId, loader);
+    }
+
+    public BookResponse getIfPresent(Long bookId) {
+        return byId.getIfPresent(bookId);
+    }
+
+    /**
+     * Marca para {@link #putAllIfUnchanged}: se toma antes de leer los libros de la base de datos.
+     */
+    public long invalidationStamp() {
+        synchronized (invalidationLock) {
+            return invalidations;
+        }
+    }
+
+    /**
+     * Guarda respuestas cargadas fuera de {@link #get} solo si no hubo invalidaciones desde
+     * {@code stamp}; si las hubo se descartan, porque alguna podría ser anterior al cambio.
+     */
+    public void putAllIfUnchanged(Map<Long, BookResponse> responses, long stamp) {
+        synchronized (invalidationLock) {
+            if (invalidations == stamp) {
+                byId.putAll(responses);
+            }
+        }
+    }
+
+    public BookResponse getByIsbn(String isbn, Function<String, Long> idLoader, Function<Long, BookResponse> loader) {
+        String key = isbnKey(isbn);
+        Long bookId = idByIsbn.get(key, k -> idLoader.apply(isbn));
+        BookResponse response = get(bookId, loader);
+        if (!key.equals(isbnKey(response.getIsbn()))) {
+            // El libro cambió de ISBN y su respuesta ya no estaba en caché para limpiar el índice
+            idByIsbn.invalidate(key);
+            bookId = idByIsbn.get(key, k -> idLoader.apply(isbn));
+            response = get(bookId, loader);
+        }
+        return response;
+    }
+
+    public void invalidate(Long bookId) {
+        markInvalidation();
+        BookResponse previous = byId.asMap().remove(bookId);
+        if (previous != null && previous.getIsbn() != null) {
+            idByIsbn.invalidate(isbnKey(previous.getIsbn()));
+        }
+    }
+
+    public void invalidateAll() {
+        markInvalidation();
+        byId.invalidateAll();
+        idByIsbn.invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        invalidate(event.getBookId());
+        if (event.isDeleted()) {
+            // Los borrados son raros: se recorre el índice para que el ISBN pueda reutilizarse
+            idByIsbn.asMap().values().removeIf(event.getBookId()::equals);
+        } else if (event.getDocument().getIsbn() != null) {
+            idByIsbn.invalidate(isbnKey(event.getDocument().getIsbn()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChange(InventoryChangeEvent event) {
+        markInvalidation();
+        byId.invalidate(event.getBookId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAuthorChange(AuthorChangeEvent event) {
+        markInvalidation();
+        for (long bookId : authorBookIndex.booksOf(event.getAuthorId())) {
+            byId.invalidate(bookId);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChange(CategoryChangeEvent event) {
+        invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("byId", toMap(byId.stats(), byId.estimatedSize()));
+        stats.put("byIsbn", toMap(idByIsbn.stats(), idByIsbn.estimatedSize()));
+        stats.put("maxSize", MAX_BOOKS);
+        return stats;
+    }
+
+    private static Map<String, Object> toMap(CacheStats stats, long size) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("hitRatio", stats.requestCount() == 0 ? 0.0 : stats.hitRate());
+        map.put("evictions", stats.evictionCount());
+        map.put("loadFailures", stats.loadFailureCount());
+        map.put("averageLoadMs", stats.averageLoadPenalty() / 1_000_000.0);
+        map.put("size", size);
+        return map;
+    }
+
+    private void markInvalidation() {
+        synchronized (invalidationLock) {
+            invalidations++;
+        }
+    }
+
+    private static String isbnKey(String isbn) {
+        return isbn == null ? "" : isbn.trim().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,45 @@
+package com.digitallibrary.digital_library.cache;
+
+import java.time.LocalDate;
+
+/**
+ * Lo que hace falta para decidir si un usuario puede llevarse un libro, resumido de sus préstamos.
+ * El vencimiento se guarda como la fecha más próxima de sus préstamos activos, así la foto sigue
+ * siendo válida aunque pase el día sin que cambie ningún préstamo.
+ */
+public final class BorrowerEligibility {
+
+    private final Long userId;
+    private final boolean active;
+    private final long activeLoans;
+    private final boolean markedOverdue;
+    private final LocalDate earliestDueDate;
+
+    public BorrowerEligibility(Long userId, boolean active, long activeLoans, boolean markedOverdue,
+                               LocalDate earliestDueDate) {
+        this.userId = userId;
+        this.active = active;
+        this.activeLoans = activeLoans;
+        this.markedOverdue = markedOverdue;
+        this.earliestDueDate = earliestDueDate;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public long getActiveLoans() {
+        return activeLoans;
+    }
+
+    /**
+     * Tiene préstamos en estado OVERDUE o activos con la fecha de devolución anterior a {@code today}.
+     */
+    public boolean hasOverdueLoans(LocalDate today) {
+        return markedOverdue || (earliestDueDate != null && earliestDueDate.isBefore(today));
+    }
+}
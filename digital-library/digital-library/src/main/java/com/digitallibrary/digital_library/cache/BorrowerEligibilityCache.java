@@ -0,0 +1,78 @@
+package com.digitallibrary.digital_library.cache;
+
+import com.digitallibrary.digital_library.events.LoanChangeEvent;
+import com.digitallibrary.digital_library.events.UserDeletedEvent;
+import com.digitallibrary.digital_library.events.UserStatusChangeEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Elegibilidad de préstamo por usuario. Se invalida tras el commit de cualquier cambio en sus
+ * préstamos o en su estado; la expiración solo acota lo que tarda en verse un cambio hecho fuera
+ * de la aplicación.
+ */
+@Component
+public class BorrowerEligibilityCache {
+
+    private static final int MAX_USERS = 50_000;
+    private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(15);
+
+    private final Cache<Long, BorrowerEligibility> byUser = Caffeine.newBuilder()
+        .maximumSize(MAX_USERS)
+        .expireAfterWrite(EXPIRE_AFTER_WRITE)
+        .recordStats()
+        .build();
+
+    /**
+     * Devuelve la elegibilidad cacheada o la calcula con {@code loader}; {@code null} si el
+     * usuario no existe (no se guarda).
+     */
+    public BorrowerEligibility get(Long userId, Function<Long, BorrowerEligibility> loader) {
+        return byUser.get(userId, loader);
+    }
+
+    public void invalidate(Long userId) {
+        byUser.invalidate(userId);
+    }
+
+    public void invalidateAll() {
+        byUser.invalidateAll();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLoanChange(LoanChangeEvent event) {
+        byUser.invalidate(event.getUserId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserStatusChange(UserStatusChangeEvent event) {
+        byUser.invalidate(event.getUserId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserDeleted(UserDeletedEvent event) {
+        byUser.invalidate(event.getUserId());
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = byUser.stats();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("hitRatio", stats.requestCount() == 0 ? 0.0 : stats.hitRate());
+        map.put("evictions", stats.evictionCount());
+        map.put("averageLoadMs", stats.averageLoadPenalty() / 1_000_000.0);
+        map.put("size", byUser.estimatedSize());
+        map.put("maxSize", MAX_USERS);
+        return map;
+    }
+}
@@ -0,0 +1,103 @@
+package com.digitallibrary.digital_library.cache;
+
+import com.digitallibrary.digital_library.search.AuthorChangeEvent;
+import com.digitallibrary.digital_library.search.CatalogChangeEvent;
+import com.digitallibrary.digital_library.search.CategoryChangeEvent;
+import com.digitallibrary.digital_library.search.InventoryChangeEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versión del catálogo visible para los clientes: avanza tras el commit de cualquier cambio de
+ * libros, inventario, autores o categorías. Con ella se generan los ETag de los listados sin
+ * consultar la base de datos. El arranque forma parte del ETag, así que reiniciar invalida todos.
+ * Sus listeners usan el orden por defecto para correr después de los que actualizan los índices
+ * de búsqueda ({@code @Order(0)}): quien lee la versión nueva ya ve los índices al día.
+ */
+@Component
+public class CatalogVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong referenceVersion = new AtomicLong();
+    private final AtomicLong contentVersion = new AtomicLong();
+    private volatile long lastModified = System.currentTimeMillis();
+    private volatile long referenceLastModified = lastModified;
+
+    public long current() {
+        return version.get();
+    }
+
+    /**
+     * Como {@link #current()} pero sin contar los cambios de inventario: sirve a los resultados
+     * que no dependen de la disponibilidad.
+     */
+    public long contentVersion() {
+        return contentVersion.get();
+    }
+
+    public long lastModified() {
+        return lastModified;
+    }
+
+    /**
+     * ETag fuerte de un listado; {@code scope} distingue los recursos que comparten versión.
+     */
+    public String collectionETag(String scope) {
+        return "\"" + scope + "-" + epoch + "-" + version.get() + "\"";
+    }
+
+    /**
+     * ETag fuerte del detalle de un libro: su fecha de modificación más la versión de autores y
+     * categorías, que aparecen en la respuesta pero no cambian {@code updatedAt}.
+     */
+    public String bookETag(String key, LocalDateTime updatedAt) {
+        return "\"book-" + key + "-" + toMillis(updatedAt) + "-" + epoch + "-" + referenceVersion.get() + "\"";
+    }
+
+    public long bookLastModified(LocalDateTime updatedAt) {
+        return Math.max(toMillis(updatedAt), referenceLastModified);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        contentVersion.incrementAndGet();
+        bump();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChange(InventoryChangeEvent event) {
+        bump();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAuthorChange(AuthorChangeEvent event) {
+        bumpReference();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChange(CategoryChangeEvent event) {
+        bumpReference();
+    }
+
+    private void bump() {
+        lastModified = System.currentTimeMillis();
+        version.incrementAndGet();
+    }
+
+    private void bumpReference() {
+        referenceLastModified = System.currentTimeMillis();
+        referenceVersion.incrementAndGet();
+        contentVersion.incrementAndGet();
+        bump();
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,220 @@
+package com.digitallibrary.digital_library.cache;
+
+import com.digitallibrary.digital_library.events.LoanChangeEvent;
+import com.digitallibrary.digital_library.events.ReservationChangeEvent;
+import com.digitallibrary.digital_library.events.UserStatusChangeEvent;
+import com.digitallibrary.digital_library.models.enums.LoanStatus;
+import com.digitallibrary.digital_library.models.enums.ReservationStatus;
+import com.digitallibrary.digital_library.repositories.LoanRepository;
+import com.digitallibrary.digital_library.repositories.ReservationRepository;
+import com.digitallibrary.digital_library.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de préstamos y reservas por estado, préstamos del mes y usuarios activos para los
+ * paneles. Los eventos de cada transición los ajustan tras el commit y un recuento periódico en la
+ * base de datos corrige la deriva: un cambio que se confirma durante el recuento puede contarse
+ * dos veces o ninguna hasta el siguiente, y las altas con fecha de préstamo de otro mes se cuentan
+ * en el mes actual hasta entonces.
+ */
+@Component
+public class LibraryCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(LibraryCounters.class);
+
+    private static final long RECONCILE_INTERVAL_MS = 5 * 60 * 1000;
+
+    private final LoanRepository loanRepository;
+    private final ReservationRepository reservationRepository;
+    private final UserRepository userRepository;
+
+    private final Map<LoanStatus, LongAdder> loans = new EnumMap<>(LoanStatus.class);
+    private final Map<ReservationStatus, LongAdder> reservations = new EnumMap<>(ReservationStatus.class);
+    private final AtomicReference<MonthCount> loansThisMonth = new AtomicReference<>(new MonthCount(YearMonth.now()));
+    private final LongAdder activeUsers = new LongAdder();
+    private volatile boolean reconciled;
+    private volatile LocalDateTime reconciledAt;
+
+    private static final class MonthCount {
+        private final YearMonth month;
+        private final LongAdder count = new LongAdder();
+
+        private MonthCount(YearMonth month) {
+            this.month = month;
+        }
+    }
+
+    public LibraryCounters(LoanRepository loanRepository,
+                           ReservationRepository reservationRepository,
+                           UserRepository userRepository) {
+        this.loanRepository = loanRepository;
+        this.reservationRepository = reservationRepository;
+        this.userRepository = userRepository;
+        for (LoanStatus status : LoanStatus.values()) {
+            loans.put(status, new LongAdder());
+        }
+        for (ReservationStatus status : ReservationStatus.values()) {
+            reservations.put(status, new LongAdder());
+        }
+    }
+
+    public long loans(LoanStatus status) {
+        ensureReconciled();
+        return loans.get(status).sum();
+    }
+
+    public long totalLoans() {
+        ensureReconciled();
+        return loans.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long reservations(ReservationStatus status) {
+        ensureReconciled();
+        return reservations.get(status).sum();
+    }
+
+    public long totalReservations() {
+        ensureReconciled();
+        return reservations.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public long loansThisMonth() {
+        ensureReconciled();
+        return currentMonth().count.sum();
+    }
+
+    public long activeUsers() {
+        ensureReconciled();
+        return activeUsers.sum();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLoanChange(LoanChangeEvent event) {
+        if (event.getPreviousStatus() == event.getStatus()) {
+            return;
+        }
+        if (event.getPreviousStatus() != null) {
+            loans.get(event.getPreviousStatus()).decrement();
+        } else {
+            currentMonth().count.increment();
+        }
+        if (event.getStatus() != null) {
+            loans.get(event.getStatus()).increment();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onReservationChange(ReservationChangeEvent event) {
+        if (event.getPreviousStatus() == event.getStatus()) {
+            return;
+        }
+        if (event.getPreviousStatus() != null) {
+            reservations.get(event.getPreviousStatus()).decrement();
+        }
+        if (event.getStatus() != null) {
+            reservations.get(event.getStatus()).increment();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserStatusChange(UserStatusChangeEvent event) {
+        if (event.isActive()) {
+            activeUsers.increment();
+        } else {
+            activeUsers.decrement();
+        }
+    }
+
+    /**
+     * Vuelve a contar en la base de datos y reemplaza los valores mantenidos por eventos.
+     */
+    @Scheduled(initialDelay = RECONCILE_INTERVAL_MS, fixedDelay = RECONCILE_INTERVAL_MS)
+    public synchronized void reconcile() {
+        Map<LoanStatus, Long> loanCounts = new EnumMap<>(LoanStatus.class);
+        for (Object[] row : loanRepository.countGroupedByStatus()) {
+            loanCounts.put((LoanStatus) row[0], ((Number) row[1]).longValue());
+        }
+        Map<ReservationStatus, Long> reservationCounts = new EnumMap<>(ReservationStatus.class);
+        for (Object[] row : reservationRepository.getReservationStats()) {
+            reservationCounts.put((ReservationStatus) row[0], ((Number) row[1]).longValue());
+        }
+        YearMonth month = YearMonth.now();
+        long monthLoans = loanRepository.countByLoanDateBetween(month.atDay(1), month.atEndOfMonth());
+        long users = userRepository.countByIsActiveTrue();
+
+        long drift = 0;
+        for (LoanStatus status : LoanStatus.values()) {
+            drift += reset(loans.get(status), loanCounts.getOrDefault(status, 0L));
+        }
+        for (ReservationStatus status : ReservationStatus.values()) {
+            drift += reset(reservations.get(status), reservationCounts.getOrDefault(status, 0L));
+        }
+        MonthCount current = new MonthCount(month);
+        current.count.add(monthLoans);
+        MonthCount previous = loansThisMonth.getAndSet(current);
+        if (previous.month.equals(month)) {
+            drift += Math.abs(previous.count.sum() - monthLoans);
+        }
+        drift += reset(activeUsers, users);
+
+        if (reconciled && drift > 0) {
+            log.debug("Contadores reconciliados con una deriva de {}", drift);
+        }
+        reconciledAt = LocalDateTime.now();
+        reconciled = true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("reconciledAt", reconciledAt);
+        map.put("loans", counts(loans));
+        map.put("reservations", counts(reservations));
+        map.put("loansThisMonth", currentMonth().count.sum());
+        map.put("activeUsers", activeUsers.sum());
+        return map;
+    }
+
+    private void ensureReconciled() {
+        if (!reconciled) {
+            reconcile();
+        }
+    }
+
+    // Al cambiar de mes el contador empieza en cero; el recuento añade las altas con fecha atrasada
+    private MonthCount currentMonth() {
+        YearMonth month = YearMonth.from(LocalDate.now());
+        MonthCount current = loansThisMonth.get();
+        if (!current.month.equals(month)) {
+            loansThisMonth.compareAndSet(current, new MonthCount(month));
+            current = loansThisMonth.get();
+        }
+        return current;
+    }
+
+    private static long reset(LongAdder adder, long value) {
+        long drift = Math.abs(adder.sum() - value);
+        adder.reset();
+        adder.add(value);
+        return drift;
+    }
+
+    private static <E extends Enum<E>> Map<String, Long> counts(Map<E, LongAdder> adders) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        adders.forEach((status, adder) -> map.put(status.name(), adder.sum()));
+        return map;
+    }
+}
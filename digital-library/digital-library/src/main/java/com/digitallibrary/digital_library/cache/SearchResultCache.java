@@ -0,0 +1,143 @@
+package com.digitallibrary.digital_library.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Páginas de resultados de búsqueda guardadas como listas ordenadas de ids, sin las respuestas:
+ * al servirlas se arman desde la caché de detalle. Cada entrada lleva la versión del catálogo con
+ * la que se calculó y deja de valer en cuanto esa versión avanza. Se acota por memoria estimada.
+ */
+@Component
+public class SearchResultCache {
+
+    private static final long MAX_BYTES = 16L * 1024 * 1024;
+
+    // Tamaños aproximados de la JVM de 64 bits con oops comprimidos
+    private static final int ENTRY_OVERHEAD = 96;
+    private static final int STRING_OVERHEAD = 40;
+    private static final int ARRAY_OVERHEAD = 16;
+
+    private final Cache<String, Entry> entries = Caffeine.newBuilder()
+        .maximumWeight(MAX_BYTES)
+        .weigher((String key, Entry entry) -> entry.bytes(key))
+        .recordStats()
+        .build();
+    private final LongAdder stale = new LongAdder();
+
+    /**
+     * Clave de una consulta: el tipo de búsqueda, los filtros ya normalizados y la página pedida.
+     */
+    public static String key(String search, Pageable pageable, Object... filters) {
+        StringBuilder key = new StringBuilder(search);
+        for (Object filter : filters) {
+            key.append('\u0001').append(filter == null ? "\u0000" : filter);
+        }
+        key.append('\u0001');
+        if (pageable.isPaged()) {
+            key.append(pageable.getPageNumber()).append('x').append(pageable.getPageSize());
+        } else {
+            key.append("all");
+        }
+        return key.append('\u0001').append(pageable.getSort()).toString();
+    }
+
+    /**
+     * Entrada vigente para {@code version}, o {@code null}. Las calculadas con una versión
+     * anterior se descartan al encontrarlas.
+     */
+    public Entry get(String key, long version) {
+        Entry entry = entries.getIfPresent(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.version != version) {
+            entries.asMap().remove(key, entry);
+            stale.increment();
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Guarda la página; {@code version} debe leerse antes de calcularla para que un cambio
+     * concurrente la deje caducada en vez de darla por vigente.
+     */
+    public void put(String key, long version, List<Long> ids, long total, BitSet fuzzy) {
+        long[] array = new long[ids.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = ids.get(i);
+        }
+        entries.put(key, new Entry(version, array, total, fuzzy));
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = entries.stats();
+        long size = entries.estimatedSize();
+        long bytes = entries.policy().eviction()
+            .map(eviction -> eviction.weightedSize().orElse(0L))
+            .orElse(0L);
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("hits", stats.hitCount());
+        map.put("misses", stats.missCount());
+        map.put("hitRatio", stats.requestCount() == 0 ? 0.0 : stats.hitRate());
+        map.put("staleDiscards", stale.sum());
+        map.put("evictions", stats.evictionCount());
+        map.put("size", size);
+        map.put("estimatedBytes", bytes);
+        map.put("averageEntryBytes", size == 0 ? 0 : bytes / size);
+        map.put("maxBytes", MAX_BYTES);
+        return map;
+    }
+
+    public static final class Entry {
+        private final long version;
+        private final long[] ids;
+        private final long total;
+        private final BitSet fuzzy;
+
+        private Entry(long version, long[] ids, long total, BitSet fuzzy) {
+            this.version = version;
+            this.ids = ids;
+            this.total = total;
+            this.fuzzy = fuzzy;
+        }
+
+        public long[] getIds() {
+            return ids;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        /**
+         * Si el resultado en la posición {@code index} vino de la búsqueda aproximada, o
+         * {@code null} cuando la búsqueda no distingue coincidencias aproximadas.
+         */
+        public Boolean isFuzzy(int index) {
+            return fuzzy == null ? null : fuzzy.get(index);
+        }
+
+        private int bytes(String key) {
+            long size = ENTRY_OVERHEAD
+                + STRING_OVERHEAD + 2L * key.length()
+                + ARRAY_OVERHEAD + 8L * ids.length
+                + (fuzzy == null ? 0 : ARRAY_OVERHEAD + fuzzy.size() / 8);
+            return (int) Math.min(size, Integer.MAX_VALUE);
+        }
+    }
+}
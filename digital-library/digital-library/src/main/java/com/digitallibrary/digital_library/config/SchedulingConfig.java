@@ -0,0 +1,33 @@
+package com.digitallibrary.digital_library.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Planificadores de tareas. Los trabajos por lotes nocturnos corren en un grupo propio para que
+ * una ejecución larga no retrase las tareas periódicas cortas del planificador por defecto.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    public static final String BATCH_SCHEDULER = "batchScheduler";
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        return scheduler(2, "scheduler-");
+    }
+
+    @Bean(name = BATCH_SCHEDULER)
+    public ThreadPoolTaskScheduler batchScheduler() {
+        return scheduler(1, "batch-");
+    }
+
+    private static ThreadPoolTaskScheduler scheduler(int poolSize, String threadNamePrefix) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix(threadNamePrefix);
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+}
@@ -1,15 +1,18 @@
 package com.digitallibrary.digital_library.controllers;
  
 
+import com.digitallibrary.digital_library.cache.CatalogVersion;
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
 import com.digitallibrary.digital_library.dtos.response.AuthorResponse;
 import com.digitallibrary.digital_library.services.AuthorService;
+import com.digitallibrary.digital_library.utils.ConditionalGet;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,30 +21,42 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:3000")
 public class AuthorController {
 
+    private static final String ETAG_SCOPE = "authors";
+
     private final AuthorService authorService;
+    private final CatalogVersion catalogVersion;
 
-    public AuthorController(AuthorService authorService) {
+    public AuthorController(AuthorService authorService, CatalogVersion catalogVersion) {
         this.authorService = authorService;
+        this.catalogVersion = catalogVersion;
     }
 
     @GetMapping
     public ResponseEntity<Page<AuthorResponse>> getAllAuthors(
             Pageable pageable,
-            @RequestParam(required = false) String name) {
+            @RequestParam(required = false) String name,
+            WebRequest request) {
         
+        if (catalogNotModified(request)) {
+            return null;
+        }
         Page<AuthorResponse> authors = authorService.getAllAuthors(name, pageable);
         return ResponseEntity.ok(authors);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<AuthorResponse> getAuthorById(@PathVariable Long id) {
+    public ResponseEntity<AuthorResponse> getAuthorById(@PathVariable Long id, WebRequest request) {
+        if (catalogNotModified(request)) {
+            return null;
+        }
         AuthorResponse author = authorService.getAuthorById(id);
         return ResponseEntity.ok(author);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<AuthorResponse>> searchAuthors(@RequestParam String query) {
-        List<AuthorResponse> authors = authorService.searchAuthors(query);
+    public ResponseEntity<List<AuthorResponse>> searchAuthors(@RequestParam String query,
+            @RequestParam(required = false) Integer tolerance) {
+        List<AuthorResponse> authors = authorService.searchAuthors(query, tolerance);
         return ResponseEntity.ok(authors);
     }
 
@@ -68,7 +83,10 @@ public class AuthorController {
     }
 
     @GetMapping("/{id}/books")
-    public ResponseEntity<?> getAuthorWithBooks(@PathVariable Long id) {
+    public ResponseEntity<?> getAuthorWithBooks(@PathVariable Long id, WebRequest request) {
+        if (catalogNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(authorService.getAuthorWithBooks(id));
     }
 
@@ -78,4 +96,10 @@ public class AuthorController {
         long count = authorService.countAuthors();
         return ResponseEntity.ok(count);
     }
-}
\ No newline at end of file
+
+    // El conteo de libros de la respuesta depende de todo el catálogo
+    private boolean catalogNotModified(WebRequest request) {
+        return ConditionalGet.notModified(request, catalogVersion.collectionETag(ETAG_SCOPE),
+            catalogVersion.lastModified());
+    }
+}
@@ -1,65 +1,184 @@
 package com.digitallibrary.digital_library.controllers;
 
+import com.digitallibrary.digital_library.cache.CatalogVersion;
+import com.digitallibrary.digital_library.dtos.request.BookBatchRequest;
 import com.digitallibrary.digital_library.dtos.request.BookRequest;
+import com.digitallibrary.digital_library.dtos.response.BookImportResponse;
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
+import com.digitallibrary.digital_library.dtos.response.BookBatchItem;
 import com.digitallibrary.digital_library.dtos.response.BookResponse;
+import com.digitallibrary.digital_library.dtos.response.FacetedPage;
+import com.digitallibrary.digital_library.dtos.response.SuggestionResponse;
+import com.digitallibrary.digital_library.services.BookImportService;
 import com.digitallibrary.digital_library.services.BookService;
+import com.digitallibrary.digital_library.services.CatalogExportService;
+import com.digitallibrary.digital_library.utils.ConditionalGet;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
 
 @RestController
 @RequestMapping("api/books")
 @CrossOrigin(origins = "http://localhost:3000")
 public class BookController {
 
+    private static final String VIEW_FULL = "full";
+    private static final String VIEW_SUMMARY = "summary";
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+    private static final String ETAG_SCOPE = "books";
+    // La exportación puede tardar mucho más que el timeout asíncrono general
+    private static final long EXPORT_TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final String EXPORT_TIMEOUT_INTERCEPTOR = "exportTimeout";
+
     private final BookService bookService;
+    private final CatalogExportService catalogExportService;
+    private final BookImportService bookImportService;
+    private final CatalogVersion catalogVersion;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, CatalogExportService catalogExportService,
+                          BookImportService bookImportService, CatalogVersion catalogVersion) {
         this.bookService = bookService;
+        this.catalogExportService = catalogExportService;
+        this.bookImportService = bookImportService;
+        this.catalogVersion = catalogVersion;
     }
 
     @GetMapping
-    public ResponseEntity<Page<BookResponse>> getAllBooks(
+    public ResponseEntity<?> getAllBooks(
             Pageable pageable,
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String author,
             @RequestParam(required = false) Long categoryId,
             @RequestParam(required = false) Integer publicationYear,
-            @RequestParam(required = false) String language) {
+            @RequestParam(required = false) String language,
+            @RequestParam(required = false) Integer tolerance,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean facets,
+            WebRequest request) {
         
+        if (catalogNotModified(request)) {
+            return null;
+        }
+        if (cursor != null) {
+            if (title != null || author != null || categoryId != null
+                    || publicationYear != null || language != null) {
+                throw new IllegalArgumentException("El modo cursor no admite filtros de búsqueda");
+            }
+            return ResponseEntity.ok(bookService.getAllBooks(cursor, pageable));
+        }
+
         Page<BookResponse> books = bookService.searchBooks(title, author, categoryId, 
-                publicationYear, language, pageable);
+                publicationYear, language, tolerance, pageable);
+        if (facets) {
+            return ResponseEntity.ok(new FacetedPage<>(books, bookService.searchBooksFacets(title, author,
+                categoryId, publicationYear, language, tolerance)));
+        }
+        return ResponseEntity.ok(books);
+    }
+
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<BookBatchItem>> getBooksByIds(@RequestParam List<Long> ids, WebRequest request) {
+        if (catalogNotModified(request)) {
+            return null;
+        }
+        return ResponseEntity.ok(bookService.getBooksByIds(ids));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookBatchItem>> getBooksBatch(@Valid @RequestBody BookBatchRequest batchRequest) {
+        List<BookBatchItem> books = bookService.getBooksByIds(batchRequest.getIds());
         return ResponseEntity.ok(books);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<BookResponse> getBookById(@PathVariable Long id) {
+    public ResponseEntity<BookResponse> getBookById(@PathVariable Long id, WebRequest request) {
+        if (bookNotModified(request, String.valueOf(id), bookService.getBookLastModified(id))) {
+            return null;
+        }
         BookResponse book = bookService.getBookById(id);
         return ResponseEntity.ok(book);
     }
 
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<StreamingResponseBody> exportBooks(@RequestParam(defaultValue = "ndjson") String format,
+                                                             HttpServletRequest request) {
+        if (!"ndjson".equalsIgnoreCase(format)) {
+            throw new IllegalArgumentException("Formato de exportación no soportado: " + format);
+        }
+        // Solo para esta petición: se aplica justo antes de empezar el procesamiento asíncrono
+        WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(EXPORT_TIMEOUT_INTERCEPTOR,
+            new CallableProcessingInterceptor() {
+                @Override
+                public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+                    ((AsyncWebRequest) webRequest).setTimeout(EXPORT_TIMEOUT_MS);
+                }
+            });
+        StreamingResponseBody body = catalogExportService::exportBooksAsNdjson;
+        return ResponseEntity.ok()
+            .contentType(NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"catalog.ndjson\"")
+            .body(body);
+    }
+
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<Map<String, Object>> getBookAvailability(@PathVariable Long id) {
+        return ResponseEntity.ok(bookService.getBookAvailability(id));
+    }
+
     @GetMapping("/isbn/{isbn}")
-    public ResponseEntity<BookResponse> getBookByIsbn(@PathVariable String isbn) {
+    public ResponseEntity<BookResponse> getBookByIsbn(@PathVariable String isbn, WebRequest request) {
+        if (bookNotModified(request, "isbn-" + isbn, bookService.getBookLastModifiedByIsbn(isbn))) {
+            return null;
+        }
         BookResponse book = bookService.getBookByIsbn(isbn);
         return ResponseEntity.ok(book);
     }
 
     @GetMapping("/author/{authorId}")
-    public ResponseEntity<List<BookResponse>> getBooksByAuthor(@PathVariable Long authorId) {
-        List<BookResponse> books = bookService.getBooksByAuthor(authorId);
+    public ResponseEntity<Page<BookResponse>> getBooksByAuthor(@PathVariable Long authorId, Pageable pageable,
+            WebRequest request) {
+        if (catalogNotModified(request)) {
+            return null;
+        }
+        Page<BookResponse> books = bookService.getBooksByAuthor(authorId, pageable);
         return ResponseEntity.ok(books);
     }
 
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<BookResponse>> getBooksByCategory(@PathVariable Long categoryId) {
+    public ResponseEntity<?> getBooksByCategory(@PathVariable Long categoryId,
+            @RequestParam(defaultValue = VIEW_FULL) String view,
+            WebRequest request) {
+        if (catalogNotModified(request)) {
+            return null;
+        }
+        if (isSummaryView(view)) {
+            return ResponseEntity.ok(bookService.getBookSummariesByCategory(categoryId));
+        }
         List<BookResponse> books = bookService.getBooksByCategory(categoryId);
         return ResponseEntity.ok(books);
     }
@@ -71,6 +190,16 @@ public class BookController {
         return ResponseEntity.ok(book);
     }
 
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<BookImportResponse> importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+        String format = CSV.isCompatibleWith(contentType) ? "csv" : "json";
+        BookImportResponse result = bookImportService.importBooks(body, format);
+        return ResponseEntity.ok(result);
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
     public ResponseEntity<BookResponse> updateBook(@PathVariable Long id, 
@@ -87,29 +216,84 @@ public class BookController {
     }
 
     @GetMapping("/available")
-    public ResponseEntity<List<BookResponse>> getAvailableBooks() {
-        List<BookResponse> books = bookService.getAvailableBooks();
+    public ResponseEntity<?> getAvailableBooks(Pageable pageable,
+            @RequestParam(defaultValue = VIEW_FULL) String view,
+            WebRequest request) {
+        if (catalogNotModified(request)) {
+            return null;
+        }
+        if (isSummaryView(view)) {
+            return ResponseEntity.ok(bookService.getAvailableBookSummaries(pageable));
+        }
+        Page<BookResponse> books = bookService.getAvailableBooks(pageable);
         return ResponseEntity.ok(books);
     }
 
     @GetMapping("/public/search")
-    public ResponseEntity<Page<BookResponse>> publicSearch(
+    public ResponseEntity<?> publicSearch(
             @RequestParam(required = false) String keyword,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String author,
-            Pageable pageable) {
+            @RequestParam(defaultValue = VIEW_FULL) String view,
+            @RequestParam(defaultValue = "false") boolean facets,
+            @RequestParam(defaultValue = "false") boolean availableOnly,
+            Pageable pageable,
+            WebRequest request) {
         
-        Page<BookResponse> books = bookService.publicSearch(keyword, category, author, pageable);
+        if (catalogNotModified(request)) {
+            return null;
+        }
+        Page<?> books = isSummaryView(view)
+            ? bookService.publicSearchSummaries(keyword, category, author, availableOnly, pageable)
+            : bookService.publicSearch(keyword, category, author, availableOnly, pageable);
+        if (facets) {
+            return ResponseEntity.ok(new FacetedPage<>(books,
+                bookService.publicSearchFacets(keyword, category, author, availableOnly)));
+        }
         return ResponseEntity.ok(books);
     }
 
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        
+        List<SuggestionResponse> suggestions = bookService.suggest(prefix, limit);
+        return ResponseEntity.ok(suggestions);
+    }
+
     @GetMapping("/stats/popular")
-    public ResponseEntity<List<BookResponse>> getPopularBooks(
+    public ResponseEntity<?> getPopularBooks(
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = VIEW_FULL) String view) {
         
+        if (isSummaryView(view)) {
+            return ResponseEntity.ok(bookService.getPopularBookSummaries(limit, startDate, endDate));
+        }
         List<BookResponse> books = bookService.getPopularBooks(limit, startDate, endDate);
         return ResponseEntity.ok(books);
     }
+
+    // 304 sin consultar el catálogo si el cliente ya tiene la versión actual del listado
+    private boolean catalogNotModified(WebRequest request) {
+        return ConditionalGet.notModified(request, catalogVersion.collectionETag(ETAG_SCOPE),
+            catalogVersion.lastModified());
+    }
+
+    private boolean bookNotModified(WebRequest request, String key, Optional<LocalDateTime> lastModified) {
+        return lastModified.isPresent() && ConditionalGet.notModified(request,
+            catalogVersion.bookETag(key, lastModified.get()), catalogVersion.bookLastModified(lastModified.get()));
+    }
+
+    private boolean isSummaryView(String view) {
+        if (VIEW_SUMMARY.equalsIgnoreCase(view)) {
+            return true;
+        }
+        if (VIEW_FULL.equalsIgnoreCase(view)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Vista no válida: " + view + " (use 'summary' o 'full')");
+    }
 }
\ No newline at end of file
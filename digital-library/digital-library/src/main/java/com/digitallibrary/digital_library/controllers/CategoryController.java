@@ -1,15 +1,18 @@
 package com.digitallibrary.digital_library.controllers;
  
 
+import com.digitallibrary.digital_library.cache.CatalogVersion;
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
 import com.digitallibrary.digital_library.dtos.response.CategoryResponse;
 import com.digitallibrary.digital_library.services.CategoryService;
+import com.digitallibrary.digital_library.utils.ConditionalGet;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,23 +21,34 @@ import java.util.List;
 @CrossOrigin(origins = "http://localhost:3000")
 public class CategoryController {
 
+    private static final String ETAG_SCOPE = "categories";
+
     private final CategoryService categoryService;
+    private final CatalogVersion catalogVersion;
 
-    public CategoryController(CategoryService categoryService) {
+    public CategoryController(CategoryService categoryService, CatalogVersion catalogVersion) {
         this.categoryService = categoryService;
+        this.catalogVersion = catalogVersion;
     }
 
     @GetMapping
     public ResponseEntity<Page<CategoryResponse>> getAllCategories(
             Pageable pageable,
-            @RequestParam(required = false) String name) {
+            @RequestParam(required = false) String name,
+            WebRequest request) {
         
+        if (catalogNotModified(request)) {
+            return null;
+        }
         Page<CategoryResponse> categories = categoryService.getAllCategories(name, pageable);
         return ResponseEntity.ok(categories);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryResponse> getCategoryById(@PathVariable Long id) {
+    public ResponseEntity<CategoryResponse> getCategoryById(@PathVariable Long id, WebRequest request) {
+        if (catalogNotModified(request)) {
+            return null;
+        }
         CategoryResponse category = categoryService.getCategoryById(id);
         return ResponseEntity.ok(category);
     }
@@ -62,12 +76,18 @@ public class CategoryController {
     }
 
     @GetMapping("/{id}/books")
-    public ResponseEntity<?> getCategoryWithBooks(@PathVariable Long id) {
+    public ResponseEntity<?> getCategoryWithBooks(@PathVariable Long id, WebRequest request) {
+        if (catalogNotModified(request)) {
+            return null;
+        }
         return ResponseEntity.ok(categoryService.getCategoryWithBooks(id));
     }
 
     @GetMapping("/all")
-    public ResponseEntity<List<CategoryResponse>> getAllCategoriesList() {
+    public ResponseEntity<List<CategoryResponse>> getAllCategoriesList(WebRequest request) {
+        if (catalogNotModified(request)) {
+            return null;
+        }
         List<CategoryResponse> categories = categoryService.getAllCategoriesList();
         return ResponseEntity.ok(categories);
     }
@@ -78,4 +98,10 @@ public class CategoryController {
         List<CategoryResponse> categories = categoryService.getPopularCategories(limit);
         return ResponseEntity.ok(categories);
     }
-}
\ No newline at end of file
+
+    // Los conteos de libros y préstamos de la respuesta dependen de todo el catálogo
+    private boolean catalogNotModified(WebRequest request) {
+        return ConditionalGet.notModified(request, catalogVersion.collectionETag(ETAG_SCOPE),
+            catalogVersion.lastModified());
+    }
+}
@@ -1,8 +1,11 @@
 package com.digitallibrary.digital_library.controllers;
  
 
+import com.digitallibrary.digital_library.dtos.request.BulkLoanRequest;
+import com.digitallibrary.digital_library.dtos.request.BulkReturnRequest;
 import com.digitallibrary.digital_library.dtos.request.LoanRequest;
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
+import com.digitallibrary.digital_library.dtos.response.BulkLoanItem;
 import com.digitallibrary.digital_library.dtos.response.LoanResponse;
 import com.digitallibrary.digital_library.services.LoanService;
 import jakarta.validation.Valid;
@@ -34,6 +37,18 @@ public class LoanController {
         return ResponseEntity.ok(loan);
     }
 
+    @PostMapping("/bulk")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<List<BulkLoanItem>> createLoans(@Valid @RequestBody BulkLoanRequest request) {
+        return ResponseEntity.ok(loanService.createLoans(request));
+    }
+
+    @PostMapping("/bulk-return")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
+    public ResponseEntity<List<BulkLoanItem>> returnLoans(@Valid @RequestBody BulkReturnRequest request) {
+        return ResponseEntity.ok(loanService.returnLoans(request));
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
     public ResponseEntity<LoanResponse> getLoanById(@PathVariable Long id) {
@@ -56,12 +71,17 @@ public class LoanController {
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
-    public ResponseEntity<Page<LoanResponse>> getAllLoans(
+    public ResponseEntity<?> getAllLoans(
             Pageable pageable,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String cursor) {
         
+        if (cursor != null) {
+            return ResponseEntity.ok(loanService.getAllLoans(status, startDate, endDate, cursor, pageable));
+        }
+
         Page<LoanResponse> loans = loanService.getAllLoans(status, startDate, endDate, pageable);
         return ResponseEntity.ok(loans);
     }
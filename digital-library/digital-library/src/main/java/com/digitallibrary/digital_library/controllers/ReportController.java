@@ -85,6 +85,12 @@ public class ReportController {
         return ResponseEntity.ok(reportService.generateSystemHealthReport());
     }
 
+    @GetMapping("/system/cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getCacheStatsReport() {
+        return ResponseEntity.ok(reportService.generateCacheStatsReport());
+    }
+
     @GetMapping("/export/loans")
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
     public ResponseEntity<?> exportLoansReport(
@@ -38,11 +38,16 @@ public class UserController {
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN') or hasRole('LIBRARIAN')")
-    public ResponseEntity<Page<UserResponse>> getAllUsers(
+    public ResponseEntity<?> getAllUsers(
             Pageable pageable,
             @RequestParam(required = false) String role,
-            @RequestParam(required = false) String search) {
+            @RequestParam(required = false) String search,
+            @RequestParam(required = false) String cursor) {
         
+        if (cursor != null) {
+            return ResponseEntity.ok(userService.getAllUsers(role, search, cursor, pageable));
+        }
+
         Page<UserResponse> users = userService.getAllUsers(role, search, pageable);
         return ResponseEntity.ok(users);
     }
@@ -0,0 +1,22 @@
+package com.digitallibrary.digital_library.dtos.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BookBatchRequest {
+
+    public static final int MAX_IDS = 200;
+
+    @NotEmpty(message = "Debe indicar al menos un id")
+    @Size(max = MAX_IDS, message = "Se admiten como máximo 200 ids por consulta")
+    private List<Long> ids;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+}
@@ -0,0 +1,29 @@
+package com.digitallibrary.digital_library.dtos.request;
+
+import java.util.List;
+
+/**
+ * Fila de una importación masiva. Además de los ids de {@link BookRequest} admite
+ * autores y categorías por nombre.
+ */
+public class BookImportRow extends BookRequest {
+
+    private List<String> authors;
+    private List<String> categories;
+
+    public List<String> getAuthors() {
+        return authors;
+    }
+
+    public void setAuthors(List<String> authors) {
+        this.authors = authors;
+    }
+
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<String> categories) {
+        this.categories = categories;
+    }
+}
@@ -0,0 +1,22 @@
+package com.digitallibrary.digital_library.dtos.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+public class BulkReturnRequest {
+
+    public static final int MAX_ITEMS = 50;
+
+    @NotEmpty(message = "Debe indicar al menos un préstamo")
+    @Size(max = MAX_ITEMS, message = "Se admiten como máximo 50 préstamos por operación")
+    private List<Long> loanIds;
+
+    public List<Long> getLoanIds() {
+        return loanIds;
+    }
+
+    public void setLoanIds(List<Long> loanIds) {
+        this.loanIds = loanIds;
+    }
+}
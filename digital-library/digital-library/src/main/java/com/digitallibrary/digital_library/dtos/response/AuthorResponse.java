@@ -14,6 +14,7 @@ public class AuthorResponse {
     private LocalDateTime createdAt;
     
     private Integer bookCount;
+    private Boolean fuzzyMatch;
  
     public Long getId() {
         return id;
@@ -70,4 +71,12 @@ public class AuthorResponse {
     public void setBookCount(Integer bookCount) {
         this.bookCount = bookCount;
     }
-}
+
+    public Boolean getFuzzyMatch() {
+        return fuzzyMatch;
+    }
+
+    public void setFuzzyMatch(Boolean fuzzyMatch) {
+        this.fuzzyMatch = fuzzyMatch;
+    }
+}
\ No newline at end of file
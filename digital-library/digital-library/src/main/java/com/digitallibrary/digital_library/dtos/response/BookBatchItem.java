@@ -0,0 +1,52 @@
+package com.digitallibrary.digital_library.dtos.response;
+
+/**
+ * Resultado de un id en una consulta por lotes: el libro, o {@code found = false} si no existe.
+ */
+public class BookBatchItem {
+
+    private Long id;
+    private boolean found;
+    private BookResponse book;
+
+    public BookBatchItem() {
+    }
+
+    public BookBatchItem(Long id, boolean found, BookResponse book) {
+        this.id = id;
+        this.found = found;
+        this.book = book;
+    }
+
+    public static BookBatchItem found(BookResponse book) {
+        return new BookBatchItem(book.getId(), true, book);
+    }
+
+    public static BookBatchItem notFound(Long id) {
+        return new BookBatchItem(id, false, null);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public void setFound(boolean found) {
+        this.found = found;
+    }
+
+    public BookResponse getBook() {
+        return book;
+    }
+
+    public void setBook(BookResponse book) {
+        this.book = book;
+    }
+}
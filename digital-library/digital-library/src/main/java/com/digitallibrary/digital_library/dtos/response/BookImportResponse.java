@@ -0,0 +1,70 @@
+package com.digitallibrary.digital_library.dtos.response;
+
+import java.util.List;
+
+public class BookImportResponse {
+
+    private int totalRows;
+    private int imported;
+    private int duplicates;
+    private int invalid;
+    private int failed;
+    private long elapsedMs;
+    private List<BookImportRowResult> rows;
+
+    public int getTotalRows() {
+        return totalRows;
+    }
+
+    public void setTotalRows(int totalRows) {
+        this.totalRows = totalRows;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public void setImported(int imported) {
+        this.imported = imported;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public void setDuplicates(int duplicates) {
+        this.duplicates = duplicates;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+
+    public void setInvalid(int invalid) {
+        this.invalid = invalid;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public List<BookImportRowResult> getRows() {
+        return rows;
+    }
+
+    public void setRows(List<BookImportRowResult> rows) {
+        this.rows = rows;
+    }
+}
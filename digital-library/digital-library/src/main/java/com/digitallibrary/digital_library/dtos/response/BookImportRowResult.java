@@ -0,0 +1,66 @@
+package com.digitallibrary.digital_library.dtos.response;
+
+public class BookImportRowResult {
+
+    public static final String IMPORTED = "IMPORTED";
+    public static final String DUPLICATE = "DUPLICATE";
+    public static final String INVALID = "INVALID";
+    public static final String FAILED = "FAILED";
+
+    private int row;
+    private String isbn;
+    private String status;
+    private Long bookId;
+    private String message;
+
+    public BookImportRowResult() {
+    }
+
+    public BookImportRowResult(int row, String isbn, String status, Long bookId, String message) {
+        this.row = row;
+        this.isbn = isbn;
+        this.status = status;
+        this.bookId = bookId;
+        this.message = message;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public void setBookId(Long bookId) {
+        this.bookId = bookId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -26,6 +26,34 @@ public class BookResponse {
     private List<CategoryResponse> categories;
     private Integer loanCount;
     private Double averageRating;
+    private Boolean fuzzyMatch;
+
+    public BookResponse() {
+    }
+
+    // Copia superficial: las listas de autores y categorías se comparten con el original
+    public BookResponse(BookResponse other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.isbn = other.isbn;
+        this.description = other.description;
+        this.publicationYear = other.publicationYear;
+        this.publisher = other.publisher;
+        this.edition = other.edition;
+        this.language = other.language;
+        this.pages = other.pages;
+        this.coverImageUrl = other.coverImageUrl;
+        this.totalCopies = other.totalCopies;
+        this.availableCopies = other.availableCopies;
+        this.location = other.location;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.authors = other.authors;
+        this.categories = other.categories;
+        this.loanCount = other.loanCount;
+        this.averageRating = other.averageRating;
+        this.fuzzyMatch = other.fuzzyMatch;
+    }
 
     // Getters y Setters
     public Long getId() {
@@ -179,4 +207,12 @@ public class BookResponse {
     public void setAverageRating(Double averageRating) {
         this.averageRating = averageRating;
     }
+
+    public Boolean getFuzzyMatch() {
+        return fuzzyMatch;
+    }
+
+    public void setFuzzyMatch(Boolean fuzzyMatch) {
+        this.fuzzyMatch = fuzzyMatch;
+    }
 }
\ No newline at end of file
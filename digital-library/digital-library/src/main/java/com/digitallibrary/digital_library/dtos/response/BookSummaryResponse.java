@@ -0,0 +1,97 @@
+package com.digitallibrary.digital_library.dtos.response;
+
+import java.util.List;
+
+/**
+ * Vista reducida de un libro para listados: solo las columnas que muestra el catálogo.
+ */
+public class BookSummaryResponse {
+
+    private Long id;
+    private String title;
+    private String isbn;
+    private Integer publicationYear;
+    private String language;
+    private String coverImageUrl;
+    private Integer availableCopies;
+    private List<String> authors;
+
+    public BookSummaryResponse() {
+    }
+
+    // Usado por las consultas JPQL "SELECT new ..."
+    public BookSummaryResponse(Long id, String title, String isbn, Integer publicationYear,
+                               String language, String coverImageUrl, Integer availableCopies) {
+        this.id = id;
+        this.title = title;
+        this.isbn = isbn;
+        this.publicationYear = publicationYear;
+        this.language = language;
+        this.coverImageUrl = coverImageUrl;
+        this.availableCopies = availableCopies;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public void setIsbn(String isbn) {
+        this.isbn = isbn;
+    }
+
+    public Integer getPublicationYear() {
+        return publicationYear;
+    }
+
+    public void setPublicationYear(Integer publicationYear) {
+        this.publicationYear = publicationYear;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public void setLanguage(String language) {
+        this.language = language;
+    }
+
+    public String getCoverImageUrl() {
+        return coverImageUrl;
+    }
+
+    public void setCoverImageUrl(String coverImageUrl) {
+        this.coverImageUrl = coverImageUrl;
+    }
+
+    public Integer getAvailableCopies() {
+        return availableCopies;
+    }
+
+    public void setAvailableCopies(Integer availableCopies) {
+        this.availableCopies = availableCopies;
+    }
+
+    public List<String> getAuthors() {
+        return authors;
+    }
+
+    public void setAuthors(List<String> authors) {
+        this.authors = authors;
+    }
+}
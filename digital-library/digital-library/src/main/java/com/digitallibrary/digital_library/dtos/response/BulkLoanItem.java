@@ -0,0 +1,63 @@
+package com.digitallibrary.digital_library.dtos.response;
+
+/**
+ * Resultado de un elemento en un préstamo o devolución por lotes: el préstamo resultante,
+ * o {@code success = false} con el motivo del rechazo.
+ */
+public class BulkLoanItem {
+
+    private Long id;
+    private boolean success;
+    private LoanResponse loan;
+    private String message;
+
+    public BulkLoanItem() {
+    }
+
+    public BulkLoanItem(Long id, boolean success, LoanResponse loan, String message) {
+        this.id = id;
+        this.success = success;
+        this.loan = loan;
+        this.message = message;
+    }
+
+    public static BulkLoanItem success(Long id, LoanResponse loan) {
+        return new BulkLoanItem(id, true, loan, null);
+    }
+
+    public static BulkLoanItem failure(Long id, String message) {
+        return new BulkLoanItem(id, false, null, message);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public LoanResponse getLoan() {
+        return loan;
+    }
+
+    public void setLoan(LoanResponse loan) {
+        this.loan = loan;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
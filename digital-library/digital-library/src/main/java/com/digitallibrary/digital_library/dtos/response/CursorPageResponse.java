@@ -0,0 +1,78 @@
+package com.digitallibrary.digital_library.dtos.response;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class CursorPageResponse<T> {
+
+    private List<T> content;
+    private String nextCursor;
+    private int size;
+    private boolean hasNext;
+
+    public CursorPageResponse() {
+    }
+
+    public CursorPageResponse(List<T> content, String nextCursor, int size, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * Construye la página a partir de {@code size + 1} filas: la fila sobrante solo indica
+     * que hay más resultados, así no hace falta ningún COUNT.
+     */
+    public static <E, T> CursorPageResponse<T> of(List<E> rows, int size,
+                                                 Function<E, T> mapper,
+                                                 Function<E, String> cursorOf) {
+        return ofRows(rows, size, pageRows -> pageRows.stream().map(mapper).collect(Collectors.toList()),
+            cursorOf);
+    }
+
+    /**
+     * Igual que {@link #of}, pero convierte todas las filas de la página de una vez.
+     */
+    public static <E, T> CursorPageResponse<T> ofRows(List<E> rows, int size,
+                                                     Function<List<E>, List<T>> rowsMapper,
+                                                     Function<E, String> cursorOf) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(pageRows.get(pageRows.size() - 1)) : null;
+        return new CursorPageResponse<>(rowsMapper.apply(pageRows), nextCursor, size, hasNext);
+    }
+
+    public List<T> getContent() {
+        return content;
+    }
+
+    public void setContent(List<T> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public void setHasNext(boolean hasNext) {
+        this.hasNext = hasNext;
+    }
+}
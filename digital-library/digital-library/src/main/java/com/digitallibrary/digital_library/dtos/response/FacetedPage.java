@@ -0,0 +1,21 @@
+package com.digitallibrary.digital_library.dtos.response;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.web.PagedModel;
+
+/**
+ * Misma forma JSON que una página normal ({@code content} y {@code page}) más el bloque {@code facets}.
+ */
+public class FacetedPage<T> extends PagedModel<T> {
+
+    private final FacetsResponse facets;
+
+    public FacetedPage(Page<T> page, FacetsResponse facets) {
+        super(page);
+        this.facets = facets;
+    }
+
+    public FacetsResponse getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,56 @@
+package com.digitallibrary.digital_library.dtos.response;
+
+import java.util.List;
+
+/**
+ * Conteos por categoría, idioma, década de publicación y disponibilidad
+ * sobre el conjunto completo de resultados de una búsqueda.
+ */
+public class FacetsResponse {
+
+    private List<FacetValue> categories;
+    private List<FacetValue> languages;
+    private List<FacetValue> years;
+    private long available;
+    private long total;
+
+    public List<FacetValue> getCategories() {
+        return categories;
+    }
+
+    public void setCategories(List<FacetValue> categories) {
+        this.categories = categories;
+    }
+
+    public List<FacetValue> getLanguages() {
+        return languages;
+    }
+
+    public void setLanguages(List<FacetValue> languages) {
+        this.languages = languages;
+    }
+
+    public List<FacetValue> getYears() {
+        return years;
+    }
+
+    public void setYears(List<FacetValue> years) {
+        this.years = years;
+    }
+
+    public long getAvailable() {
+        return available;
+    }
+
+    public void setAvailable(long available) {
+        this.available = available;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+}
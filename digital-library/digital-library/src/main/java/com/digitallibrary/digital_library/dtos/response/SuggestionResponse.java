@@ -0,0 +1,51 @@
+package com.digitallibrary.digital_library.dtos.response;
+
+public class SuggestionResponse {
+
+    private String text;
+    private String type;
+    private Long id;
+    private Long weight;
+
+    public SuggestionResponse() {
+    }
+
+    public SuggestionResponse(String text, String type, Long id, Long weight) {
+        this.text = text;
+        this.type = type;
+        this.id = id;
+        this.weight = weight;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Long weight) {
+        this.weight = weight;
+    }
+}
@@ -0,0 +1,44 @@
+package com.digitallibrary.digital_library.events;
+
+import com.digitallibrary.digital_library.models.enums.LoanStatus;
+
+/**
+ * Cambio de un préstamo: alta ({@code previousStatus} nulo), cambio de estado o de fechas, o baja
+ * ({@code status} nulo). Lo consumen tras el commit las cachés que dependen de los préstamos.
+ */
+public class LoanChangeEvent {
+
+    private final Long loanId;
+    private final Long userId;
+    private final Long bookId;
+    private final LoanStatus previousStatus;
+    private final LoanStatus status;
+
+    public LoanChangeEvent(Long loanId, Long userId, Long bookId, LoanStatus previousStatus, LoanStatus status) {
+        this.loanId = loanId;
+        this.userId = userId;
+        this.bookId = bookId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+    }
+
+    public Long getLoanId() {
+        return loanId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public LoanStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public LoanStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,31 @@
+package com.digitallibrary.digital_library.events;
+
+import com.digitallibrary.digital_library.models.enums.ReservationStatus;
+
+/**
+ * Cambio de estado de una reserva: alta ({@code previousStatus} nulo) o transición a otro estado.
+ */
+public class ReservationChangeEvent {
+
+    private final Long reservationId;
+    private final ReservationStatus previousStatus;
+    private final ReservationStatus status;
+
+    public ReservationChangeEvent(Long reservationId, ReservationStatus previousStatus, ReservationStatus status) {
+        this.reservationId = reservationId;
+        this.previousStatus = previousStatus;
+        this.status = status;
+    }
+
+    public Long getReservationId() {
+        return reservationId;
+    }
+
+    public ReservationStatus getPreviousStatus() {
+        return previousStatus;
+    }
+
+    public ReservationStatus getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,18 @@
+package com.digitallibrary.digital_library.events;
+
+/**
+ * Baja de un usuario, activo o no. La variación del número de usuarios activos sigue llegando
+ * por {@link UserStatusChangeEvent}.
+ */
+public class UserDeletedEvent {
+
+    private final Long userId;
+
+    public UserDeletedEvent(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
@@ -0,0 +1,24 @@
+package com.digitallibrary.digital_library.events;
+
+/**
+ * Cambio en la activación de un usuario: alta de un usuario activo, activación, desactivación o
+ * baja de un usuario activo. {@code active} es el estado resultante.
+ */
+public class UserStatusChangeEvent {
+
+    private final Long userId;
+    private final boolean active;
+
+    public UserStatusChangeEvent(Long userId, boolean active) {
+        this.userId = userId;
+        this.active = active;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
@@ -1,6 +1,7 @@
 package com.digitallibrary.digital_library.exceptions;
 
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -118,6 +119,19 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex, WebRequest request) {
+        
+        ApiResponse response = new ApiResponse();
+        response.setSuccess(false);
+        response.setMessage("El recurso fue modificado por otra operación, intente nuevamente");
+        response.setStatusCode(HttpStatus.CONFLICT.value());
+        response.setTimestamp(LocalDateTime.now());
+        
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiResponse> handleIllegalArgumentException(
             IllegalArgumentException ex, WebRequest request) {
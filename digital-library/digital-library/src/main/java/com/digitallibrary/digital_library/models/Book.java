@@ -6,7 +6,9 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+    @Index(name = "idx_books_title_id", columnList = "title, id")
+})
 public class Book {
     
     @Id
@@ -46,6 +48,12 @@ public class Book {
     
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    // El DEFAULT deja en 0 las filas existentes al añadir la columna y las altas por JDBC.
+    // En la entidad empieza en null: así save() reconoce el libro nuevo y hace persist, no merge
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
     
     @ManyToMany
     @JoinTable(
@@ -204,6 +212,14 @@ public class Book {
         this.updatedAt = updatedAt;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Set<Author> getAuthors() {
         return authors;
     }
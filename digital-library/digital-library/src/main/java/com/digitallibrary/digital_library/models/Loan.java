@@ -6,7 +6,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "loans")
+@Table(name = "loans", indexes = {
+    @Index(name = "idx_loans_loan_date_id", columnList = "loan_date, id"),
+    @Index(name = "idx_loans_user_status_due", columnList = "user_id, status, due_date"),
+    @Index(name = "idx_loans_status_id", columnList = "status, id")
+})
 public class Loan {
     
     @Id
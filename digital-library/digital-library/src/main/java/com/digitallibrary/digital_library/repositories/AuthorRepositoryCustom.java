@@ -0,0 +1,15 @@
+package com.digitallibrary.digital_library.repositories;
+
+import com.digitallibrary.digital_library.models.Author;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AuthorRepositoryCustom {
+
+    /**
+     * Igual que {@code findAllById}, pero resuelve cada id por la caché de segundo nivel
+     * y solo consulta la base de datos por los que no estén en ella. Los ids inexistentes se omiten.
+     */
+    List<Author> loadAllById(Collection<Long> ids);
+}
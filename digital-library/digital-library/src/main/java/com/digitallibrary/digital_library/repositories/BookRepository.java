@@ -1,13 +1,20 @@
 package com.digitallibrary.digital_library.repositories;
   
+import com.digitallibrary.digital_library.dtos.response.BookSummaryResponse;
 import com.digitallibrary.digital_library.models.Book;
+import com.digitallibrary.digital_library.search.InventoryChangeEvent;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +22,60 @@ import java.util.Optional;
 public interface BookRepository extends JpaRepository<Book, Long> {
      
     Optional<Book> findByIsbn(String isbn);
+
+    @Query("SELECT b.id FROM Book b WHERE b.isbn = :isbn")
+    Optional<Long> findIdByIsbn(@Param("isbn") String isbn);
+
+    @Query("SELECT COALESCE(b.updatedAt, b.createdAt) FROM Book b WHERE b.id = :id")
+    Optional<LocalDateTime> findLastModifiedById(@Param("id") Long id);
+
+    @Query("SELECT COALESCE(b.updatedAt, b.createdAt) FROM Book b WHERE b.isbn = :isbn")
+    Optional<LocalDateTime> findLastModifiedByIsbn(@Param("isbn") String isbn);
+
+    @Query("SELECT b.id FROM Book b")
+    List<Long> findAllIds();
+
+    // Cambios de inventario en una sola sentencia condicional: la base de datos decide con la fila
+    // bloqueada, así que dos operaciones simultáneas no pueden pisarse. Devuelven las filas
+    // afectadas (0 si no se cumple la condición) y suben la versión del libro.
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + 1, b.version = b.version + 1, " +
+           "b.updatedAt = :now WHERE b.id = :id AND b.availableCopies < b.totalCopies")
+    int incrementAvailableCopies(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.totalCopies = b.totalCopies - 1, " +
+           "b.availableCopies = CASE WHEN b.availableCopies > 0 THEN b.availableCopies - 1 ELSE 0 END, " +
+           "b.version = b.version + 1, b.updatedAt = :now WHERE b.id = :id AND b.totalCopies > 0")
+    int removeLostCopy(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // Conserva las copias prestadas: solo se aplica si el nuevo total las cubre
+    @Modifying
+    @Query("UPDATE Book b SET b.availableCopies = b.availableCopies + (:copies - b.totalCopies), " +
+           "b.totalCopies = :copies, b.version = b.version + 1, b.updatedAt = :now " +
+           "WHERE b.id = :id AND b.totalCopies - b.availableCopies <= :copies")
+    int updateTotalCopies(@Param("id") Long id, @Param("copies") int copies, @Param("now") LocalDateTime now);
+
+    // Para repartir varias copias en una transacción: el libro no debe haberse leído antes en ella,
+    // porque una entidad ya cargada se devuelve sin refrescar
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id = :id")
+    Optional<Book> findByIdForUpdate(@Param("id") Long id);
+
+    // Siempre en orden de id: dos lotes que comparten libros los bloquean en la misma secuencia
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id IN :ids ORDER BY b.id")
+    List<Book> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.digitallibrary.digital_library.search.InventoryChangeEvent(" +
+           "b.id, b.availableCopies, b.totalCopies, b.version) FROM Book b WHERE b.id = :id")
+    Optional<InventoryChangeEvent> findInventoryById(@Param("id") Long id);
+
+    @Query("SELECT b.id FROM Book b WHERE COALESCE(b.updatedAt, b.createdAt) >= :since")
+    List<Long> findIdsModifiedSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT b.id FROM Book b JOIN b.categories c WHERE c.id = :categoryId")
+    List<Long> findIdsByCategoryId(@Param("categoryId") Long categoryId);
      
     Page<Book> findByTitleContainingIgnoreCase(String title, Pageable pageable);
      
@@ -54,10 +115,12 @@ public interface BookRepository extends JpaRepository<Book, Long> {
            "       LOWER(b.description) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "       LOWER(a.name) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
            "AND (:category IS NULL OR LOWER(c.name) LIKE LOWER(CONCAT('%', :category, '%'))) " +
-           "AND (:author IS NULL OR LOWER(a.name) LIKE LOWER(CONCAT('%', :author, '%')))")
+           "AND (:author IS NULL OR LOWER(a.name) LIKE LOWER(CONCAT('%', :author, '%'))) " +
+           "AND (:availableOnly = false OR b.availableCopies > 0)")
     Page<Book> publicSearch(@Param("keyword") String keyword,
                            @Param("category") String category,
                            @Param("author") String author,
+                           @Param("availableOnly") boolean availableOnly,
                            Pageable pageable);
      
     @Query("SELECT b FROM Book b " +
@@ -71,6 +134,168 @@ public interface BookRepository extends JpaRepository<Book, Long> {
                                @Param("endDate") java.time.LocalDate endDate,
                                Pageable pageable);
      
+    @Query(value = "SELECT b FROM Book b JOIN b.authors a WHERE a.id = :authorId",
+           countQuery = "SELECT COUNT(b) FROM Book b JOIN b.authors a WHERE a.id = :authorId")
+    Page<Book> findByAuthorId(@Param("authorId") Long authorId, Pageable pageable);
+     
+    @Query("SELECT DISTINCT b.id FROM Book b JOIN b.authors a WHERE a.id IN :authorIds")
+    List<Long> findIdsByAuthorIds(@Param("authorIds") Collection<Long> authorIds);
+     
+    @Query("SELECT DISTINCT b FROM Book b " +
+           "LEFT JOIN b.categories c " +
+           "WHERE b.id IN :ids " +
+           "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+           "AND (:publicationYear IS NULL OR b.publicationYear = :publicationYear) " +
+           "AND (:language IS NULL OR LOWER(b.language) LIKE LOWER(CONCAT('%', :language, '%')))")
+    Page<Book> searchBooksByIds(@Param("ids") Collection<Long> ids,
+                               @Param("categoryId") Long categoryId,
+                               @Param("publicationYear") Integer publicationYear,
+                               @Param("language") String language,
+                               Pageable pageable);
+     
+    // Solo ids: conjunto completo de resultados para calcular facetas
+    @Query("SELECT DISTINCT b.id FROM Book b " +
+           "LEFT JOIN b.authors a " +
+           "LEFT JOIN b.categories c " +
+           "WHERE (:title IS NULL OR LOWER(b.title) LIKE LOWER(CONCAT('%', :title, '%'))) " +
+           "AND (:author IS NULL OR LOWER(a.name) LIKE LOWER(CONCAT('%', :author, '%'))) " +
+           "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+           "AND (:publicationYear IS NULL OR b.publicationYear = :publicationYear) " +
+           "AND (:language IS NULL OR LOWER(b.language) LIKE LOWER(CONCAT('%', :language, '%')))")
+    List<Long> searchBookIds(@Param("title") String title,
+                             @Param("author") String author,
+                             @Param("categoryId") Long categoryId,
+                             @Param("publicationYear") Integer publicationYear,
+                             @Param("language") String language);
+     
+    @Query("SELECT DISTINCT b.id FROM Book b " +
+           "LEFT JOIN b.categories c " +
+           "WHERE b.id IN :ids " +
+           "AND (:categoryId IS NULL OR c.id = :categoryId) " +
+           "AND (:publicationYear IS NULL OR b.publicationYear = :publicationYear) " +
+           "AND (:language IS NULL OR LOWER(b.language) LIKE LOWER(CONCAT('%', :language, '%')))")
+    List<Long> searchBookIdsByIds(@Param("ids") Collection<Long> ids,
+                                  @Param("categoryId") Long categoryId,
+                                  @Param("publicationYear") Integer publicationYear,
+                                  @Param("language") String language);
+     
+    @Query("SELECT DISTINCT b.id FROM Book b " +
+           "LEFT JOIN b.authors a " +
+           "LEFT JOIN b.categories c " +
+           "WHERE (:keyword IS NULL OR " +
+           "       LOWER(b.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "       LOWER(b.isbn) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "       LOWER(b.description) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "       LOWER(a.name) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
+           "AND (:category IS NULL OR LOWER(c.name) LIKE LOWER(CONCAT('%', :category, '%'))) " +
+           "AND (:author IS NULL OR LOWER(a.name) LIKE LOWER(CONCAT('%', :author, '%'))) " +
+           "AND (:availableOnly = false OR b.availableCopies > 0)")
+    List<Long> publicSearchIds(@Param("keyword") String keyword,
+                               @Param("category") String category,
+                               @Param("author") String author,
+                               @Param("availableOnly") boolean availableOnly);
+     
+    @Query("SELECT b FROM Book b WHERE b.id > :lastId ORDER BY b.id")
+    List<Book> findNextById(@Param("lastId") Long lastId, Pageable pageable);
+     
+    @Query("SELECT b FROM Book b " +
+           "WHERE (:lastTitle IS NULL OR b.title > :lastTitle " +
+           "       OR (b.title = :lastTitle AND b.id > :lastId)) " +
+           "ORDER BY b.title, b.id")
+    List<Book> findNextByTitle(@Param("lastTitle") String lastTitle,
+                               @Param("lastId") Long lastId,
+                               Pageable pageable);
+     
+    @Query("SELECT b FROM Book b WHERE b.id < :lastId ORDER BY b.id DESC")
+    List<Book> findNextByIdDesc(@Param("lastId") Long lastId, Pageable pageable);
+     
+    @Query("SELECT b FROM Book b " +
+           "WHERE (:lastTitle IS NULL OR b.title < :lastTitle " +
+           "       OR (b.title = :lastTitle AND b.id < :lastId)) " +
+           "ORDER BY b.title DESC, b.id DESC")
+    List<Book> findNextByTitleDesc(@Param("lastTitle") String lastTitle,
+                                   @Param("lastId") Long lastId,
+                                   Pageable pageable);
+     
+    @Query("SELECT b.id, a FROM Book b JOIN b.authors a WHERE b.id IN :bookIds")
+    List<Object[]> findAuthorsByBookIds(@Param("bookIds") Collection<Long> bookIds);
+     
+    @Query("SELECT b.id, c FROM Book b JOIN b.categories c WHERE b.id IN :bookIds")
+    List<Object[]> findCategoriesByBookIds(@Param("bookIds") Collection<Long> bookIds);
+     
+    @Query("SELECT b.id, a.id, a.name FROM Book b JOIN b.authors a WHERE b.id IN :bookIds ORDER BY b.id, a.id")
+    List<Object[]> findAuthorRefsByBookIds(@Param("bookIds") Collection<Long> bookIds);
+     
+    @Query("SELECT b.id, c.id, c.name FROM Book b JOIN b.categories c WHERE b.id IN :bookIds ORDER BY b.id, c.id")
+    List<Object[]> findCategoryRefsByBookIds(@Param("bookIds") Collection<Long> bookIds);
+     
+    @Query("SELECT b.id, a.name FROM Book b JOIN b.authors a WHERE b.id IN :bookIds")
+    List<Object[]> findAuthorNamesByBookIds(@Param("bookIds") Collection<Long> bookIds);
+     
+    // Proyecciones para la vista "summary" de los listados
+    @Query("SELECT new com.digitallibrary.digital_library.dtos.response.BookSummaryResponse(" +
+           "b.id, b.title, b.isbn, b.publicationYear, b.language, b.coverImageUrl, b.availableCopies) " +
+           "FROM Book b WHERE b.id IN :ids")
+    List<BookSummaryResponse> findSummariesByIds(@Param("ids") Collection<Long> ids);
+     
+    @Query("SELECT new com.digitallibrary.digital_library.dtos.response.BookSummaryResponse(" +
+           "b.id, b.title, b.isbn, b.publicationYear, b.language, b.coverImageUrl, b.availableCopies) " +
+           "FROM Book b JOIN b.authors a WHERE a.id = :authorId ORDER BY b.id")
+    List<BookSummaryResponse> findSummariesByAuthorId(@Param("authorId") Long authorId);
+     
+    @Query(value = "SELECT new com.digitallibrary.digital_library.dtos.response.BookSummaryResponse(" +
+           "b.id, b.title, b.isbn, b.publicationYear, b.language, b.coverImageUrl, b.availableCopies) " +
+           "FROM Book b WHERE b.availableCopies > 0",
+           countQuery = "SELECT COUNT(b) FROM Book b WHERE b.availableCopies > 0")
+    Page<BookSummaryResponse> findAvailableSummaries(Pageable pageable);
+     
+    @Query("SELECT new com.digitallibrary.digital_library.dtos.response.BookSummaryResponse(" +
+           "b.id, b.title, b.isbn, b.publicationYear, b.language, b.coverImageUrl, b.availableCopies) " +
+           "FROM Book b WHERE b.id IN (SELECT b2.id FROM Book b2 JOIN b2.categories c WHERE c.id = :categoryId)")
+    List<BookSummaryResponse> findSummariesByCategoryId(@Param("categoryId") Long categoryId);
+     
+    @Query("SELECT new com.digitallibrary.digital_library.dtos.response.BookSummaryResponse(" +
+           "b.id, b.title, b.isbn, b.publicationYear, b.language, b.coverImageUrl, b.availableCopies) " +
+           "FROM Loan l JOIN l.book b " +
+           "WHERE (:startDate IS NULL OR l.loanDate >= :startDate) " +
+           "AND (:endDate IS NULL OR l.loanDate <= :endDate) " +
+           "GROUP BY b.id, b.title, b.isbn, b.publicationYear, b.language, b.coverImageUrl, b.availableCopies " +
+           "ORDER BY COUNT(l.id) DESC, b.id")
+    List<BookSummaryResponse> findPopularSummaries(@Param("startDate") java.time.LocalDate startDate,
+                                                   @Param("endDate") java.time.LocalDate endDate,
+                                                   Pageable pageable);
+     
+    @Query(value = "SELECT new com.digitallibrary.digital_library.dtos.response.BookSummaryResponse(" +
+           "b.id, b.title, b.isbn, b.publicationYear, b.language, b.coverImageUrl, b.availableCopies) " +
+           "FROM Book b WHERE b.id IN (" +
+           "    SELECT b2.id FROM Book b2 " +
+           "    LEFT JOIN b2.authors a " +
+           "    LEFT JOIN b2.categories c " +
+           "    WHERE (:keyword IS NULL OR " +
+           "           LOWER(b2.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "           LOWER(b2.isbn) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "           LOWER(b2.description) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "           LOWER(a.name) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
+           "    AND (:category IS NULL OR LOWER(c.name) LIKE LOWER(CONCAT('%', :category, '%'))) " +
+           "    AND (:author IS NULL OR LOWER(a.name) LIKE LOWER(CONCAT('%', :author, '%'))) " +
+           "    AND (:availableOnly = false OR b2.availableCopies > 0))",
+           countQuery = "SELECT COUNT(DISTINCT b) FROM Book b " +
+           "LEFT JOIN b.authors a " +
+           "LEFT JOIN b.categories c " +
+           "WHERE (:keyword IS NULL OR " +
+           "       LOWER(b.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "       LOWER(b.isbn) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "       LOWER(b.description) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "       LOWER(a.name) LIKE LOWER(CONCAT('%', :keyword, '%'))) " +
+           "AND (:category IS NULL OR LOWER(c.name) LIKE LOWER(CONCAT('%', :category, '%'))) " +
+           "AND (:author IS NULL OR LOWER(a.name) LIKE LOWER(CONCAT('%', :author, '%'))) " +
+           "AND (:availableOnly = false OR b.availableCopies > 0)")
+    Page<BookSummaryResponse> publicSearchSummaries(@Param("keyword") String keyword,
+                                                    @Param("category") String category,
+                                                    @Param("author") String author,
+                                                    @Param("availableOnly") boolean availableOnly,
+                                                    Pageable pageable);
+     
     Long countByAvailableCopiesGreaterThan(Integer minCopies);
      
     boolean existsByIsbn(String isbn);
@@ -0,0 +1,33 @@
+package com.digitallibrary.digital_library.repositories;
+
+import com.digitallibrary.digital_library.models.Category;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+public class CategoryRepositoryCustomImpl implements CategoryRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Category> loadAllById(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        return entityManager.unwrap(Session.class)
+            .byMultipleIds(Category.class)
+            .with(CacheMode.NORMAL)
+            .enableSessionCheck(true)
+            .multiLoad(List.copyOf(ids))
+            .stream()
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,19 @@
+package com.digitallibrary.digital_library.repositories;
+
+import com.digitallibrary.digital_library.models.FineBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface FineBalanceRepository extends JpaRepository<FineBalance, Long> {
+
+    @Query("SELECT f.balance FROM FineBalance f WHERE f.userId = :userId")
+    Optional<Double> findBalanceByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT COALESCE(SUM(f.balance), 0) FROM FineBalance f")
+    Double sumBalances();
+}
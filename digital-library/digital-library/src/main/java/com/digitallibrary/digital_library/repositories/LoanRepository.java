@@ -3,15 +3,20 @@ package com.digitallibrary.digital_library.repositories;
 
 import com.digitallibrary.digital_library.models.Loan;
 import com.digitallibrary.digital_library.models.enums.LoanStatus;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
  
 
 @Repository
@@ -24,9 +29,47 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
     Page<Loan> findByStatus(LoanStatus status, Pageable pageable);
      
     List<Loan> findByStatus(LoanStatus status);
+
+    @Query("SELECT l.status, COUNT(l) FROM Loan l GROUP BY l.status")
+    List<Object[]> countGroupedByStatus();
      
+    // Resumen de los préstamos de un usuario para su elegibilidad: activos, marcados como vencidos
+    // y vencimiento más próximo de los activos. Una fila, aunque no tenga préstamos.
+    @Query("SELECT SUM(CASE WHEN l.status = 'ACTIVE' THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN l.status = 'OVERDUE' THEN 1 ELSE 0 END), " +
+           "MIN(CASE WHEN l.status = 'ACTIVE' THEN l.dueDate END) " +
+           "FROM Loan l WHERE l.user.id = :userId")
+    List<Object[]> summarizeBorrower(@Param("userId") Long userId);
+
+    // Solo una de dos devoluciones simultáneas del mismo préstamo afecta la fila
+    @Modifying
+    @Query("UPDATE Loan l SET l.status = 'RETURNED', l.returnDate = :returnDate " +
+           "WHERE l.id = :id AND l.status IN ('ACTIVE', 'OVERDUE')")
+    int markReturned(@Param("id") Long id, @Param("returnDate") LocalDate returnDate);
+
+    // El proceso nocturno marca los vencidos como OVERDUE, pero hasta su próxima pasada un préstamo
+    // activo ya vencido sigue en ACTIVE y también cuenta
     @Query("SELECT l FROM Loan l WHERE l.status = 'OVERDUE' OR (l.status = 'ACTIVE' AND l.dueDate < CURRENT_DATE)")
     List<Loan> findOverdueLoans();
+
+    // Siguiente bloque de préstamos activos vencidos tras afterId: id, usuario y libro, con las filas
+    // bloqueadas hasta el fin de la transacción para que una devolución no se cruce con el cambio
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l.id, l.user.id, l.book.id FROM Loan l " +
+           "WHERE l.status = 'ACTIVE' AND l.id > :afterId AND l.dueDate < :today ORDER BY l.id")
+    List<Object[]> findOverdueCandidates(@Param("today") LocalDate today, @Param("afterId") Long afterId,
+                                         Pageable pageable);
+
+    // Siguiente bloque de préstamos vencidos para el devengo de multas, bloqueados como en el paso a OVERDUE
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l.id, l.user.id, l.book.id, l.dueDate, l.fineAmount FROM Loan l " +
+           "WHERE l.status = 'OVERDUE' AND l.id > :afterId ORDER BY l.id")
+    List<Object[]> findOverdueForAccrual(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Loan l SET l.status = 'OVERDUE' " +
+           "WHERE l.id BETWEEN :fromId AND :toId AND l.status = 'ACTIVE' AND l.dueDate < :today")
+    int markOverdue(@Param("fromId") Long fromId, @Param("toId") Long toId, @Param("today") LocalDate today);
      
     List<Loan> findByUserIdAndStatus(Long userId, LoanStatus status);
      
@@ -46,11 +89,86 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
                           @Param("endDate") LocalDate endDate,
                           Pageable pageable);
      
+    @Query("SELECT l FROM Loan l " +
+           "WHERE (:status IS NULL OR l.status = :status) " +
+           "AND (:startDate IS NULL OR l.loanDate >= :startDate) " +
+           "AND (:endDate IS NULL OR l.loanDate <= :endDate) " +
+           "AND l.id > :lastId " +
+           "ORDER BY l.id")
+    List<Loan> searchLoansAfterId(@Param("status") LoanStatus status,
+                                  @Param("startDate") LocalDate startDate,
+                                  @Param("endDate") LocalDate endDate,
+                                  @Param("lastId") Long lastId,
+                                  Pageable pageable);
+     
+    @Query("SELECT l FROM Loan l " +
+           "WHERE (:status IS NULL OR l.status = :status) " +
+           "AND (:startDate IS NULL OR l.loanDate >= :startDate) " +
+           "AND (:endDate IS NULL OR l.loanDate <= :endDate) " +
+           "AND (:lastLoanDate IS NULL OR l.loanDate > :lastLoanDate " +
+           "     OR (l.loanDate = :lastLoanDate AND l.id > :lastId)) " +
+           "ORDER BY l.loanDate, l.id")
+    List<Loan> searchLoansAfterLoanDate(@Param("status") LoanStatus status,
+                                        @Param("startDate") LocalDate startDate,
+                                        @Param("endDate") LocalDate endDate,
+                                        @Param("lastLoanDate") LocalDate lastLoanDate,
+                                        @Param("lastId") Long lastId,
+                                        Pageable pageable);
+     
+    @Query("SELECT l FROM Loan l " +
+           "WHERE (:status IS NULL OR l.status = :status) " +
+           "AND (:startDate IS NULL OR l.loanDate >= :startDate) " +
+           "AND (:endDate IS NULL OR l.loanDate <= :endDate) " +
+           "AND l.id < :lastId " +
+           "ORDER BY l.id DESC")
+    List<Loan> searchLoansAfterIdDesc(@Param("status") LoanStatus status,
+                                      @Param("startDate") LocalDate startDate,
+                                      @Param("endDate") LocalDate endDate,
+                                      @Param("lastId") Long lastId,
+                                      Pageable pageable);
+     
+    @Query("SELECT l FROM Loan l " +
+           "WHERE (:status IS NULL OR l.status = :status) " +
+           "AND (:startDate IS NULL OR l.loanDate >= :startDate) " +
+           "AND (:endDate IS NULL OR l.loanDate <= :endDate) " +
+           "AND (:lastLoanDate IS NULL OR l.loanDate < :lastLoanDate " +
+           "     OR (l.loanDate = :lastLoanDate AND l.id < :lastId)) " +
+           "ORDER BY l.loanDate DESC, l.id DESC")
+    List<Loan> searchLoansAfterLoanDateDesc(@Param("status") LoanStatus status,
+                                            @Param("startDate") LocalDate startDate,
+                                            @Param("endDate") LocalDate endDate,
+                                            @Param("lastLoanDate") LocalDate lastLoanDate,
+                                            @Param("lastId") Long lastId,
+                                            Pageable pageable);
+     
     Long countByUserId(Long userId);
      
     Long countByUserIdAndStatus(Long userId, LoanStatus status);
      
     boolean existsByUserIdAndBookIdAndStatus(Long userId, Long bookId, LoanStatus status);
+
+    @Query("SELECT l.user.id, COUNT(l) FROM Loan l " +
+           "WHERE l.user.id IN :userIds AND l.status = 'ACTIVE' GROUP BY l.user.id")
+    List<Object[]> countActiveByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT l.user.id FROM Loan l " +
+           "WHERE l.book.id = :bookId AND l.user.id IN :userIds AND l.status = 'ACTIVE'")
+    List<Long> findUserIdsWithActiveLoan(@Param("bookId") Long bookId,
+                                         @Param("userIds") Collection<Long> userIds);
+
+    @Query("SELECT l FROM Loan l WHERE l.user.id = :userId AND l.book.id IN :bookIds AND l.status = 'ACTIVE'")
+    List<Loan> findActiveByUserIdAndBookIds(@Param("userId") Long userId,
+                                            @Param("bookIds") Collection<Long> bookIds);
+
+    // La devolución bloquea el préstamo: el devengo diario no puede cambiar su fine_amount entre
+    // la lectura y el cálculo de lo que queda por cargar
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Loan l WHERE l.id = :id")
+    Optional<Loan> findByIdForUpdate(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM Loan l WHERE l.id IN :ids ORDER BY l.id")
+    List<Loan> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
      
     @Query("SELECT l FROM Loan l " +
            "WHERE l.status = 'ACTIVE' " +
@@ -71,6 +189,9 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
            "ORDER BY month")
     List<Object[]> getLoansByMonth(@Param("startDate") LocalDate startDate);
      
+    @Query("SELECT l.book.id, COUNT(l) FROM Loan l GROUP BY l.book.id")
+    List<Object[]> countLoansPerBook();
+     
     @Query("SELECT l.book.id, COUNT(l) as loanCount " +
            "FROM Loan l " +
            "WHERE (:startDate IS NULL OR l.loanDate >= :startDate) " +
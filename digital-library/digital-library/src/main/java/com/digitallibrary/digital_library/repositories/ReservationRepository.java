@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,6 +45,15 @@ public interface ReservationRepository extends JpaRepository<Reservation, Long>
     List<Reservation> findPendingReservationsByBookId(@Param("bookId") Long bookId);
      
     boolean existsByUserIdAndBookIdAndStatus(Long userId, Long bookId, ReservationStatus status);
+
+    // Reservas abiertas (pendientes o confirmadas) por libro: una fila por libro con alguna
+    @Query("SELECT r.book.id, COUNT(r) FROM Reservation r " +
+           "WHERE r.book.id IN :bookIds AND r.status IN ('PENDING', 'ACTIVE') " +
+           "GROUP BY r.book.id")
+    List<Object[]> countOpenByBookIds(@Param("bookIds") Collection<Long> bookIds);
+
+    @Query("SELECT COUNT(r) > 0 FROM Reservation r WHERE r.book.id = :bookId AND r.status IN ('PENDING', 'ACTIVE')")
+    boolean existsOpenByBookId(@Param("bookId") Long bookId);
      
     Long countByUserId(Long userId);
      
@@ -5,11 +5,14 @@ import com.digitallibrary.digital_library.models.User;
 import com.digitallibrary.digital_library.models.enums.UserRole;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +20,15 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
      
     Optional<User> findByUsername(String username);
+
+    @Query("SELECT u.isActive FROM User u WHERE u.id = :id")
+    Optional<Boolean> findIsActiveById(@Param("id") Long id);
+
+    // Serializa los préstamos de un mismo usuario; siempre en orden de id para que dos lotes
+    // que comparten usuarios los bloqueen en la misma secuencia
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.id IN :ids ORDER BY u.id")
+    List<User> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
      
     Optional<User> findByEmail(String email);
      
@@ -40,6 +52,70 @@ public interface UserRepository extends JpaRepository<User, Long> {
                           @Param("search") String search,
                           Pageable pageable);
      
+    @Query("SELECT u FROM User u " +
+           "WHERE (:role IS NULL OR u.role = :role) " +
+           "AND (:search IS NULL OR " +
+           "     LOWER(u.username) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.dni) LIKE LOWER(CONCAT('%', :search, '%'))) " +
+           "AND u.id > :lastId " +
+           "ORDER BY u.id")
+    List<User> searchUsersAfterId(@Param("role") UserRole role,
+                                  @Param("search") String search,
+                                  @Param("lastId") Long lastId,
+                                  Pageable pageable);
+     
+    @Query("SELECT u FROM User u " +
+           "WHERE (:role IS NULL OR u.role = :role) " +
+           "AND (:search IS NULL OR " +
+           "     LOWER(u.username) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.dni) LIKE LOWER(CONCAT('%', :search, '%'))) " +
+           "AND (:lastUsername IS NULL OR u.username > :lastUsername " +
+           "     OR (u.username = :lastUsername AND u.id > :lastId)) " +
+           "ORDER BY u.username, u.id")
+    List<User> searchUsersAfterUsername(@Param("role") UserRole role,
+                                        @Param("search") String search,
+                                        @Param("lastUsername") String lastUsername,
+                                        @Param("lastId") Long lastId,
+                                        Pageable pageable);
+     
+    @Query("SELECT u FROM User u " +
+           "WHERE (:role IS NULL OR u.role = :role) " +
+           "AND (:search IS NULL OR " +
+           "     LOWER(u.username) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.dni) LIKE LOWER(CONCAT('%', :search, '%'))) " +
+           "AND u.id < :lastId " +
+           "ORDER BY u.id DESC")
+    List<User> searchUsersAfterIdDesc(@Param("role") UserRole role,
+                                      @Param("search") String search,
+                                      @Param("lastId") Long lastId,
+                                      Pageable pageable);
+     
+    @Query("SELECT u FROM User u " +
+           "WHERE (:role IS NULL OR u.role = :role) " +
+           "AND (:search IS NULL OR " +
+           "     LOWER(u.username) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "     LOWER(u.dni) LIKE LOWER(CONCAT('%', :search, '%'))) " +
+           "AND (:lastUsername IS NULL OR u.username < :lastUsername " +
+           "     OR (u.username = :lastUsername AND u.id < :lastId)) " +
+           "ORDER BY u.username DESC, u.id DESC")
+    List<User> searchUsersAfterUsernameDesc(@Param("role") UserRole role,
+                                            @Param("search") String search,
+                                            @Param("lastUsername") String lastUsername,
+                                            @Param("lastId") Long lastId,
+                                            Pageable pageable);
+     
     boolean existsByUsername(String username);
      
     boolean existsByEmail(String email);
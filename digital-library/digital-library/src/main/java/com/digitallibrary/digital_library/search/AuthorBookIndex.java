@@ -0,0 +1,151 @@
+package com.digitallibrary.digital_library.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Lista de libros por autor: para cada autor, los ids de sus libros en un {@code long[]} ordenado.
+ * Se mantiene junto a la inversa (libro → autores) para poder deshacer los cambios de un libro.
+ */
+@Component
+public class AuthorBookIndex implements CatalogIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, long[]> booksByAuthor = new HashMap<>();
+    private final Map<Long, long[]> authorsByBook = new HashMap<>();
+    private volatile boolean ready;
+
+    @Override
+    public void rebuild(List<BookDocument> documents) {
+        Map<Long, long[]> books = new HashMap<>();
+        Map<Long, Integer> sizes = new HashMap<>();
+        Map<Long, long[]> authors = new HashMap<>();
+        for (BookDocument document : documents) {
+            long[] authorIds = toSortedArray(document.getAuthorIds());
+            authors.put(document.getId(), authorIds);
+            for (long authorId : authorIds) {
+                long[] postings = books.computeIfAbsent(authorId, k -> new long[4]);
+                int size = sizes.getOrDefault(authorId, 0);
+                if (size == postings.length) {
+                    postings = Arrays.copyOf(postings, size * 2);
+                    books.put(authorId, postings);
+                }
+                postings[size] = document.getId();
+                sizes.put(authorId, size + 1);
+            }
+        }
+        for (Map.Entry<Long, long[]> entry : books.entrySet()) {
+            long[] postings = Arrays.copyOf(entry.getValue(), sizes.get(entry.getKey()));
+            Arrays.sort(postings);
+            entry.setValue(postings);
+        }
+
+        lock.writeLock().lock();
+        try {
+            booksByAuthor.clear();
+            booksByAuthor.putAll(books);
+            authorsByBook.clear();
+            authorsByBook.putAll(authors);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(BookDocument document) {
+        long[] authorIds = toSortedArray(document.getAuthorIds());
+        lock.writeLock().lock();
+        try {
+            unindex(document.getId());
+            authorsByBook.put(document.getId(), authorIds);
+            for (long authorId : authorIds) {
+                booksByAuthor.put(authorId, insert(booksByAuthor.getOrDefault(authorId, EMPTY), document.getId()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            unindex(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ids de los libros del autor en orden ascendente. El arreglo devuelto no se modifica
+     * después: cada cambio sustituye la lista completa del autor.
+     */
+    public long[] booksOf(Long authorId) {
+        lock.readLock().lock();
+        try {
+            return booksByAuthor.getOrDefault(authorId, EMPTY);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countBooks(Long authorId) {
+        return booksOf(authorId).length;
+    }
+
+    private void unindex(long bookId) {
+        long[] previous = authorsByBook.remove(bookId);
+        if (previous == null) {
+            return;
+        }
+        for (long authorId : previous) {
+            long[] postings = delete(booksByAuthor.getOrDefault(authorId, EMPTY), bookId);
+            if (postings.length == 0) {
+                booksByAuthor.remove(authorId);
+            } else {
+                booksByAuthor.put(authorId, postings);
+            }
+        }
+    }
+
+    private static long[] insert(long[] postings, long bookId) {
+        int pos = Arrays.binarySearch(postings, bookId);
+        if (pos >= 0) {
+            return postings;
+        }
+        int at = -pos - 1;
+        long[] result = new long[postings.length + 1];
+        System.arraycopy(postings, 0, result, 0, at);
+        result[at] = bookId;
+        System.arraycopy(postings, at, result, at + 1, postings.length - at);
+        return result;
+    }
+
+    private static long[] delete(long[] postings, long bookId) {
+        int at = Arrays.binarySearch(postings, bookId);
+        if (at < 0) {
+            return postings;
+        }
+        long[] result = new long[postings.length - 1];
+        System.arraycopy(postings, 0, result, 0, at);
+        System.arraycopy(postings, at + 1, result, at, postings.length - at - 1);
+        return result;
+    }
+
+    private static long[] toSortedArray(List<Long> ids) {
+        return ids.stream().mapToLong(Long::longValue).distinct().sorted().toArray();
+    }
+}
@@ -0,0 +1,32 @@
+package com.digitallibrary.digital_library.search;
+
+public class AuthorChangeEvent {
+
+    private final Long authorId;
+    private final String name;
+
+    private AuthorChangeEvent(Long authorId, String name) {
+        this.authorId = authorId;
+        this.name = name;
+    }
+
+    public static AuthorChangeEvent saved(Long authorId, String name) {
+        return new AuthorChangeEvent(authorId, name);
+    }
+
+    public static AuthorChangeEvent deleted(Long authorId) {
+        return new AuthorChangeEvent(authorId, null);
+    }
+
+    public Long getAuthorId() {
+        return authorId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isDeleted() {
+        return name == null;
+    }
+}
@@ -0,0 +1,48 @@
+package com.digitallibrary.digital_library.search;
+
+import com.digitallibrary.digital_library.models.Author;
+import com.digitallibrary.digital_library.repositories.AuthorRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+@Component
+public class AuthorNameIndex {
+
+    private volatile FuzzyIndex names = new FuzzyIndex();
+    private final AuthorRepository authorRepository;
+
+    public AuthorNameIndex(AuthorRepository authorRepository) {
+        this.authorRepository = authorRepository;
+    }
+
+    // Se construye aparte y se sustituye de una vez: las búsquedas siguen usando el índice
+    // anterior mientras tanto. Los cambios que llegan durante la carga esperan al final.
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        FuzzyIndex rebuilt = new FuzzyIndex();
+        for (Author author : authorRepository.findAll()) {
+            rebuilt.put(author.getId(), author.getName());
+        }
+        names = rebuilt;
+    }
+
+    @Order(0)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onAuthorChange(AuthorChangeEvent event) {
+        if (event.isDeleted()) {
+            names.remove(event.getAuthorId());
+        } else {
+            names.put(event.getAuthorId(), event.getName());
+        }
+    }
+
+    public List<FuzzyMatch> search(String name, Integer tolerance, int limit) {
+        return names.search(name, tolerance, limit);
+    }
+}
@@ -0,0 +1,226 @@
+package com.digitallibrary.digital_library.search;
+
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Copias disponibles y totales por libro en una tabla hash de direccionamiento abierto sobre
+ * arreglos primitivos, más el conjunto ordenado de libros con copias disponibles para paginar
+ * sin consultar la base de datos.
+ */
+@Component
+public class AvailabilityIndex implements CatalogIndex {
+
+    private static final long EMPTY_KEY = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long[] keys;
+    private int[] available;
+    private int[] total;
+    private int size;
+    private final Roaring64NavigableMap availableIds = new Roaring64NavigableMap();
+    private volatile boolean ready;
+
+    public AvailabilityIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public void rebuild(List<BookDocument> documents) {
+        lock.writeLock().lock();
+        try {
+            allocate(capacityFor(documents.size()));
+            availableIds.clear();
+            for (BookDocument document : documents) {
+                put(document.getId(), document.getAvailableCopies(), document.getTotalCopies());
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(BookDocument document) {
+        lock.writeLock().lock();
+        try {
+            put(document.getId(), document.getAvailableCopies(), document.getTotalCopies());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            delete(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateInventory(Long bookId, int availableCopies, int totalCopies) {
+        lock.writeLock().lock();
+        try {
+            put(bookId, availableCopies, totalCopies);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean isAvailable(Long bookId) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(bookId);
+            return slot >= 0 && available[slot] > 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@code [disponibles, totales]} del libro, o {@code null} si el índice no lo conoce.
+     */
+    public int[] copiesOf(Long bookId) {
+        lock.readLock().lock();
+        try {
+            int slot = slotOf(bookId);
+            return slot < 0 ? null : new int[] {available[slot], total[slot]};
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // El bitmap guarda en caché cardinalidades al leerlo, así que se consulta con el lock exclusivo
+    public long countAvailable() {
+        lock.writeLock().lock();
+        try {
+            return availableIds.getLongCardinality();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids de libros disponibles en orden ascendente, desde la posición {@code offset}.
+     */
+    public long[] availableIds(long offset, int limit) {
+        lock.writeLock().lock();
+        try {
+            long count = availableIds.getLongCardinality();
+            int length = (int) Math.max(0, Math.min(limit, count - offset));
+            long[] ids = new long[length];
+            for (int i = 0; i < length; i++) {
+                ids[i] = availableIds.select(offset + i);
+            }
+            return ids;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(long bookId, int availableCopies, int totalCopies) {
+        if ((size + 1) * 4L > keys.length * 3L) {
+            resize(keys.length * 2);
+        }
+        int slot = probe(bookId);
+        if (keys[slot] == EMPTY_KEY) {
+            keys[slot] = bookId;
+            size++;
+        }
+        available[slot] = availableCopies;
+        total[slot] = totalCopies;
+        if (availableCopies > 0) {
+            availableIds.addLong(bookId);
+        } else {
+            availableIds.removeLong(bookId);
+        }
+    }
+
+    // Borrado con desplazamiento hacia atrás: no deja marcas de borrado en la tabla
+    private void delete(long bookId) {
+        int slot = slotOf(bookId);
+        if (slot < 0) {
+            return;
+        }
+        availableIds.removeLong(bookId);
+        int mask = keys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (keys[next] != EMPTY_KEY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                available[hole] = available[next];
+                total[hole] = total[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[hole] = EMPTY_KEY;
+        size--;
+    }
+
+    private int slotOf(long bookId) {
+        int slot = probe(bookId);
+        return keys[slot] == bookId ? slot : -1;
+    }
+
+    private int probe(long bookId) {
+        int mask = keys.length - 1;
+        int slot = hash(bookId) & mask;
+        while (keys[slot] != EMPTY_KEY && keys[slot] != bookId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldAvailable = available;
+        int[] oldTotal = total;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                int slot = probe(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                available[slot] = oldAvailable[i];
+                total[slot] = oldTotal[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        available = new int[capacity];
+        total = new int[capacity];
+        size = 0;
+    }
+
+    private static int capacityFor(int entries) {
+        int capacity = INITIAL_CAPACITY;
+        while (entries * 4L > capacity * 3L) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,108 @@
+package com.digitallibrary.digital_library.search;
+
+import com.digitallibrary.digital_library.models.Author;
+import com.digitallibrary.digital_library.models.Book;
+import com.digitallibrary.digital_library.models.Category;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Copia inmutable de los campos de un libro que usan los índices en memoria.
+ * Se construye dentro de la transacción para no depender de colecciones lazy
+ * una vez hecho el commit.
+ */
+public final class BookDocument {
+
+    private final Long id;
+    private final String title;
+    private final String isbn;
+    private final String description;
+    private final List<Long> authorIds;
+    private final List<String> authorNames;
+    private final List<Long> categoryIds;
+    private final List<String> categoryNames;
+    private final String language;
+    private final Integer publicationYear;
+    private final int availableCopies;
+    private final int totalCopies;
+
+    public BookDocument(Long id, String title, String isbn, String description,
+                        List<Long> authorIds, List<String> authorNames,
+                        List<Long> categoryIds, List<String> categoryNames,
+                        String language, Integer publicationYear, int availableCopies, int totalCopies) {
+        this.id = id;
+        this.title = title;
+        this.isbn = isbn;
+        this.description = description;
+        this.authorIds = List.copyOf(authorIds);
+        this.authorNames = List.copyOf(authorNames);
+        this.categoryIds = List.copyOf(categoryIds);
+        this.categoryNames = List.copyOf(categoryNames);
+        this.language = language;
+        this.publicationYear = publicationYear;
+        this.availableCopies = availableCopies;
+        this.totalCopies = totalCopies;
+    }
+
+    public static BookDocument from(Book book) {
+        List<Author> authors = book.getAuthors() == null ? List.of() : List.copyOf(book.getAuthors());
+        List<Category> categories = book.getCategories() == null ? List.of() : List.copyOf(book.getCategories());
+        return new BookDocument(book.getId(), book.getTitle(), book.getIsbn(), book.getDescription(),
+            authors.stream().map(Author::getId).collect(Collectors.toList()),
+            authors.stream().map(Author::getName).collect(Collectors.toList()),
+            categories.stream().map(Category::getId).collect(Collectors.toList()),
+            categories.stream().map(Category::getName).collect(Collectors.toList()),
+            book.getLanguage(), book.getPublicationYear(),
+            book.getAvailableCopies() == null ? 0 : book.getAvailableCopies(),
+            book.getTotalCopies() == null ? 0 : book.getTotalCopies());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public List<Long> getAuthorIds() {
+        return authorIds;
+    }
+
+    public List<String> getAuthorNames() {
+        return authorNames;
+    }
+
+    public List<Long> getCategoryIds() {
+        return categoryIds;
+    }
+
+    public List<String> getCategoryNames() {
+        return categoryNames;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    public Integer getPublicationYear() {
+        return publicationYear;
+    }
+
+    public int getAvailableCopies() {
+        return availableCopies;
+    }
+
+    public int getTotalCopies() {
+        return totalCopies;
+    }
+}
@@ -0,0 +1,35 @@
+package com.digitallibrary.digital_library.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class BookTitleFuzzyIndex implements CatalogIndex {
+
+    private volatile FuzzyIndex titles = new FuzzyIndex();
+
+    // Como en AuthorNameIndex, el índice nuevo sustituye al anterior ya completo
+    @Override
+    public void rebuild(List<BookDocument> documents) {
+        FuzzyIndex rebuilt = new FuzzyIndex();
+        for (BookDocument document : documents) {
+            rebuilt.put(document.getId(), document.getTitle());
+        }
+        titles = rebuilt;
+    }
+
+    @Override
+    public void index(BookDocument document) {
+        titles.put(document.getId(), document.getTitle());
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        titles.remove(bookId);
+    }
+
+    public List<FuzzyMatch> search(String title, Integer tolerance, int limit) {
+        return titles.search(title, tolerance, limit);
+    }
+}
@@ -0,0 +1,32 @@
+package com.digitallibrary.digital_library.search;
+
+public class CatalogChangeEvent {
+
+    private final Long bookId;
+    private final BookDocument document;
+
+    private CatalogChangeEvent(Long bookId, BookDocument document) {
+        this.bookId = bookId;
+        this.document = document;
+    }
+
+    public static CatalogChangeEvent saved(BookDocument document) {
+        return new CatalogChangeEvent(document.getId(), document);
+    }
+
+    public static CatalogChangeEvent deleted(Long bookId) {
+        return new CatalogChangeEvent(bookId, null);
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public BookDocument getDocument() {
+        return document;
+    }
+
+    public boolean isDeleted() {
+        return document == null;
+    }
+}
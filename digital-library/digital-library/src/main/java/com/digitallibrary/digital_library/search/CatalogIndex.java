@@ -0,0 +1,31 @@
+package com.digitallibrary.digital_library.search;
+
+import java.util.List;
+
+/**
+ * Estructura en memoria derivada del catálogo. {@link CatalogIndexSynchronizer}
+ * la construye al arrancar y la mantiene al día con cada alta, cambio o baja de libro.
+ */
+public interface CatalogIndex {
+
+    void rebuild(List<BookDocument> documents);
+
+    void index(BookDocument document);
+
+    /**
+     * Vuelve a indexar varios libros a la vez, por ejemplo los de un autor o una categoría
+     * renombrados. Por defecto se indexan uno a uno.
+     */
+    default void index(List<BookDocument> documents) {
+        documents.forEach(this::index);
+    }
+
+    void remove(Long bookId);
+
+    /**
+     * Cambio solo de existencias (préstamo, devolución, ajuste de copias). Los índices que
+     * no dependen de la disponibilidad pueden ignorarlo.
+     */
+    default void updateInventory(Long bookId, int availableCopies, int totalCopies) {
+    }
+}
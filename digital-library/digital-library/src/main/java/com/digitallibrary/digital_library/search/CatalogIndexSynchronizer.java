@@ -0,0 +1,282 @@
+package com.digitallibrary.digital_library.search;
+
+import com.digitallibrary.digital_library.models.Author;
+import com.digitallibrary.digital_library.models.Book;
+import com.digitallibrary.digital_library.models.Category;
+import com.digitallibrary.digital_library.repositories.AuthorRepository;
+import com.digitallibrary.digital_library.repositories.BookRepository;
+import com.digitallibrary.digital_library.repositories.CategoryRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Component
+public class CatalogIndexSynchronizer {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndexSynchronizer.class);
+    private static final int LOAD_PAGE_SIZE = 500;
+    // Margen para las transacciones que seguían abiertas al tomar la foto: su updatedAt es
+    // anterior al commit. Volver a indexar un libro ya al día no cambia nada.
+    private static final long CATCH_UP_MARGIN_MINUTES = 5;
+
+    private final List<CatalogIndex> indexes;
+    private final CatalogSnapshotStore snapshotStore;
+    private final AuthorBookIndex authorBookIndex;
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private volatile boolean built;
+    // Cambios confirmados mientras se carga el catálogo; se aplican después de reconstruir
+    // para que la carga, que puede haber leído el estado anterior, no los pise
+    private final Object loadLock = new Object();
+    private List<Runnable> pendingDuringLoad;
+    // Última versión de existencias aplicada por libro, para descartar eventos que llegan tarde
+    private final Map<Long, Long> inventoryVersions = new ConcurrentHashMap<>();
+
+    public CatalogIndexSynchronizer(List<CatalogIndex> indexes,
+                                    CatalogSnapshotStore snapshotStore,
+                                    AuthorBookIndex authorBookIndex,
+                                    BookRepository bookRepository,
+                                    AuthorRepository authorRepository,
+                                    CategoryRepository categoryRepository,
+                                    PlatformTransactionManager transactionManager) {
+        this.indexes = indexes;
+        this.snapshotStore = snapshotStore;
+        this.authorBookIndex = authorBookIndex;
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.categoryRepository = categoryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        synchronized (loadLock) {
+            pendingDuringLoad = new ArrayList<>();
+        }
+        long start = System.currentTimeMillis();
+        LocalDateTime takenAt = LocalDateTime.now();
+        Optional<CatalogSnapshotStore.Snapshot> snapshot;
+        List<BookDocument> documents;
+        try {
+            snapshot = snapshotStore.read();
+            documents = snapshot.isPresent() ? catchUp(snapshot.get()) : loadCatalog();
+        } catch (RuntimeException e) {
+            synchronized (loadLock) {
+                pendingDuringLoad = null;
+            }
+            throw e;
+        }
+        int replayed;
+        synchronized (loadLock) {
+            for (CatalogIndex index : indexes) {
+                index.rebuild(documents);
+            }
+            List<Runnable> pending = pendingDuringLoad;
+            pendingDuringLoad = null;
+            // Los demás hilos esperan en loadLock hasta que termine la reaplicación
+            pending.forEach(Runnable::run);
+            replayed = pending.size();
+        }
+        if (replayed > 0) {
+            log.info("{} cambios recibidos durante la carga aplicados sobre los índices", replayed);
+        }
+        log.info("Índices del catálogo construidos{}: {} libros en {} ms",
+            snapshot.isPresent() ? " desde la foto en disco" : "", documents.size(),
+            System.currentTimeMillis() - start);
+        built = true;
+        snapshotStore.write(takenAt);
+    }
+
+    // Si el arranque no llegó a construir los índices, la foto en disco sigue siendo la buena
+    @PreDestroy
+    public void saveSnapshot() {
+        if (built) {
+            snapshotStore.write(LocalDateTime.now());
+        }
+    }
+
+    // Solo se aplica tras el commit para que los índices nunca vean cambios revertidos
+    @Order(0)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChange(CatalogChangeEvent event) {
+        if (deferDuringLoad(() -> onCatalogChange(event))) {
+            return;
+        }
+        if (event.isDeleted()) {
+            inventoryVersions.remove(event.getBookId());
+        }
+        for (CatalogIndex index : indexes) {
+            if (event.isDeleted()) {
+                index.remove(event.getBookId());
+            } else {
+                index.index(event.getDocument());
+            }
+        }
+    }
+
+    @Order(0)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onInventoryChange(InventoryChangeEvent event) {
+        if (deferDuringLoad(() -> onInventoryChange(event))) {
+            return;
+        }
+        // Se aplica dentro del cálculo para que dos eventos del mismo libro no se crucen
+        inventoryVersions.compute(event.getBookId(), (bookId, applied) -> {
+            if (applied != null && applied > event.getVersion()) {
+                return applied;
+            }
+            for (CatalogIndex index : indexes) {
+                index.updateInventory(bookId, event.getAvailableCopies(), event.getTotalCopies());
+            }
+            return event.getVersion();
+        });
+    }
+
+    // Un cambio de nombre no toca los libros en la base de datos, pero sí sus documentos: se
+    // vuelven a cargar los libros del autor o de la categoría y se indexan de nuevo. Con @Order(0)
+    // el índice ya está al día cuando CatalogVersion invalida las búsquedas en caché.
+    // Un autor o una categoría con libros no se puede borrar: la baja no afecta a ningún libro.
+    @Order(0)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAuthorChange(AuthorChangeEvent event) {
+        if (event.isDeleted() || deferDuringLoad(() -> onAuthorChange(event))) {
+            return;
+        }
+        reindexBooks(Arrays.stream(authorBookIndex.booksOf(event.getAuthorId())).boxed()
+            .collect(Collectors.toList()));
+    }
+
+    @Order(0)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChange(CategoryChangeEvent event) {
+        if (deferDuringLoad(() -> onCategoryChange(event))) {
+            return;
+        }
+        reindexBooks(readOnlyTransaction.execute(status ->
+            bookRepository.findIdsByCategoryId(event.getCategoryId())));
+    }
+
+    private void reindexBooks(List<Long> bookIds) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < bookIds.size(); from += LOAD_PAGE_SIZE) {
+            List<Long> chunk = bookIds.subList(from, Math.min(from + LOAD_PAGE_SIZE, bookIds.size()));
+            List<BookDocument> documents = readOnlyTransaction.execute(status ->
+                bookRepository.findAllById(chunk).stream()
+                    .map(BookDocument::from)
+                    .collect(Collectors.toList()));
+            for (CatalogIndex index : indexes) {
+                index.index(documents);
+            }
+        }
+    }
+
+    private boolean deferDuringLoad(Runnable change) {
+        synchronized (loadLock) {
+            if (pendingDuringLoad == null) {
+                return false;
+            }
+            pendingDuringLoad.add(change);
+            return true;
+        }
+    }
+
+    // Completa la foto con lo cambiado en la base de datos desde que se tomó: libros modificados
+    // o nuevos, libros borrados y nombres de autores y categorías, que no tocan Book.updatedAt
+    private List<BookDocument> catchUp(CatalogSnapshotStore.Snapshot snapshot) {
+        LocalDateTime since = snapshot.getTakenAt().minusMinutes(CATCH_UP_MARGIN_MINUTES);
+        return readOnlyTransaction.execute(status -> {
+            Set<Long> existing = new HashSet<>(bookRepository.findAllIds());
+            Map<Long, BookDocument> documents = new LinkedHashMap<>();
+            for (BookDocument document : snapshot.getDocuments()) {
+                if (existing.contains(document.getId())) {
+                    documents.put(document.getId(), document);
+                }
+            }
+            int removed = snapshot.getDocuments().size() - documents.size();
+
+            List<Long> modified = bookRepository.findIdsModifiedSince(since);
+            for (int from = 0; from < modified.size(); from += LOAD_PAGE_SIZE) {
+                List<Long> chunk = modified.subList(from, Math.min(from + LOAD_PAGE_SIZE, modified.size()));
+                bookRepository.findAllById(chunk).stream()
+                    .map(BookDocument::from)
+                    .forEach(document -> documents.put(document.getId(), document));
+            }
+
+            Map<Long, String> authorNames = authorRepository.findAll().stream()
+                .collect(Collectors.toMap(Author::getId, Author::getName));
+            Map<Long, String> categoryNames = categoryRepository.findAll().stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+            documents.replaceAll((id, document) -> withCurrentNames(document, authorNames, categoryNames));
+
+            log.info("Foto de índices del {}: {} libros al día desde la base de datos, {} borrados",
+                snapshot.getTakenAt(), modified.size(), removed);
+            return new ArrayList<>(documents.values());
+        });
+    }
+
+    private static BookDocument withCurrentNames(BookDocument document, Map<Long, String> authorNames,
+                                                 Map<Long, String> categoryNames) {
+        List<String> authors = currentNames(document.getAuthorIds(), document.getAuthorNames(), authorNames);
+        List<String> categories = currentNames(document.getCategoryIds(), document.getCategoryNames(), categoryNames);
+        if (authors.equals(document.getAuthorNames()) && categories.equals(document.getCategoryNames())) {
+            return document;
+        }
+        return new BookDocument(document.getId(), document.getTitle(), document.getIsbn(),
+            document.getDescription(), document.getAuthorIds(), authors, document.getCategoryIds(), categories,
+            document.getLanguage(), document.getPublicationYear(), document.getAvailableCopies(),
+            document.getTotalCopies());
+    }
+
+    private static List<String> currentNames(List<Long> ids, List<String> names, Map<Long, String> current) {
+        List<String> result = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            result.add(current.getOrDefault(ids.get(i), names.get(i)));
+        }
+        return result;
+    }
+
+    private List<BookDocument> loadCatalog() {
+        List<BookDocument> documents = new ArrayList<>();
+        int pageNumber = 0;
+        boolean hasNext = true;
+        while (hasNext) {
+            PageRequest pageRequest = PageRequest.of(pageNumber++, LOAD_PAGE_SIZE, Sort.by("id"));
+            hasNext = Boolean.TRUE.equals(readOnlyTransaction.execute(status -> {
+                Page<Book> books = bookRepository.findAll(pageRequest);
+                books.getContent().stream()
+                    .map(BookDocument::from)
+                    .forEach(documents::add);
+                return books.hasNext();
+            }));
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,283 @@
+package com.digitallibrary.digital_library.search;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Guarda en disco los documentos de los que se derivan los índices del catálogo, en un segmento
+ * binario versionado que al arrancar se abre con {@link FileChannel#map}. Así el arranque solo
+ * consulta a la base de datos los libros cambiados desde la foto, no el catálogo completo.
+ * Como índice más, mantiene la última versión de cada documento para poder volver a escribirla.
+ * La ruta del segmento es {@code catalog.snapshot.path}; vacía desactiva la foto y el arranque
+ * carga siempre el catálogo desde la base de datos.
+ */
+@Component
+public class CatalogSnapshotStore implements CatalogIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogSnapshotStore.class);
+
+    private static final int MAGIC = 0x444C4958; // "DLIX"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int NULL_INT = Integer.MIN_VALUE;
+
+    private final Map<Long, BookDocument> documents = new ConcurrentHashMap<>();
+    // null si la foto está desactivada
+    private final Path segment;
+
+    public CatalogSnapshotStore(@Value("${catalog.snapshot.path:data/catalog-index.seg}") String segmentPath) {
+        this.segment = segmentPath == null || segmentPath.isBlank() ? null : Path.of(segmentPath.trim());
+    }
+
+    /**
+     * Documentos y momento de una foto leída de disco.
+     */
+    public static final class Snapshot {
+        private final List<BookDocument> documents;
+        private final LocalDateTime takenAt;
+
+        private Snapshot(List<BookDocument> documents, LocalDateTime takenAt) {
+            this.documents = documents;
+            this.takenAt = takenAt;
+        }
+
+        public List<BookDocument> getDocuments() {
+            return documents;
+        }
+
+        public LocalDateTime getTakenAt() {
+            return takenAt;
+        }
+    }
+
+    @Override
+    public void rebuild(List<BookDocument> documents) {
+        if (segment == null) {
+            return;
+        }
+        this.documents.clear();
+        for (BookDocument document : documents) {
+            this.documents.put(document.getId(), document);
+        }
+    }
+
+    @Override
+    public void index(BookDocument document) {
+        if (segment == null) {
+            return;
+        }
+        documents.put(document.getId(), document);
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        documents.remove(bookId);
+    }
+
+    @Override
+    public void updateInventory(Long bookId, int availableCopies, int totalCopies) {
+        documents.computeIfPresent(bookId, (id, document) -> new BookDocument(id, document.getTitle(),
+            document.getIsbn(), document.getDescription(), document.getAuthorIds(), document.getAuthorNames(),
+            document.getCategoryIds(), document.getCategoryNames(), document.getLanguage(),
+            document.getPublicationYear(), availableCopies, totalCopies));
+    }
+
+    /**
+     * Lee la foto de disco. Un archivo ausente, de otra versión de formato o dañado se ignora:
+     * el llamador vuelve a cargar el catálogo desde la base de datos.
+     */
+    public Optional<Snapshot> read() {
+        if (segment == null || !Files.isRegularFile(segment)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + 8 || size > Integer.MAX_VALUE) {
+                log.warn("Foto de índices ignorada: tamaño no válido ({} bytes)", size);
+                return Optional.empty();
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            return decode(buffer, (int) size);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Foto de índices ignorada: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Escribe los documentos actuales a un archivo temporal y lo renombra sobre el segmento,
+     * de modo que un corte a mitad de escritura nunca deja una foto a medias.
+     */
+    public void write(LocalDateTime takenAt) {
+        if (segment == null) {
+            return;
+        }
+        List<BookDocument> current = new ArrayList<>(documents.values());
+        current.sort(Comparator.comparing(BookDocument::getId));
+        try {
+            Path directory = segment.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "catalog-index", ".tmp");
+            try {
+                try (OutputStream file = Files.newOutputStream(temp)) {
+                    encode(current, takenAt, file);
+                }
+                Files.move(temp, segment, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            log.info("Foto de índices guardada: {} libros en {}", current.size(), segment.toAbsolutePath());
+        } catch (IOException e) {
+            log.warn("No se pudo guardar la foto de índices: {}", e.getMessage());
+        }
+    }
+
+    // Cabecera: magic, versión, momento de la foto (epoch ms) y número de documentos;
+    // al final, el CRC32 de todo lo anterior
+    private static void encode(List<BookDocument> documents, LocalDateTime takenAt, OutputStream file)
+            throws IOException {
+        CRC32 crc = new CRC32();
+        DataOutputStream out = new DataOutputStream(
+            new CheckedOutputStream(new BufferedOutputStream(file, 1 << 16), crc));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(takenAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        out.writeInt(documents.size());
+        for (BookDocument document : documents) {
+            out.writeLong(document.getId());
+            writeString(out, document.getTitle());
+            writeString(out, document.getIsbn());
+            writeString(out, document.getDescription());
+            writeString(out, document.getLanguage());
+            out.writeInt(document.getPublicationYear() == null ? NULL_INT : document.getPublicationYear());
+            out.writeInt(document.getAvailableCopies());
+            out.writeInt(document.getTotalCopies());
+            writeLongs(out, document.getAuthorIds());
+            writeStrings(out, document.getAuthorNames());
+            writeLongs(out, document.getCategoryIds());
+            writeStrings(out, document.getCategoryNames());
+        }
+        out.flush();
+        // El CRC va fuera del flujo verificado
+        DataOutputStream trailer = new DataOutputStream(file);
+        trailer.writeLong(crc.getValue());
+        trailer.flush();
+    }
+
+    private static Optional<Snapshot> decode(ByteBuffer buffer, int size) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(size - 8));
+        if (crc.getValue() != buffer.getLong(size - 8)) {
+            log.warn("Foto de índices ignorada: el CRC no coincide");
+            return Optional.empty();
+        }
+        if (buffer.getInt() != MAGIC) {
+            log.warn("Foto de índices ignorada: no es un segmento de índices");
+            return Optional.empty();
+        }
+        int version = buffer.getInt();
+        if (version != FORMAT_VERSION) {
+            log.warn("Foto de índices ignorada: versión de formato {} (se espera {})", version, FORMAT_VERSION);
+            return Optional.empty();
+        }
+        LocalDateTime takenAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(buffer.getLong()), ZoneId.systemDefault());
+        int count = buffer.getInt();
+        List<BookDocument> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = buffer.getLong();
+            String title = readString(buffer);
+            String isbn = readString(buffer);
+            String description = readString(buffer);
+            String language = readString(buffer);
+            int year = buffer.getInt();
+            int availableCopies = buffer.getInt();
+            int totalCopies = buffer.getInt();
+            List<Long> authorIds = readLongs(buffer);
+            List<String> authorNames = readStrings(buffer);
+            List<Long> categoryIds = readLongs(buffer);
+            List<String> categoryNames = readStrings(buffer);
+            documents.add(new BookDocument(id, title, isbn, description, authorIds, authorNames,
+                categoryIds, categoryNames, language, year == NULL_INT ? null : year,
+                availableCopies, totalCopies));
+        }
+        return Optional.of(new Snapshot(documents, takenAt));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> values) throws IOException {
+        out.writeInt(values.size());
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    private static void writeLongs(DataOutputStream out, List<Long> values) throws IOException {
+        out.writeInt(values.size());
+        for (Long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(readString(buffer));
+        }
+        return values;
+    }
+
+    private static List<Long> readLongs(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        List<Long> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(buffer.getLong());
+        }
+        return values;
+    }
+}
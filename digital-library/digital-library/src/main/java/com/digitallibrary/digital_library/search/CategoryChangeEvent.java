@@ -0,0 +1,17 @@
+package com.digitallibrary.digital_library.search;
+
+/**
+ * Se creó, modificó o eliminó una categoría; los libros que la muestran pueden quedar desactualizados.
+ */
+public class CategoryChangeEvent {
+
+    private final Long categoryId;
+
+    public CategoryChangeEvent(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+}
@@ -0,0 +1,232 @@
+package com.digitallibrary.digital_library.search;
+
+import com.digitallibrary.digital_library.dtos.response.FacetValue;
+import com.digitallibrary.digital_library.dtos.response.FacetsResponse;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Un bitmap comprimido por valor de faceta (categoría, idioma, década y disponibilidad)
+ * sobre ordinales densos de libro. Contar las facetas de un resultado es intersecar
+ * el bitmap del resultado con cada uno de ellos.
+ */
+@Component
+public class FacetIndex implements CatalogIndex {
+
+    private static final int YEAR_BUCKET = 10;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final Map<Long, RoaringBitmap> byCategory = new HashMap<>();
+    private final Map<String, RoaringBitmap> byLanguage = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> byYearBucket = new HashMap<>();
+    private final RoaringBitmap available = new RoaringBitmap();
+    private final Map<Long, String> categoryLabels = new HashMap<>();
+    private final Map<String, String> languageLabels = new HashMap<>();
+    private int nextOrdinal;
+    private volatile boolean ready;
+
+    @Override
+    public void rebuild(List<BookDocument> documents) {
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            entries.clear();
+            byCategory.clear();
+            byLanguage.clear();
+            byYearBucket.clear();
+            available.clear();
+            categoryLabels.clear();
+            languageLabels.clear();
+            nextOrdinal = 0;
+            for (BookDocument document : documents) {
+                add(document);
+            }
+            runOptimize();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(BookDocument document) {
+        lock.writeLock().lock();
+        try {
+            unindex(document.getId(), false);
+            add(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            unindex(bookId, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateInventory(Long bookId, int availableCopies, int totalCopies) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(bookId);
+            if (ordinal == null) {
+                return;
+            }
+            if (availableCopies > 0) {
+                available.add(ordinal);
+            } else {
+                available.remove(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Facetas del conjunto de libros indicado. Los ids que el índice no conoce se ignoran.
+     */
+    public FacetsResponse count(Collection<Long> bookIds) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = new RoaringBitmap();
+            for (Long bookId : bookIds) {
+                Integer ordinal = ordinals.get(bookId);
+                if (ordinal != null) {
+                    result.add(ordinal);
+                }
+            }
+
+            FacetsResponse facets = new FacetsResponse();
+            facets.setCategories(countValues(result, byCategory, id -> String.valueOf(id), categoryLabels::get));
+            facets.setLanguages(countValues(result, byLanguage, Function.identity(), languageLabels::get));
+            facets.setYears(countValues(result, byYearBucket, String::valueOf,
+                bucket -> bucket + "-" + (bucket + YEAR_BUCKET - 1)));
+            facets.setAvailable(RoaringBitmap.andCardinality(result, available));
+            facets.setTotal(result.getLongCardinality());
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <K> List<FacetValue> countValues(RoaringBitmap result, Map<K, RoaringBitmap> bitmaps,
+                                             Function<K, String> valueOf, Function<K, String> labelOf) {
+        List<FacetValue> values = new ArrayList<>();
+        for (Map.Entry<K, RoaringBitmap> entry : bitmaps.entrySet()) {
+            int count = RoaringBitmap.andCardinality(result, entry.getValue());
+            if (count > 0) {
+                values.add(new FacetValue(valueOf.apply(entry.getKey()), labelOf.apply(entry.getKey()), count));
+            }
+        }
+        values.sort(Comparator.comparingLong(FacetValue::getCount).reversed()
+            .thenComparing(FacetValue::getValue));
+        return values;
+    }
+
+    private void add(BookDocument document) {
+        int ordinal = ordinals.computeIfAbsent(document.getId(), id -> nextOrdinal++);
+        Entry entry = new Entry(document);
+        entries.put(ordinal, entry);
+
+        for (int i = 0; i < entry.categoryIds.size(); i++) {
+            Long categoryId = entry.categoryIds.get(i);
+            byCategory.computeIfAbsent(categoryId, k -> new RoaringBitmap()).add(ordinal);
+            categoryLabels.put(categoryId, document.getCategoryNames().get(i));
+        }
+        if (entry.language != null) {
+            byLanguage.computeIfAbsent(entry.language, k -> new RoaringBitmap()).add(ordinal);
+            languageLabels.putIfAbsent(entry.language, document.getLanguage().trim());
+        }
+        if (entry.yearBucket != null) {
+            byYearBucket.computeIfAbsent(entry.yearBucket, k -> new RoaringBitmap()).add(ordinal);
+        }
+        if (document.getAvailableCopies() > 0) {
+            available.add(ordinal);
+        }
+    }
+
+    // Al actualizar un libro se conserva su ordinal y solo se le quita de los bitmaps; al
+    // borrarlo también se olvida el ordinal. La etiqueta de una categoría o un idioma se va con
+    // su último libro, y un renombrado la escribe de nuevo al volver a indexar sus libros.
+    private void unindex(Long bookId, boolean forgetOrdinal) {
+        Integer ordinal = forgetOrdinal ? ordinals.remove(bookId) : ordinals.get(bookId);
+        if (ordinal == null) {
+            return;
+        }
+        Entry entry = entries.remove(ordinal);
+        if (entry == null) {
+            return;
+        }
+        for (Long categoryId : entry.categoryIds) {
+            if (removeFrom(byCategory, categoryId, ordinal)) {
+                categoryLabels.remove(categoryId);
+            }
+        }
+        if (entry.language != null) {
+            if (removeFrom(byLanguage, entry.language, ordinal)) {
+                languageLabels.remove(entry.language);
+            }
+        }
+        if (entry.yearBucket != null) {
+            removeFrom(byYearBucket, entry.yearBucket, ordinal);
+        }
+        available.remove(ordinal);
+    }
+
+    // Devuelve true si el valor de faceta se quedó sin libros y se eliminó
+    private static <K> boolean removeFrom(Map<K, RoaringBitmap> bitmaps, K key, int ordinal) {
+        RoaringBitmap bitmap = bitmaps.get(key);
+        if (bitmap == null) {
+            return false;
+        }
+        bitmap.remove(ordinal);
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(key);
+            return true;
+        }
+        return false;
+    }
+
+    private void runOptimize() {
+        byCategory.values().forEach(RoaringBitmap::runOptimize);
+        byLanguage.values().forEach(RoaringBitmap::runOptimize);
+        byYearBucket.values().forEach(RoaringBitmap::runOptimize);
+        available.runOptimize();
+    }
+
+    // Valores de faceta de un libro, para poder quitarlo de los bitmaps al actualizarlo
+    private static final class Entry {
+        private final List<Long> categoryIds;
+        private final String language;
+        private final Integer yearBucket;
+
+        private Entry(BookDocument document) {
+            this.categoryIds = document.getCategoryIds();
+            String language = document.getLanguage() == null ? "" : TextAnalyzer.normalize(document.getLanguage().trim());
+            this.language = language.isEmpty() ? null : language;
+            this.yearBucket = document.getPublicationYear() == null ? null
+                : Math.floorDiv(document.getPublicationYear(), YEAR_BUCKET) * YEAR_BUCKET;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.digitallibrary.digital_library.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido en memoria sobre título, ISBN, autores, categorías y descripción.
+ * Los resultados se ordenan con BM25; cada campo aporta a la frecuencia del término
+ * con un peso distinto para que una coincidencia en el título pese más que en la descripción.
+ */
+@Component
+public class FullTextIndex implements CatalogIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    private static final float TITLE_WEIGHT = 3.0f;
+    private static final float AUTHOR_WEIGHT = 2.0f;
+    private static final float ISBN_WEIGHT = 2.0f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> dictionary = new TreeMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<IndexedDoc> docs = new ArrayList<>();
+    private double totalLength;
+    private int liveDocs;
+    private volatile boolean ready;
+
+    @Override
+    public void rebuild(List<BookDocument> documents) {
+        lock.writeLock().lock();
+        try {
+            dictionary.clear();
+            ordinals.clear();
+            docs.clear();
+            totalLength = 0;
+            liveDocs = 0;
+            for (BookDocument document : documents) {
+                add(document);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(BookDocument document) {
+        lock.writeLock().lock();
+        try {
+            unindex(document.getId());
+            add(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            unindex(bookId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return liveDocs;
+    }
+
+    /**
+     * Devuelve los IDs de libros que coinciden, de mayor a menor relevancia.
+     * Sin palabra clave se devuelven todos los libros que pasan los filtros de
+     * categoría y autor, que se comparan por subcadena como en la consulta SQL.
+     * Una palabra clave formada solo por palabras vacías ("de la") no coincide con nada.
+     */
+    public List<Long> search(String keyword, String category, String author) {
+        String categoryFilter = TextAnalyzer.normalize(trimToNull(category));
+        String authorFilter = TextAnalyzer.normalize(trimToNull(author));
+
+        lock.readLock().lock();
+        try {
+            Set<String> terms = queryTerms(keyword);
+            if (terms.isEmpty() && keyword != null && !keyword.isBlank()) {
+                return new ArrayList<>();
+            }
+            if (terms.isEmpty()) {
+                List<Long> ids = new ArrayList<>();
+                for (IndexedDoc doc : docs) {
+                    if (doc != null && doc.matches(categoryFilter, authorFilter)) {
+                        ids.add(doc.id);
+                    }
+                }
+                return ids;
+            }
+
+            float[] scores = new float[docs.size()];
+            float averageLength = liveDocs == 0 ? 1f : (float) (totalLength / liveDocs);
+            for (String term : terms) {
+                Postings exact = dictionary.get(term);
+                if (exact != null) {
+                    score(exact, averageLength, scores);
+                } else if (term.length() >= MIN_PREFIX_LENGTH) {
+                    NavigableMap<String, Postings> expansions =
+                        dictionary.subMap(term, true, term + Character.MAX_VALUE, false);
+                    int expanded = 0;
+                    for (Postings postings : expansions.values()) {
+                        if (expanded++ >= MAX_PREFIX_EXPANSIONS) {
+                            break;
+                        }
+                        score(postings, averageLength, scores);
+                    }
+                }
+            }
+
+            List<Integer> hits = new ArrayList<>();
+            for (int ordinal = 0; ordinal < scores.length; ordinal++) {
+                if (scores[ordinal] > 0 && docs.get(ordinal).matches(categoryFilter, authorFilter)) {
+                    hits.add(ordinal);
+                }
+            }
+            hits.sort(Comparator.comparing((Integer ordinal) -> scores[ordinal]).reversed()
+                .thenComparing(ordinal -> ordinal));
+
+            List<Long> ids = new ArrayList<>(hits.size());
+            for (Integer ordinal : hits) {
+                ids.add(docs.get(ordinal).id);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Set<String> queryTerms(String keyword) {
+        Set<String> terms = new LinkedHashSet<>(TextAnalyzer.tokenize(keyword));
+        String isbn = TextAnalyzer.normalizeIsbn(keyword);
+        if (!isbn.isEmpty() && isbn.chars().anyMatch(Character::isDigit)) {
+            terms.add(isbn);
+        }
+        return terms;
+    }
+
+    private void score(Postings postings, float averageLength, float[] scores) {
+        double idf = Math.log(1 + (liveDocs - postings.size + 0.5) / (postings.size + 0.5));
+        for (int i = 0; i < postings.size; i++) {
+            int ordinal = postings.ordinals[i];
+            float tf = postings.frequencies[i];
+            float norm = K1 * (1 - B + B * docs.get(ordinal).length / averageLength);
+            scores[ordinal] += (float) (idf * tf * (K1 + 1) / (tf + norm));
+        }
+    }
+
+    private void add(BookDocument document) {
+        Map<String, Float> frequencies = new HashMap<>();
+        accumulate(frequencies, document.getTitle(), TITLE_WEIGHT);
+        for (String name : document.getAuthorNames()) {
+            accumulate(frequencies, name, AUTHOR_WEIGHT);
+        }
+        for (String name : document.getCategoryNames()) {
+            accumulate(frequencies, name, CATEGORY_WEIGHT);
+        }
+        accumulate(frequencies, document.getDescription(), DESCRIPTION_WEIGHT);
+        String isbn = TextAnalyzer.normalizeIsbn(document.getIsbn());
+        if (!isbn.isEmpty()) {
+            frequencies.merge(isbn, ISBN_WEIGHT, Float::sum);
+        }
+
+        float length = 0;
+        for (float frequency : frequencies.values()) {
+            length += frequency;
+        }
+
+        Integer ordinal = ordinals.get(document.getId());
+        if (ordinal == null) {
+            ordinal = docs.size();
+            docs.add(null);
+            ordinals.put(document.getId(), ordinal);
+        }
+        docs.set(ordinal, new IndexedDoc(document.getId(), length,
+            frequencies.keySet().toArray(new String[0]),
+            TextAnalyzer.normalize(String.join(" | ", document.getAuthorNames())),
+            TextAnalyzer.normalize(String.join(" | ", document.getCategoryNames()))));
+
+        for (Map.Entry<String, Float> entry : frequencies.entrySet()) {
+            dictionary.computeIfAbsent(entry.getKey(), key -> new Postings())
+                .put(ordinal, entry.getValue());
+        }
+        totalLength += length;
+        liveDocs++;
+    }
+
+    private void unindex(Long bookId) {
+        Integer ordinal = ordinals.get(bookId);
+        if (ordinal == null || docs.get(ordinal) == null) {
+            return;
+        }
+        IndexedDoc doc = docs.get(ordinal);
+        for (String term : doc.terms) {
+            Postings postings = dictionary.get(term);
+            if (postings != null && postings.remove(ordinal) && postings.size == 0) {
+                dictionary.remove(term);
+            }
+        }
+        docs.set(ordinal, null);
+        totalLength -= doc.length;
+        liveDocs--;
+    }
+
+    private static void accumulate(Map<String, Float> frequencies, String text, float weight) {
+        for (String token : TextAnalyzer.tokenize(text)) {
+            frequencies.merge(token, weight, Float::sum);
+        }
+    }
+
+    private static String trimToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static final class IndexedDoc {
+        private final Long id;
+        private final float length;
+        private final String[] terms;
+        private final String authors;
+        private final String categories;
+
+        private IndexedDoc(Long id, float length, String[] terms, String authors, String categories) {
+            this.id = id;
+            this.length = length;
+            this.terms = terms;
+            this.authors = authors;
+            this.categories = categories;
+        }
+
+        private boolean matches(String categoryFilter, String authorFilter) {
+            return (categoryFilter.isEmpty() || categories.contains(categoryFilter))
+                && (authorFilter.isEmpty() || authors.contains(authorFilter));
+        }
+    }
+
+    // Lista de ordinales ordenada con su frecuencia ponderada
+    private static final class Postings {
+        private int[] ordinals = new int[4];
+        private float[] frequencies = new float[4];
+        private int size;
+
+        private void put(int ordinal, float frequency) {
+            int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (position >= 0) {
+                frequencies[position] = frequency;
+                return;
+            }
+            position = -position - 1;
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            System.arraycopy(ordinals, position, ordinals, position + 1, size - position);
+            System.arraycopy(frequencies, position, frequencies, position + 1, size - position);
+            ordinals[position] = ordinal;
+            frequencies[position] = frequency;
+            size++;
+        }
+
+        private boolean remove(int ordinal) {
+            int position = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ordinals, position + 1, ordinals, position, size - position - 1);
+            System.arraycopy(frequencies, position + 1, frequencies, position, size - position - 1);
+            size--;
+            return true;
+        }
+    }
+}
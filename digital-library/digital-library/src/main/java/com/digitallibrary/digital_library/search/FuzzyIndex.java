@@ -0,0 +1,215 @@
+package com.digitallibrary.digital_library.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de trigramas sobre las palabras de un texto corto (títulos, nombres de autor).
+ * Cada palabra de la consulta se compara con las palabras indexadas que comparten
+ * suficientes trigramas y se verifica con distancia de Levenshtein acotada; una entrada
+ * coincide cuando todas las palabras de la consulta encuentran pareja.
+ */
+public class FuzzyIndex {
+
+    public static final int MAX_TOLERANCE = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    private final Map<Long, List<String>> entries = new HashMap<>();
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            trigrams.clear();
+            entries.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(Long id, String text) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+            List<String> tokens = TextAnalyzer.tokenize(text);
+            entries.put(id, tokens);
+            for (String token : tokens) {
+                Set<Long> ids = postings.get(token);
+                if (ids == null) {
+                    ids = new HashSet<>();
+                    postings.put(token, ids);
+                    for (String gram : trigramsOf(token)) {
+                        trigrams.computeIfAbsent(gram, key -> new HashSet<>()).add(token);
+                    }
+                }
+                ids.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param tolerance distancia de edición máxima por palabra; {@code null} la ajusta a la longitud
+     * @return coincidencias ordenadas por distancia total, como mucho {@code limit}
+     */
+    public List<FuzzyMatch> search(String query, Integer tolerance, int limit) {
+        List<String> queryTokens = TextAnalyzer.tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Integer> distances = null;
+            for (String queryToken : queryTokens) {
+                int maxEdits = maxEdits(queryToken, tolerance);
+                Map<Long, Integer> tokenMatches = new HashMap<>();
+                for (Map.Entry<String, Integer> candidate : matchTokens(queryToken, maxEdits).entrySet()) {
+                    for (Long id : postings.get(candidate.getKey())) {
+                        tokenMatches.merge(id, candidate.getValue(), Math::min);
+                    }
+                }
+                if (distances == null) {
+                    distances = tokenMatches;
+                } else {
+                    Map<Long, Integer> intersection = new HashMap<>();
+                    for (Map.Entry<Long, Integer> entry : distances.entrySet()) {
+                        Integer distance = tokenMatches.get(entry.getKey());
+                        if (distance != null) {
+                            intersection.put(entry.getKey(), entry.getValue() + distance);
+                        }
+                    }
+                    distances = intersection;
+                }
+                if (distances.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<FuzzyMatch> matches = new ArrayList<>(distances.size());
+            distances.forEach((id, distance) -> matches.add(new FuzzyMatch(id, distance)));
+            matches.sort(Comparator.comparingInt(FuzzyMatch::getDistance)
+                .thenComparing(FuzzyMatch::getId));
+            return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Integer> matchTokens(String queryToken, int maxEdits) {
+        Map<String, Integer> matches = new HashMap<>();
+        if (postings.containsKey(queryToken)) {
+            matches.put(queryToken, 0);
+        }
+        if (maxEdits == 0) {
+            return matches;
+        }
+
+        Set<String> queryGrams = trigramsOf(queryToken);
+        Map<String, Integer> shared = new HashMap<>();
+        for (String gram : queryGrams) {
+            Set<String> tokens = trigrams.get(gram);
+            if (tokens != null) {
+                for (String token : tokens) {
+                    shared.merge(token, 1, Integer::sum);
+                }
+            }
+        }
+
+        // Cada edición destruye como mucho tres trigramas
+        int minShared = Math.max(1, queryGrams.size() - 3 * maxEdits);
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            String token = entry.getKey();
+            if (entry.getValue() < minShared || Math.abs(token.length() - queryToken.length()) > maxEdits) {
+                continue;
+            }
+            int distance = boundedLevenshtein(queryToken, token, maxEdits);
+            if (distance <= maxEdits) {
+                matches.merge(token, distance, Math::min);
+            }
+        }
+        return matches;
+    }
+
+    private void unindex(Long id) {
+        List<String> tokens = entries.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Set<Long> ids = postings.get(token);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(token);
+                for (String gram : trigramsOf(token)) {
+                    Set<String> gramTokens = trigrams.get(gram);
+                    if (gramTokens != null && gramTokens.remove(token) && gramTokens.isEmpty()) {
+                        trigrams.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int maxEdits(String token, Integer tolerance) {
+        if (tolerance != null) {
+            return Math.max(0, Math.min(tolerance, MAX_TOLERANCE));
+        }
+        if (token.length() <= 2) {
+            return 0;
+        }
+        return token.length() <= 5 ? 1 : 2;
+    }
+
+    private static Set<String> trigramsOf(String token) {
+        String padded = "  " + token + " ";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    // Levenshtein con corte temprano: devuelve maxEdits + 1 si se supera el límite
+    static int boundedLevenshtein(String a, String b, int maxEdits) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
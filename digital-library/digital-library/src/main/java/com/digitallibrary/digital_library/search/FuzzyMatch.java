@@ -0,0 +1,24 @@
+package com.digitallibrary.digital_library.search;
+
+public class FuzzyMatch {
+
+    private final Long id;
+    private final int distance;
+
+    public FuzzyMatch(Long id, int distance) {
+        this.id = id;
+        this.distance = distance;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+
+    public boolean isFuzzy() {
+        return distance > 0;
+    }
+}
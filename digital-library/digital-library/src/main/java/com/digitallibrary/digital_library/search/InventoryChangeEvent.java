@@ -0,0 +1,45 @@
+package com.digitallibrary.digital_library.search;
+
+import com.digitallibrary.digital_library.models.Book;
+
+/**
+ * Nuevas copias disponibles y totales de un libro, publicado por préstamos, devoluciones
+ * y ajustes de inventario. Lleva la versión del libro tras el cambio: los eventos se
+ * entregan tras el commit desde hilos distintos y pueden llegar desordenados.
+ */
+public class InventoryChangeEvent {
+
+    private final Long bookId;
+    private final int availableCopies;
+    private final int totalCopies;
+    private final long version;
+
+    public InventoryChangeEvent(Long bookId, int availableCopies, int totalCopies, Long version) {
+        this.bookId = bookId;
+        this.availableCopies = availableCopies;
+        this.totalCopies = totalCopies;
+        this.version = version != null ? version : 0L;
+    }
+
+    // El libro debe estar ya sincronizado con la base de datos para que la versión sea la nueva
+    public static InventoryChangeEvent of(Book book) {
+        return new InventoryChangeEvent(book.getId(), book.getAvailableCopies(), book.getTotalCopies(),
+            book.getVersion());
+    }
+
+    public Long getBookId() {
+        return bookId;
+    }
+
+    public int getAvailableCopies() {
+        return availableCopies;
+    }
+
+    public int getTotalCopies() {
+        return totalCopies;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
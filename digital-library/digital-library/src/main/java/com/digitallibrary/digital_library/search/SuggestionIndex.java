@@ -0,0 +1,474 @@
+package com.digitallibrary.digital_library.search;
+
+import com.digitallibrary.digital_library.dtos.response.SuggestionResponse;
+import com.digitallibrary.digital_library.repositories.LoanRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Autocompletado por prefijo sobre títulos, autores y categorías.
+ * Las consultas leen una instantánea inmutable (claves ordenadas más un árbol de
+ * segmentos con el peso máximo) y nunca acceden a la base de datos. Cada alta, cambio
+ * o baja de libro recalcula solo las sugerencias afectadas (su título, sus autores y
+ * sus categorías) y las deja en una capa pequeña sobre la instantánea; al renombrar un autor
+ * o una categoría se reciben de nuevo todos sus libros con el nombre actual. La instantánea
+ * completa se reconstruye al arrancar, periódicamente para recoger los préstamos nuevos
+ * y cuando la capa de cambios crece demasiado.
+ */
+@Component
+public class SuggestionIndex implements CatalogIndex {
+
+    public static final String TYPE_TITLE = "TITLE";
+    public static final String TYPE_AUTHOR = "AUTHOR";
+    public static final String TYPE_CATEGORY = "CATEGORY";
+
+    private static final long REFRESH_INTERVAL_MS = 10 * 60 * 1000L;
+    private static final int MAX_PENDING_CHANGES = 2000;
+
+    private final LoanRepository loanRepository;
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suggestion-index-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildPending = new AtomicBoolean();
+
+    private final Object sourceLock = new Object();
+    private final Map<Long, BookDocument> books = new HashMap<>();
+    private final Map<Long, Set<Long>> authorBooks = new HashMap<>();
+    private final Map<Long, Set<Long>> categoryBooks = new HashMap<>();
+    private Map<Long, Long> loanCounts = new HashMap<>();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    public SuggestionIndex(LoanRepository loanRepository) {
+        this.loanRepository = loanRepository;
+    }
+
+    @Override
+    public void rebuild(List<BookDocument> documents) {
+        Map<Long, Long> counts = loadLoanCounts();
+        synchronized (sourceLock) {
+            books.clear();
+            authorBooks.clear();
+            categoryBooks.clear();
+            for (BookDocument document : documents) {
+                BookDocument book = slim(document);
+                books.put(book.getId(), book);
+                link(book);
+            }
+            loanCounts = counts;
+            snapshot = buildSnapshot();
+        }
+    }
+
+    @Override
+    public void index(BookDocument document) {
+        BookDocument book = slim(document);
+        synchronized (sourceLock) {
+            BookDocument previous = books.put(book.getId(), book);
+            unlink(previous);
+            link(book);
+            applyChanges(Arrays.asList(previous, book));
+        }
+    }
+
+    // Un autor o una categoría renombrados llegan con todos sus libros: cada sugerencia afectada
+    // se recalcula una sola vez, ya con el nombre nuevo en todos ellos
+    @Override
+    public void index(List<BookDocument> documents) {
+        synchronized (sourceLock) {
+            List<BookDocument> touched = new ArrayList<>();
+            for (BookDocument document : documents) {
+                BookDocument book = slim(document);
+                BookDocument previous = books.put(book.getId(), book);
+                unlink(previous);
+                link(book);
+                touched.add(previous);
+                touched.add(book);
+            }
+            applyChanges(touched);
+        }
+    }
+
+    @Override
+    public void remove(Long bookId) {
+        synchronized (sourceLock) {
+            BookDocument previous = books.remove(bookId);
+            if (previous != null) {
+                unlink(previous);
+                applyChanges(Collections.singletonList(previous));
+            }
+        }
+    }
+
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        return snapshot.topK(TextAnalyzer.normalize(prefix).trim(), limit);
+    }
+
+    // Recoge los préstamos nuevos en los pesos y funde la capa de cambios con la instantánea
+    @Scheduled(initialDelay = REFRESH_INTERVAL_MS, fixedDelay = REFRESH_INTERVAL_MS)
+    public void refresh() {
+        scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                Map<Long, Long> counts = loadLoanCounts();
+                synchronized (sourceLock) {
+                    loanCounts = counts;
+                    snapshot = buildSnapshot();
+                }
+            });
+        }
+    }
+
+    // Recalcula las sugerencias que dependen de los libros antes y después del cambio
+    private void applyChanges(List<BookDocument> touched) {
+        Map<String, SuggestionResponse> changes = new HashMap<>();
+        for (BookDocument book : touched) {
+            if (book == null) {
+                continue;
+            }
+            String titleKey = key(TYPE_TITLE, book.getId());
+            if (!changes.containsKey(titleKey)) {
+                changes.put(titleKey, titleSuggestion(book.getId()));
+            }
+            for (Long authorId : book.getAuthorIds()) {
+                String authorKey = key(TYPE_AUTHOR, authorId);
+                if (!changes.containsKey(authorKey)) {
+                    changes.put(authorKey, groupSuggestion(TYPE_AUTHOR, authorId, authorBooks.get(authorId),
+                        BookDocument::getAuthorIds, BookDocument::getAuthorNames));
+                }
+            }
+            for (Long categoryId : book.getCategoryIds()) {
+                String categoryKey = key(TYPE_CATEGORY, categoryId);
+                if (!changes.containsKey(categoryKey)) {
+                    changes.put(categoryKey, groupSuggestion(TYPE_CATEGORY, categoryId,
+                        categoryBooks.get(categoryId), BookDocument::getCategoryIds, BookDocument::getCategoryNames));
+                }
+            }
+        }
+        snapshot = snapshot.withChanges(changes);
+        if (snapshot.pendingChanges() > MAX_PENDING_CHANGES) {
+            scheduleRebuild();
+        }
+    }
+
+    private SuggestionResponse titleSuggestion(Long bookId) {
+        BookDocument book = books.get(bookId);
+        if (book == null || book.getTitle() == null || book.getTitle().isBlank()) {
+            return null;
+        }
+        return new SuggestionResponse(book.getTitle(), TYPE_TITLE, bookId, loanCounts.getOrDefault(bookId, 0L));
+    }
+
+    private SuggestionResponse groupSuggestion(String type, Long id, Set<Long> bookIds,
+                                               Function<BookDocument, List<Long>> ids,
+                                               Function<BookDocument, List<String>> names) {
+        if (bookIds == null || bookIds.isEmpty()) {
+            return null;
+        }
+        String text = null;
+        long loans = 0;
+        for (Long bookId : bookIds) {
+            BookDocument book = books.get(bookId);
+            loans += loanCounts.getOrDefault(bookId, 0L);
+            if (text == null) {
+                int position = ids.apply(book).indexOf(id);
+                text = names.apply(book).get(position);
+            }
+        }
+        return text == null || text.isBlank() ? null : new SuggestionResponse(text, type, id, loans);
+    }
+
+    private void link(BookDocument book) {
+        for (Long authorId : book.getAuthorIds()) {
+            authorBooks.computeIfAbsent(authorId, key -> new HashSet<>()).add(book.getId());
+        }
+        for (Long categoryId : book.getCategoryIds()) {
+            categoryBooks.computeIfAbsent(categoryId, key -> new HashSet<>()).add(book.getId());
+        }
+    }
+
+    private void unlink(BookDocument book) {
+        if (book == null) {
+            return;
+        }
+        for (Long authorId : book.getAuthorIds()) {
+            removeMember(authorBooks, authorId, book.getId());
+        }
+        for (Long categoryId : book.getCategoryIds()) {
+            removeMember(categoryBooks, categoryId, book.getId());
+        }
+    }
+
+    private static void removeMember(Map<Long, Set<Long>> groups, Long groupId, Long bookId) {
+        Set<Long> members = groups.get(groupId);
+        if (members != null && members.remove(bookId) && members.isEmpty()) {
+            groups.remove(groupId);
+        }
+    }
+
+    private static String key(String type, Long id) {
+        return type + ":" + id;
+    }
+
+    private Map<Long, Long> loadLoanCounts() {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : loanRepository.countLoansPerBook()) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    // La descripción no se usa aquí: no se guarda para no ocupar memoria
+    private static BookDocument slim(BookDocument document) {
+        return new BookDocument(document.getId(), document.getTitle(), null, null,
+            document.getAuthorIds(), document.getAuthorNames(),
+            document.getCategoryIds(), document.getCategoryNames(), null, null, 0, 0);
+    }
+
+    // Se llama con sourceLock tomado
+    private Snapshot buildSnapshot() {
+        Map<String, SuggestionResponse> suggestions = new HashMap<>();
+        for (BookDocument book : books.values()) {
+            long loans = loanCounts.getOrDefault(book.getId(), 0L);
+            accumulate(suggestions, TYPE_TITLE, book.getId(), book.getTitle(), loans);
+            for (int i = 0; i < book.getAuthorIds().size(); i++) {
+                accumulate(suggestions, TYPE_AUTHOR, book.getAuthorIds().get(i),
+                    book.getAuthorNames().get(i), loans);
+            }
+            for (int i = 0; i < book.getCategoryIds().size(); i++) {
+                accumulate(suggestions, TYPE_CATEGORY, book.getCategoryIds().get(i),
+                    book.getCategoryNames().get(i), loans);
+            }
+        }
+        return Snapshot.of(new ArrayList<>(suggestions.values()));
+    }
+
+    private static void accumulate(Map<String, SuggestionResponse> suggestions, String type,
+                                   Long id, String text, long loans) {
+        if (text == null || text.isBlank()) {
+            return;
+        }
+        SuggestionResponse suggestion = suggestions.computeIfAbsent(key(type, id),
+            key -> new SuggestionResponse(text, type, id, 0L));
+        suggestion.setWeight(suggestion.getWeight() + loans);
+    }
+
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(new String[0], new int[0], new SuggestionResponse[0]);
+
+        private final String[] keys;
+        private final int[] targets;
+        private final SuggestionResponse[] suggestions;
+        private final int[] maxTree;
+        // Sugerencias cambiadas desde la última reconstrucción; null si ya no existe
+        private final Map<String, SuggestionResponse> changes;
+        private final Map<String, Set<String>> changedKeys;
+
+        private Snapshot(String[] keys, int[] targets, SuggestionResponse[] suggestions) {
+            this.keys = keys;
+            this.targets = targets;
+            this.suggestions = suggestions;
+            this.maxTree = new int[Math.max(1, 4 * keys.length)];
+            if (keys.length > 0) {
+                build(1, 0, keys.length - 1);
+            }
+            this.changes = Map.of();
+            this.changedKeys = Map.of();
+        }
+
+        private Snapshot(Snapshot base, Map<String, SuggestionResponse> changes) {
+            this.keys = base.keys;
+            this.targets = base.targets;
+            this.suggestions = base.suggestions;
+            this.maxTree = base.maxTree;
+            this.changes = changes;
+            this.changedKeys = new HashMap<>();
+            changes.forEach((id, suggestion) -> {
+                if (suggestion != null) {
+                    changedKeys.put(id, keysOf(suggestion.getText()));
+                }
+            });
+        }
+
+        // Copia en escritura: las consultas en curso siguen con la capa anterior
+        private Snapshot withChanges(Map<String, SuggestionResponse> changed) {
+            Map<String, SuggestionResponse> merged = new HashMap<>(changes);
+            merged.putAll(changed);
+            return new Snapshot(this, merged);
+        }
+
+        private int pendingChanges() {
+            return changes.size();
+        }
+
+        // Una clave por cada palabra inicial: "Cien años de soledad" también se encuentra por "soledad"
+        private static Snapshot of(List<SuggestionResponse> suggestions) {
+            List<String> keyList = new ArrayList<>();
+            List<Integer> targetList = new ArrayList<>();
+            for (int target = 0; target < suggestions.size(); target++) {
+                for (String key : keysOf(suggestions.get(target).getText())) {
+                    keyList.add(key);
+                    targetList.add(target);
+                }
+            }
+
+            Integer[] order = new Integer[keyList.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(keyList::get));
+
+            String[] keys = new String[order.length];
+            int[] targets = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = keyList.get(order[i]);
+                targets[i] = targetList.get(order[i]);
+            }
+            return new Snapshot(keys, targets, suggestions.toArray(new SuggestionResponse[0]));
+        }
+
+        private static Set<String> keysOf(String text) {
+            String normalized = TextAnalyzer.normalize(text).trim();
+            Set<String> keys = new HashSet<>();
+            keys.add(normalized);
+            for (int i = 1; i < normalized.length(); i++) {
+                if (normalized.charAt(i - 1) == ' ' && normalized.charAt(i) != ' ') {
+                    keys.add(normalized.substring(i));
+                }
+            }
+            return keys;
+        }
+
+        private List<SuggestionResponse> topK(String prefix, int limit) {
+            if (prefix.isEmpty() || limit <= 0) {
+                return List.of();
+            }
+            List<SuggestionResponse> result = baseTopK(prefix, limit);
+            if (changes.isEmpty()) {
+                return result;
+            }
+
+            // Las sugerencias cambiadas se buscan en la capa; es pequeña y se recorre entera
+            changedKeys.forEach((id, suggestionKeys) -> {
+                if (suggestionKeys.stream().anyMatch(key -> key.startsWith(prefix))) {
+                    SuggestionResponse suggestion = changes.get(id);
+                    result.add(new SuggestionResponse(suggestion.getText(), suggestion.getType(),
+                        suggestion.getId(), suggestion.getWeight()));
+                }
+            });
+            result.sort(Comparator.comparingLong(SuggestionResponse::getWeight).reversed());
+            return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+        }
+
+        // Las sugerencias que aparecen en la capa de cambios se saltan: su versión vigente está allí
+        private List<SuggestionResponse> baseTopK(String prefix, int limit) {
+            if (keys.length == 0) {
+                return new ArrayList<>();
+            }
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE) - 1;
+            if (from > to) {
+                return new ArrayList<>();
+            }
+
+            // Se extrae el máximo de cada rango y se parte el rango en dos: O(k log n)
+            PriorityQueue<int[]> ranges = new PriorityQueue<>(
+                Comparator.comparingLong((int[] range) -> weight(range[2])).reversed());
+            ranges.add(new int[]{from, to, query(1, 0, keys.length - 1, from, to)});
+            List<SuggestionResponse> result = new ArrayList<>(limit);
+            Set<Integer> seen = new HashSet<>();
+            while (!ranges.isEmpty() && result.size() < limit) {
+                int[] range = ranges.poll();
+                int position = range[2];
+                SuggestionResponse suggestion = suggestions[targets[position]];
+                if (seen.add(targets[position])
+                        && !changes.containsKey(key(suggestion.getType(), suggestion.getId()))) {
+                    result.add(new SuggestionResponse(suggestion.getText(), suggestion.getType(),
+                        suggestion.getId(), suggestion.getWeight()));
+                }
+                if (range[0] <= position - 1) {
+                    ranges.add(new int[]{range[0], position - 1, query(1, 0, keys.length - 1, range[0], position - 1)});
+                }
+                if (position + 1 <= range[1]) {
+                    ranges.add(new int[]{position + 1, range[1], query(1, 0, keys.length - 1, position + 1, range[1])});
+                }
+            }
+            return result;
+        }
+
+        private long weight(int position) {
+            return suggestions[targets[position]].getWeight();
+        }
+
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void build(int node, int low, int high) {
+            if (low == high) {
+                maxTree[node] = low;
+                return;
+            }
+            int mid = (low + high) >>> 1;
+            build(2 * node, low, mid);
+            build(2 * node + 1, mid + 1, high);
+            maxTree[node] = heavier(maxTree[2 * node], maxTree[2 * node + 1]);
+        }
+
+        private int query(int node, int low, int high, int from, int to) {
+            if (from <= low && high <= to) {
+                return maxTree[node];
+            }
+            int mid = (low + high) >>> 1;
+            if (to <= mid) {
+                return query(2 * node, low, mid, from, to);
+            }
+            if (from > mid) {
+                return query(2 * node + 1, mid + 1, high, from, to);
+            }
+            return heavier(query(2 * node, low, mid, from, to), query(2 * node + 1, mid + 1, high, from, to));
+        }
+
+        private int heavier(int left, int right) {
+            return weight(right) > weight(left) ? right : left;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.digitallibrary.digital_library.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public final class TextAnalyzer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "al", "con", "de", "del", "el", "en", "la", "las", "lo", "los",
+        "para", "por", "un", "una", "y", "o",
+        "an", "and", "of", "the", "to", "in", "on");
+
+    private TextAnalyzer() {
+    }
+
+    // Minúsculas y sin tildes: "García Márquez" -> "garcia marquez"
+    public static String normalize(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letterOrDigit = i < normalized.length()
+                && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                String token = normalized.substring(start, i);
+                if (!STOP_WORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // El ISBN se indexa también sin guiones para que "978-84..." y "97884..." coincidan
+    public static String normalizeIsbn(String isbn) {
+        if (isbn == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(isbn.length());
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                digits.append(Character.toLowerCase(c));
+            }
+        }
+        return digits.toString();
+    }
+}
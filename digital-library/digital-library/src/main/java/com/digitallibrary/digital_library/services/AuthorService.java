@@ -12,7 +12,7 @@ import java.util.Map;
 public interface AuthorService {
     AuthorResponse getAuthorById(Long id);
     Page<AuthorResponse> getAllAuthors(String name, Pageable pageable);
-    List<AuthorResponse> searchAuthors(String query);
+    List<AuthorResponse> searchAuthors(String query, Integer tolerance);
     AuthorResponse createAuthor(AuthorResponse authorRequest);
     AuthorResponse updateAuthor(Long id, AuthorResponse authorRequest);
     ApiResponse deleteAuthor(Long id);
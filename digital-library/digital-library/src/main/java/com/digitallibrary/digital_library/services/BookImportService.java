@@ -0,0 +1,10 @@
+package com.digitallibrary.digital_library.services;
+
+import com.digitallibrary.digital_library.dtos.response.BookImportResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BookImportService {
+    BookImportResponse importBooks(InputStream input, String format) throws IOException;
+}
@@ -3,12 +3,20 @@ package com.digitallibrary.digital_library.services;
 
 import com.digitallibrary.digital_library.dtos.request.BookRequest;
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
+import com.digitallibrary.digital_library.dtos.response.BookBatchItem;
 import com.digitallibrary.digital_library.dtos.response.BookResponse;
+import com.digitallibrary.digital_library.dtos.response.BookSummaryResponse;
+import com.digitallibrary.digital_library.dtos.response.CursorPageResponse;
+import com.digitallibrary.digital_library.dtos.response.FacetsResponse;
+import com.digitallibrary.digital_library.dtos.response.SuggestionResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface BookService {
     BookResponse createBook(BookRequest bookRequest);
@@ -16,14 +24,30 @@ public interface BookService {
     ApiResponse deleteBook(Long id);
     BookResponse getBookById(Long id);
     BookResponse getBookByIsbn(String isbn);
+    List<BookBatchItem> getBooksByIds(List<Long> ids);
     Page<BookResponse> getAllBooks(Pageable pageable);
+    CursorPageResponse<BookResponse> getAllBooks(String cursor, Pageable pageable);
     Page<BookResponse> searchBooks(String title, String author, Long categoryId, 
-                                  Integer publicationYear, String language, Pageable pageable);
-    List<BookResponse> getBooksByAuthor(Long authorId);
+                                  Integer publicationYear, String language, Integer tolerance,
+                                  Pageable pageable);
+    Page<BookResponse> getBooksByAuthor(Long authorId, Pageable pageable);
     List<BookResponse> getBooksByCategory(Long categoryId);
-    List<BookResponse> getAvailableBooks();
-    Page<BookResponse> publicSearch(String keyword, String category, String author, Pageable pageable);
+    Page<BookResponse> getAvailableBooks(Pageable pageable);
+    Page<BookResponse> publicSearch(String keyword, String category, String author, boolean availableOnly,
+                                    Pageable pageable);
     List<BookResponse> getPopularBooks(int limit, LocalDate startDate, LocalDate endDate);
+    List<BookSummaryResponse> getBookSummariesByCategory(Long categoryId);
+    Page<BookSummaryResponse> getAvailableBookSummaries(Pageable pageable);
+    Page<BookSummaryResponse> publicSearchSummaries(String keyword, String category, String author,
+                                                    boolean availableOnly, Pageable pageable);
+    List<BookSummaryResponse> getPopularBookSummaries(int limit, LocalDate startDate, LocalDate endDate);
+    FacetsResponse searchBooksFacets(String title, String author, Long categoryId,
+                                     Integer publicationYear, String language, Integer tolerance);
+    FacetsResponse publicSearchFacets(String keyword, String category, String author, boolean availableOnly);
     ApiResponse updateBookCopies(Long bookId, Integer copies);
     boolean isBookAvailable(Long bookId);
+    Map<String, Object> getBookAvailability(Long bookId);
+    Optional<LocalDateTime> getBookLastModified(Long id);
+    Optional<LocalDateTime> getBookLastModifiedByIsbn(String isbn);
+    List<SuggestionResponse> suggest(String prefix, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+package com.digitallibrary.digital_library.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface CatalogExportService {
+    long exportBooksAsNdjson(OutputStream out) throws IOException;
+}
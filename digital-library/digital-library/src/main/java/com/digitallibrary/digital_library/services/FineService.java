@@ -0,0 +1,39 @@
+package com.digitallibrary.digital_library.services;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface FineService {
+
+    /**
+     * Cargo pendiente de registrar en el libro de multas.
+     */
+    final class Charge {
+        private final Long loanId;
+        private final Long userId;
+        private final double amount;
+
+        public Charge(Long loanId, Long userId, double amount) {
+            this.loanId = loanId;
+            this.userId = userId;
+            this.amount = amount;
+        }
+
+        public Long getLoanId() {
+            return loanId;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public double getAmount() {
+            return amount;
+        }
+    }
+
+    double fineFor(LocalDate dueDate, LocalDate date);
+    void recordCharges(List<Charge> charges, LocalDate date);
+    void accrueDailyFines();
+    void backfillBalances();
+}
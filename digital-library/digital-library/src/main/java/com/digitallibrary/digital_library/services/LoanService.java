@@ -1,8 +1,12 @@
 package com.digitallibrary.digital_library.services;
  
 
+import com.digitallibrary.digital_library.dtos.request.BulkLoanRequest;
+import com.digitallibrary.digital_library.dtos.request.BulkReturnRequest;
 import com.digitallibrary.digital_library.dtos.request.LoanRequest;
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
+import com.digitallibrary.digital_library.dtos.response.BulkLoanItem;
+import com.digitallibrary.digital_library.dtos.response.CursorPageResponse;
 import com.digitallibrary.digital_library.dtos.response.LoanResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -13,13 +17,17 @@ import java.util.Map;
 
 public interface LoanService {
     LoanResponse createLoan(LoanRequest loanRequest);
+    List<BulkLoanItem> createLoans(BulkLoanRequest request);
     LoanResponse getLoanById(Long id);
     List<LoanResponse> getLoansByUser(Long userId);
     List<LoanResponse> getLoansByBook(Long bookId);
     Page<LoanResponse> getAllLoans(String status, LocalDate startDate, LocalDate endDate, Pageable pageable);
+    CursorPageResponse<LoanResponse> getAllLoans(String status, LocalDate startDate, LocalDate endDate,
+                                                 String cursor, Pageable pageable);
     List<LoanResponse> getActiveLoans();
     List<LoanResponse> getOverdueLoans();
     LoanResponse returnLoan(Long id);
+    List<BulkLoanItem> returnLoans(BulkReturnRequest request);
     LoanResponse renewLoan(Long id);
     LoanResponse updateLoanStatus(Long id, String status);
     ApiResponse deleteLoan(Long id);
@@ -28,4 +36,5 @@ public interface LoanService {
     boolean canRenewLoan(Long loanId);
     boolean hasOverdueLoans(Long userId);
     int getUserLoanCount(Long userId);
+    void processOverdueLoans();
 }
\ No newline at end of file
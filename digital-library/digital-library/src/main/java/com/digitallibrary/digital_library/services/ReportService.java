@@ -13,6 +13,7 @@ public interface ReportService {
     Map<String, Object> generateCategoryUsageReport(LocalDate startDate, LocalDate endDate);
     Map<String, Object> generateReservationStatsReport();
     Map<String, Object> generateSystemHealthReport();
+    Map<String, Object> generateCacheStatsReport();
     byte[] exportLoansReport(LocalDate startDate, LocalDate endDate, String format);
     Map<String, Object> getDashboardStatistics();
 }
\ No newline at end of file
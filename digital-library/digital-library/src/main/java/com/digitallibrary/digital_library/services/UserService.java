@@ -2,6 +2,7 @@ package com.digitallibrary.digital_library.services;
  
 
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
+import com.digitallibrary.digital_library.dtos.response.CursorPageResponse;
 import com.digitallibrary.digital_library.dtos.response.UserResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -12,6 +13,7 @@ public interface UserService {
     UserResponse getCurrentUser();
     UserResponse getUserById(Long id);
     Page<UserResponse> getAllUsers(String role, String search, Pageable pageable);
+    CursorPageResponse<UserResponse> getAllUsers(String role, String search, String cursor, Pageable pageable);
     UserResponse updateCurrentUser(UserResponse userUpdate);
     UserResponse updateUser(Long id, UserResponse userUpdate);
     ApiResponse deleteUser(Long id);
@@ -4,11 +4,13 @@ import com.digitallibrary.digital_library.dtos.request.LoginRequest;
 import com.digitallibrary.digital_library.dtos.request.RegisterRequest;
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
 import com.digitallibrary.digital_library.dtos.response.AuthResponse;
+import com.digitallibrary.digital_library.events.UserStatusChangeEvent;
 import com.digitallibrary.digital_library.models.User;
 import com.digitallibrary.digital_library.models.enums.UserRole;
 import com.digitallibrary.digital_library.repositories.UserRepository;
 import com.digitallibrary.digital_library.services.AuthService;
 import com.digitallibrary.digital_library.utils.JwtUtil;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,13 +21,16 @@ public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
+    private final ApplicationEventPublisher eventPublisher;
 
     public AuthServiceImpl(UserRepository userRepository,
                            PasswordEncoder passwordEncoder,
-                           JwtUtil jwtUtil) {
+                           JwtUtil jwtUtil,
+                           ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -75,6 +80,7 @@ public class AuthServiceImpl implements AuthService {
         user.setIsActive(true);
 
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserStatusChangeEvent(user.getId(), true));
 
         return ApiResponse.success("Usuario registrado exitosamente");
     }
@@ -2,27 +2,51 @@ package com.digitallibrary.digital_library.services.impl;
  
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
 import com.digitallibrary.digital_library.dtos.response.AuthorResponse;
+import com.digitallibrary.digital_library.dtos.response.BookSummaryResponse;
 import com.digitallibrary.digital_library.exceptions.ResourceNotFoundException;
 import com.digitallibrary.digital_library.models.Author;
 import com.digitallibrary.digital_library.repositories.AuthorRepository;
+import com.digitallibrary.digital_library.repositories.BookRepository;
+import com.digitallibrary.digital_library.search.AuthorBookIndex;
+import com.digitallibrary.digital_library.search.AuthorChangeEvent;
+import com.digitallibrary.digital_library.search.AuthorNameIndex;
+import com.digitallibrary.digital_library.search.FuzzyMatch;
 import com.digitallibrary.digital_library.services.AuthorService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class AuthorServiceImpl implements AuthorService {
 
     private final AuthorRepository authorRepository;
+    private final BookRepository bookRepository;
+    private final AuthorNameIndex authorNameIndex;
+    private final AuthorBookIndex authorBookIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private static final int MAX_FUZZY_RESULTS = 50;
 
-    public AuthorServiceImpl(AuthorRepository authorRepository) {
+    public AuthorServiceImpl(AuthorRepository authorRepository,
+                            BookRepository bookRepository,
+                            AuthorNameIndex authorNameIndex,
+                            AuthorBookIndex authorBookIndex,
+                            ApplicationEventPublisher eventPublisher) {
         this.authorRepository = authorRepository;
+        this.bookRepository = bookRepository;
+        this.authorNameIndex = authorNameIndex;
+        this.authorBookIndex = authorBookIndex;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -39,10 +63,31 @@ public class AuthorServiceImpl implements AuthorService {
     }
 
     @Override
-    public List<AuthorResponse> searchAuthors(String query) {
-        return authorRepository.findByNameContainingIgnoreCase(query, Pageable.unpaged())
+    public List<AuthorResponse> searchAuthors(String query, Integer tolerance) {
+        List<AuthorResponse> exact = authorRepository.findByNameContainingIgnoreCase(query, Pageable.unpaged())
             .stream()
-            .map(this::convertToResponse)
+            .map(author -> {
+                AuthorResponse response = convertToResponse(author);
+                response.setFuzzyMatch(false);
+                return response;
+            })
+            .collect(Collectors.toList());
+        if (!exact.isEmpty() || Integer.valueOf(0).equals(tolerance)) {
+            return exact;
+        }
+ 
+        List<FuzzyMatch> matches = authorNameIndex.search(query, tolerance, MAX_FUZZY_RESULTS);
+        Map<Long, Author> authorsById = authorRepository.loadAllById(
+                matches.stream().map(FuzzyMatch::getId).collect(Collectors.toList()))
+            .stream()
+            .collect(Collectors.toMap(Author::getId, Function.identity()));
+        return matches.stream()
+            .filter(match -> authorsById.containsKey(match.getId()))
+            .map(match -> {
+                AuthorResponse response = convertToResponse(authorsById.get(match.getId()));
+                response.setFuzzyMatch(match.isFuzzy());
+                return response;
+            })
             .collect(Collectors.toList());
     }
 
@@ -56,6 +101,7 @@ public class AuthorServiceImpl implements AuthorService {
         author.setBiography(authorRequest.getBiography());
         
         author = authorRepository.save(author);
+        eventPublisher.publishEvent(AuthorChangeEvent.saved(author.getId(), author.getName()));
         return convertToResponse(author);
     }
 
@@ -71,6 +117,7 @@ public class AuthorServiceImpl implements AuthorService {
         author.setBiography(authorRequest.getBiography());
         
         author = authorRepository.save(author);
+        eventPublisher.publishEvent(AuthorChangeEvent.saved(author.getId(), author.getName()));
         return convertToResponse(author);
     }
 
@@ -85,6 +132,7 @@ public class AuthorServiceImpl implements AuthorService {
         }
         
         authorRepository.delete(author);
+        eventPublisher.publishEvent(AuthorChangeEvent.deleted(id));
         return ApiResponse.success("Autor eliminado exitosamente");
     }
 
@@ -95,7 +143,7 @@ public class AuthorServiceImpl implements AuthorService {
         
         Map<String, Object> result = new HashMap<>();
         result.put("author", convertToResponse(author));
-        result.put("books", author.getBooks().stream()
+        result.put("books", findAuthorBooks(id).stream()
             .map(book -> {
                 Map<String, Object> bookInfo = new HashMap<>();
                 bookInfo.put("id", book.getId());
@@ -123,6 +171,21 @@ public class AuthorServiceImpl implements AuthorService {
             .collect(Collectors.toList());
     }
 
+    // Solo las columnas del listado; con el índice listo se consulta por ids en vez de por la relación
+    private List<BookSummaryResponse> findAuthorBooks(Long authorId) {
+        if (!authorBookIndex.isReady()) {
+            return bookRepository.findSummariesByAuthorId(authorId);
+        }
+        long[] bookIds = authorBookIndex.booksOf(authorId);
+        if (bookIds.length == 0) {
+            return new ArrayList<>();
+        }
+        return bookRepository.findSummariesByIds(Arrays.stream(bookIds).boxed().collect(Collectors.toList()))
+            .stream()
+            .sorted(Comparator.comparing(BookSummaryResponse::getId))
+            .collect(Collectors.toList());
+    }
+
     private AuthorResponse convertToResponse(Author author) {
         AuthorResponse response = new AuthorResponse();
         response.setId(author.getId());
@@ -131,7 +194,11 @@ public class AuthorServiceImpl implements AuthorService {
         response.setBirthDate(author.getBirthDate());
         response.setBiography(author.getBiography());
         response.setCreatedAt(author.getCreatedAt());
-        response.setBookCount(author.getBooks() != null ? author.getBooks().size() : 0);
+        if (authorBookIndex.isReady()) {
+            response.setBookCount(authorBookIndex.countBooks(author.getId()));
+        } else {
+            response.setBookCount(author.getBooks() != null ? author.getBooks().size() : 0);
+        }
         return response;
     }
 }
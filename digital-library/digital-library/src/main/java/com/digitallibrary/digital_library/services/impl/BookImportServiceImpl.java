@@ -0,0 +1,544 @@
+package com.digitallibrary.digital_library.services.impl;
+
+import com.digitallibrary.digital_library.dtos.request.BookImportRow;
+import com.digitallibrary.digital_library.dtos.response.BookImportResponse;
+import com.digitallibrary.digital_library.dtos.response.BookImportRowResult;
+import com.digitallibrary.digital_library.search.BookDocument;
+import com.digitallibrary.digital_library.search.CatalogChangeEvent;
+import com.digitallibrary.digital_library.services.BookImportService;
+import com.digitallibrary.digital_library.utils.BloomFilter;
+import com.digitallibrary.digital_library.utils.CsvReader;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva del catálogo desde CSV o JSON. Las filas se leen en streaming y se
+ * insertan en bloques con lotes JDBC. Los ISBN se comprueban primero contra un filtro de
+ * Bloom con los ya registrados y solo los posibles duplicados se verifican en la base de datos.
+ */
+@Service
+public class BookImportServiceImpl implements BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportServiceImpl.class);
+    private static final int CHUNK_SIZE = 1000;
+    private static final long EXPECTED_IMPORT_SIZE = 100_000;
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+    private static final String LIST_SEPARATOR = ";";
+
+    private static final String INSERT_BOOK = "INSERT INTO books (title, isbn, description, publication_year, " +
+        "publisher, edition, language, pages, cover_image_url, total_copies, available_copies, location, " +
+        "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_BOOK_AUTHOR = "INSERT INTO book_authors (book_id, author_id) VALUES (?, ?)";
+    private static final String INSERT_BOOK_CATEGORY = "INSERT INTO book_categories (book_id, category_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BookImportServiceImpl(JdbcTemplate jdbcTemplate,
+                                 NamedParameterJdbcTemplate namedJdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 ObjectMapper objectMapper,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public BookImportResponse importBooks(InputStream input, String format) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportContext context = loadContext();
+        List<BookImportRowResult> results = new ArrayList<>();
+        List<PendingBook> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        int rowNumber = 0;
+        try (RowSource source = openSource(input, format)) {
+            while (true) {
+                BookImportRow row;
+                try {
+                    row = source.next();
+                } catch (RowFormatException e) {
+                    results.add(new BookImportRowResult(++rowNumber, null, BookImportRowResult.INVALID, null,
+                        e.getMessage()));
+                    continue;
+                } catch (JsonProcessingException e) {
+                    // JSON mal formado: no se puede seguir leyendo, lo ya importado se conserva
+                    results.add(new BookImportRowResult(++rowNumber, null, BookImportRowResult.FAILED, null,
+                        "JSON mal formado: " + e.getOriginalMessage()));
+                    break;
+                }
+                if (row == null) {
+                    break;
+                }
+                rowNumber++;
+
+                PendingBook pending = resolve(context, rowNumber, row, results);
+                if (pending != null) {
+                    chunk.add(pending);
+                    if (chunk.size() == CHUNK_SIZE) {
+                        flush(context, chunk, results);
+                    }
+                }
+            }
+        }
+        flush(context, chunk, results);
+
+        results.sort(Comparator.comparingInt(BookImportRowResult::getRow));
+        BookImportResponse response = new BookImportResponse();
+        response.setTotalRows(rowNumber);
+        response.setImported(countStatus(results, BookImportRowResult.IMPORTED));
+        response.setDuplicates(countStatus(results, BookImportRowResult.DUPLICATE));
+        response.setInvalid(countStatus(results, BookImportRowResult.INVALID));
+        response.setFailed(countStatus(results, BookImportRowResult.FAILED));
+        response.setElapsedMs(System.currentTimeMillis() - start);
+        response.setRows(results);
+        log.info("Importación de libros: {} filas, {} importadas, {} duplicadas, {} inválidas, {} fallidas en {} ms",
+            rowNumber, response.getImported(), response.getDuplicates(), response.getInvalid(),
+            response.getFailed(), response.getElapsedMs());
+        return response;
+    }
+
+    private ImportContext loadContext() {
+        ImportContext context = new ImportContext();
+        jdbcTemplate.query("SELECT id, name FROM authors ORDER BY id", (RowCallbackHandler) rs -> {
+            context.authorNamesById.put(rs.getLong(1), rs.getString(2));
+            context.authorIdsByName.putIfAbsent(nameKey(rs.getString(2)), rs.getLong(1));
+        });
+        jdbcTemplate.query("SELECT id, name FROM categories ORDER BY id", (RowCallbackHandler) rs -> {
+            context.categoryNamesById.put(rs.getLong(1), rs.getString(2));
+            context.categoryIdsByName.putIfAbsent(nameKey(rs.getString(2)), rs.getLong(1));
+        });
+
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Long.class);
+        context.isbns = new BloomFilter((existing != null ? existing : 0) + EXPECTED_IMPORT_SIZE,
+            BLOOM_FALSE_POSITIVE_RATE);
+        jdbcTemplate.query("SELECT isbn FROM books", (RowCallbackHandler) rs -> context.isbns.put(isbnKey(rs.getString(1))));
+        return context;
+    }
+
+    // Valida la fila y traduce autores y categorías a ids; devuelve null si la fila se rechaza
+    private PendingBook resolve(ImportContext context, int rowNumber, BookImportRow row,
+                                List<BookImportRowResult> results) {
+        String isbn = row.getIsbn() != null ? row.getIsbn().trim() : null;
+        String error = validate(row, isbn);
+
+        PendingBook pending = new PendingBook(rowNumber, row, isbn);
+        if (error == null) {
+            error = resolveRefs(row.getAuthorIds(), row.getAuthors(), context.authorNamesById,
+                context.authorIdsByName, pending.authorIds, pending.authorNames, "Autor no encontrado: ");
+        }
+        if (error == null && pending.authorIds.isEmpty()) {
+            error = "Debe incluir al menos un autor";
+        }
+        if (error == null) {
+            error = resolveRefs(row.getCategoryIds(), row.getCategories(), context.categoryNamesById,
+                context.categoryIdsByName, pending.categoryIds, pending.categoryNames, "Categoría no encontrada: ");
+        }
+        if (error == null && pending.categoryIds.isEmpty()) {
+            error = "Debe incluir al menos una categoría";
+        }
+
+        if (error != null) {
+            results.add(new BookImportRowResult(rowNumber, isbn, BookImportRowResult.INVALID, null, error));
+            return null;
+        }
+        return pending;
+    }
+
+    // Mismas reglas que BookRequest
+    private static String validate(BookImportRow row, String isbn) {
+        if (row.getTitle() == null || row.getTitle().isBlank()) {
+            return "El título es obligatorio";
+        }
+        if (row.getTitle().length() > 255) {
+            return "El título no puede exceder 255 caracteres";
+        }
+        if (isbn == null || isbn.isEmpty()) {
+            return "El ISBN es obligatorio";
+        }
+        if (isbn.length() > 20) {
+            return "El ISBN no puede exceder 20 caracteres";
+        }
+        if (row.getPublicationYear() == null) {
+            return "El año de publicación es obligatorio";
+        }
+        if (row.getTotalCopies() == null) {
+            return "El número total de copias es obligatorio";
+        }
+        if (row.getTotalCopies() < 0 || (row.getAvailableCopies() != null && row.getAvailableCopies() < 0)) {
+            return "El número de copias no puede ser negativo";
+        }
+        return null;
+    }
+
+    private static String resolveRefs(List<Long> ids, List<String> names, Map<Long, String> namesById,
+                                      Map<String, Long> idsByName, List<Long> resolvedIds,
+                                      List<String> resolvedNames, String notFound) {
+        Set<Long> unique = new LinkedHashSet<>();
+        if (ids != null) {
+            for (Long id : ids) {
+                if (id == null || !namesById.containsKey(id)) {
+                    return notFound + id;
+                }
+                unique.add(id);
+            }
+        }
+        if (names != null) {
+            for (String name : names) {
+                if (name == null || name.isBlank()) {
+                    continue;
+                }
+                Long id = idsByName.get(nameKey(name));
+                if (id == null) {
+                    return notFound + name.trim();
+                }
+                unique.add(id);
+            }
+        }
+        for (Long id : unique) {
+            resolvedIds.add(id);
+            resolvedNames.add(namesById.get(id));
+        }
+        return null;
+    }
+
+    private void flush(ImportContext context, List<PendingBook> chunk, List<BookImportRowResult> results) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+
+        // Solo los posibles positivos del filtro de Bloom se consultan en la base de datos
+        Set<String> suspects = chunk.stream()
+            .map(pending -> pending.isbnKey)
+            .filter(context.isbns::mightContain)
+            .collect(Collectors.toSet());
+        Set<String> existing = new HashSet<>();
+        if (!suspects.isEmpty()) {
+            namedJdbcTemplate.query("SELECT isbn FROM books WHERE isbn IN (:isbns)",
+                Map.of("isbns", suspects), (RowCallbackHandler) rs -> existing.add(isbnKey(rs.getString(1))));
+        }
+
+        List<PendingBook> toInsert = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (PendingBook pending : chunk) {
+            if (existing.contains(pending.isbnKey) || !seen.add(pending.isbnKey)) {
+                results.add(new BookImportRowResult(pending.rowNumber, pending.isbn, BookImportRowResult.DUPLICATE,
+                    null, "El ISBN ya está registrado"));
+            } else {
+                toInsert.add(pending);
+            }
+        }
+        chunk.clear();
+        if (toInsert.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<String, Long> ids = transactionTemplate.execute(status -> insertChunk(toInsert));
+            for (PendingBook pending : toInsert) {
+                context.isbns.put(pending.isbnKey);
+                results.add(new BookImportRowResult(pending.rowNumber, pending.isbn, BookImportRowResult.IMPORTED,
+                    ids.get(pending.isbnKey), null));
+            }
+        } catch (DataAccessException e) {
+            String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("Falló la inserción de un bloque de {} libros: {}", toInsert.size(), message);
+            for (PendingBook pending : toInsert) {
+                results.add(new BookImportRowResult(pending.rowNumber, pending.isbn, BookImportRowResult.FAILED,
+                    null, "No se pudo insertar el bloque: " + message));
+            }
+        }
+    }
+
+    private Map<String, Long> insertChunk(List<PendingBook> books) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_BOOK, books, books.size(), (ps, pending) -> {
+            BookImportRow row = pending.row;
+            ps.setString(1, row.getTitle().trim());
+            ps.setString(2, pending.isbn);
+            ps.setString(3, row.getDescription());
+            ps.setObject(4, row.getPublicationYear(), Types.INTEGER);
+            ps.setString(5, row.getPublisher());
+            ps.setString(6, row.getEdition());
+            ps.setString(7, row.getLanguage());
+            ps.setObject(8, row.getPages(), Types.INTEGER);
+            ps.setString(9, row.getCoverImageUrl());
+            ps.setInt(10, pending.totalCopies());
+            ps.setInt(11, pending.availableCopies());
+            ps.setString(12, row.getLocation());
+            ps.setTimestamp(13, now);
+            ps.setTimestamp(14, now);
+        });
+
+        // IDENTITY no devuelve claves en lote de forma portable: se recuperan por ISBN
+        Map<String, Long> ids = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, isbn FROM books WHERE isbn IN (:isbns)",
+            Map.of("isbns", books.stream().map(pending -> pending.isbn).collect(Collectors.toList())),
+            (RowCallbackHandler) rs -> ids.put(isbnKey(rs.getString(2)), rs.getLong(1)));
+
+        List<long[]> bookAuthors = new ArrayList<>();
+        List<long[]> bookCategories = new ArrayList<>();
+        for (PendingBook pending : books) {
+            long bookId = ids.get(pending.isbnKey);
+            pending.authorIds.forEach(authorId -> bookAuthors.add(new long[] {bookId, authorId}));
+            pending.categoryIds.forEach(categoryId -> bookCategories.add(new long[] {bookId, categoryId}));
+        }
+        jdbcTemplate.batchUpdate(INSERT_BOOK_AUTHOR, bookAuthors, CHUNK_SIZE, (ps, pair) -> {
+            ps.setLong(1, pair[0]);
+            ps.setLong(2, pair[1]);
+        });
+        jdbcTemplate.batchUpdate(INSERT_BOOK_CATEGORY, bookCategories, CHUNK_SIZE, (ps, pair) -> {
+            ps.setLong(1, pair[0]);
+            ps.setLong(2, pair[1]);
+        });
+
+        // Los índices en memoria se actualizan tras el commit del bloque
+        for (PendingBook pending : books) {
+            BookImportRow row = pending.row;
+            eventPublisher.publishEvent(CatalogChangeEvent.saved(new BookDocument(ids.get(pending.isbnKey),
+                row.getTitle().trim(), pending.isbn, row.getDescription(),
+                pending.authorIds, pending.authorNames, pending.categoryIds, pending.categoryNames,
+                row.getLanguage(), row.getPublicationYear(), pending.availableCopies(), pending.totalCopies())));
+        }
+        return ids;
+    }
+
+    private RowSource openSource(InputStream input, String format) throws IOException {
+        if ("csv".equalsIgnoreCase(format)) {
+            return new CsvRowSource(new CsvReader(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))));
+        }
+        if ("json".equalsIgnoreCase(format)) {
+            return new JsonRowSource(objectMapper, objectMapper.getFactory().createParser(input));
+        }
+        throw new IllegalArgumentException("Formato de importación no soportado: " + format);
+    }
+
+    private static int countStatus(List<BookImportRowResult> results, String status) {
+        return (int) results.stream().filter(result -> status.equals(result.getStatus())).count();
+    }
+
+    private static String nameKey(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String isbnKey(String isbn) {
+        return isbn.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private interface RowSource extends Closeable {
+        BookImportRow next() throws IOException;
+    }
+
+    // Fila que no se pudo convertir; se informa como inválida y se sigue con la siguiente
+    private static class RowFormatException extends RuntimeException {
+        RowFormatException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Cabecera obligatoria; columnas reconocidas sin distinguir mayúsculas ni guiones bajos:
+     * title, isbn, description, publicationYear, publisher, edition, language, pages,
+     * coverImageUrl, totalCopies, availableCopies, location, authors y categories
+     * (estas dos como nombres separados por punto y coma).
+     */
+    private static class CsvRowSource implements RowSource {
+
+        private final CsvReader reader;
+        private Map<String, Integer> columns;
+
+        CsvRowSource(CsvReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public BookImportRow next() throws IOException {
+            if (columns == null) {
+                List<String> header = reader.next();
+                if (header == null) {
+                    return null;
+                }
+                columns = new HashMap<>();
+                for (int i = 0; i < header.size(); i++) {
+                    columns.put(header.get(i).trim().replace("_", "").toLowerCase(Locale.ROOT), i);
+                }
+            }
+
+            List<String> record = reader.next();
+            if (record == null) {
+                return null;
+            }
+            BookImportRow row = new BookImportRow();
+            row.setTitle(text(record, "title"));
+            row.setIsbn(text(record, "isbn"));
+            row.setDescription(text(record, "description"));
+            row.setPublicationYear(number(record, "publicationyear"));
+            row.setPublisher(text(record, "publisher"));
+            row.setEdition(text(record, "edition"));
+            row.setLanguage(text(record, "language"));
+            row.setPages(number(record, "pages"));
+            row.setCoverImageUrl(text(record, "coverimageurl"));
+            row.setTotalCopies(number(record, "totalcopies"));
+            row.setAvailableCopies(number(record, "availablecopies"));
+            row.setLocation(text(record, "location"));
+            row.setAuthors(list(record, "authors"));
+            row.setCategories(list(record, "categories"));
+            return row;
+        }
+
+        private String text(List<String> record, String column) {
+            Integer index = columns.get(column);
+            if (index == null || index >= record.size()) {
+                return null;
+            }
+            String value = record.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private Integer number(List<String> record, String column) {
+            String value = text(record, column);
+            if (value == null) {
+                return null;
+            }
+            try {
+                return Integer.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new RowFormatException("Valor numérico inválido en " + column + ": " + value);
+            }
+        }
+
+        private List<String> list(List<String> record, String column) {
+            String value = text(record, column);
+            if (value == null) {
+                return null;
+            }
+            return Arrays.stream(value.split(LIST_SEPARATOR))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toList());
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+    // Un arreglo JSON de objetos; cada elemento se lee como árbol para poder saltar los inválidos
+    private static class JsonRowSource implements RowSource {
+
+        private final ObjectMapper objectMapper;
+        private final JsonParser parser;
+        private boolean started;
+
+        JsonRowSource(ObjectMapper objectMapper, JsonParser parser) {
+            this.objectMapper = objectMapper;
+            this.parser = parser;
+        }
+
+        @Override
+        public BookImportRow next() throws IOException {
+            if (!started) {
+                started = true;
+                JsonToken first = parser.nextToken();
+                if (first == null) {
+                    return null;
+                }
+                if (first != JsonToken.START_ARRAY) {
+                    throw new IllegalArgumentException("Se esperaba un arreglo JSON de libros");
+                }
+            }
+            JsonToken token = parser.nextToken();
+            if (token == null || token == JsonToken.END_ARRAY) {
+                return null;
+            }
+            JsonNode node = objectMapper.readTree(parser);
+            try {
+                return objectMapper.treeToValue(node, BookImportRow.class);
+            } catch (JsonProcessingException e) {
+                throw new RowFormatException("Fila inválida: " + e.getOriginalMessage());
+            } catch (IllegalArgumentException e) {
+                throw new RowFormatException("Fila inválida: " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            parser.close();
+        }
+    }
+
+    private static class ImportContext {
+        private final Map<Long, String> authorNamesById = new HashMap<>();
+        private final Map<String, Long> authorIdsByName = new HashMap<>();
+        private final Map<Long, String> categoryNamesById = new HashMap<>();
+        private final Map<String, Long> categoryIdsByName = new HashMap<>();
+        private BloomFilter isbns;
+    }
+
+    private static class PendingBook {
+        private final int rowNumber;
+        private final BookImportRow row;
+        private final String isbn;
+        private final String isbnKey;
+        private final List<Long> authorIds = new ArrayList<>();
+        private final List<String> authorNames = new ArrayList<>();
+        private final List<Long> categoryIds = new ArrayList<>();
+        private final List<String> categoryNames = new ArrayList<>();
+
+        PendingBook(int rowNumber, BookImportRow row, String isbn) {
+            this.rowNumber = rowNumber;
+            this.row = row;
+            this.isbn = isbn;
+            this.isbnKey = isbn != null ? isbnKey(isbn) : null;
+        }
+
+        int totalCopies() {
+            return row.getTotalCopies();
+        }
+
+        int availableCopies() {
+            return row.getAvailableCopies() != null ? row.getAvailableCopies() : row.getTotalCopies();
+        }
+    }
+}
@@ -1,25 +1,67 @@
 package com.digitallibrary.digital_library.services.impl;
  
 
+import com.digitallibrary.digital_library.cache.BookResponseCache;
+import com.digitallibrary.digital_library.cache.CatalogVersion;
+import com.digitallibrary.digital_library.cache.SearchResultCache;
+import com.digitallibrary.digital_library.dtos.request.BookBatchRequest;
 import com.digitallibrary.digital_library.dtos.request.BookRequest;
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
 import com.digitallibrary.digital_library.dtos.response.AuthorResponse;
+import com.digitallibrary.digital_library.dtos.response.BookBatchItem;
 import com.digitallibrary.digital_library.dtos.response.BookResponse;
+import com.digitallibrary.digital_library.dtos.response.BookSummaryResponse;
 import com.digitallibrary.digital_library.dtos.response.CategoryResponse;
+import com.digitallibrary.digital_library.dtos.response.CursorPageResponse;
+import com.digitallibrary.digital_library.dtos.response.FacetsResponse;
+import com.digitallibrary.digital_library.dtos.response.SuggestionResponse;
 import com.digitallibrary.digital_library.models.Author;
 import com.digitallibrary.digital_library.models.Book;
 import com.digitallibrary.digital_library.models.Category;
 import com.digitallibrary.digital_library.repositories.AuthorRepository;
 import com.digitallibrary.digital_library.repositories.BookRepository;
 import com.digitallibrary.digital_library.repositories.CategoryRepository;
+import com.digitallibrary.digital_library.search.AuthorBookIndex;
+import com.digitallibrary.digital_library.search.AuthorNameIndex;
+import com.digitallibrary.digital_library.search.AvailabilityIndex;
+import com.digitallibrary.digital_library.search.BookDocument;
+import com.digitallibrary.digital_library.search.BookTitleFuzzyIndex;
+import com.digitallibrary.digital_library.search.CatalogChangeEvent;
+import com.digitallibrary.digital_library.search.FacetIndex;
+import com.digitallibrary.digital_library.search.FullTextIndex;
+import com.digitallibrary.digital_library.search.FuzzyMatch;
+import com.digitallibrary.digital_library.search.SuggestionIndex;
+import com.digitallibrary.digital_library.search.TextAnalyzer;
 import com.digitallibrary.digital_library.services.BookService;
+import com.digitallibrary.digital_library.utils.CursorUtil;
+import com.digitallibrary.digital_library.utils.OptimisticRetry;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,13 +70,54 @@ public class BookServiceImpl implements BookService {
     private final BookRepository bookRepository;
     private final AuthorRepository authorRepository;
     private final CategoryRepository categoryRepository;
+    private final FullTextIndex fullTextIndex;
+    private final BookTitleFuzzyIndex titleFuzzyIndex;
+    private final AuthorNameIndex authorNameIndex;
+    private final SuggestionIndex suggestionIndex;
+    private final AuthorBookIndex authorBookIndex;
+    private final FacetIndex facetIndex;
+    private final AvailabilityIndex availabilityIndex;
+    private final BookResponseCache bookResponseCache;
+    private final SearchResultCache searchResultCache;
+    private final CatalogVersion catalogVersion;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private static final int MAX_FUZZY_CANDIDATES = 500;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int RELATION_BATCH_SIZE = 1000;
+    private static final int ID_LOOKUP_CHUNK_SIZE = 100;
+    private static final Set<String> CURSOR_FIELDS = Set.of(CursorUtil.ID, "title");
 
     public BookServiceImpl(BookRepository bookRepository,
                           AuthorRepository authorRepository,
-                          CategoryRepository categoryRepository) {
+                          CategoryRepository categoryRepository,
+                          FullTextIndex fullTextIndex,
+                          BookTitleFuzzyIndex titleFuzzyIndex,
+                          AuthorNameIndex authorNameIndex,
+                          SuggestionIndex suggestionIndex,
+                          AuthorBookIndex authorBookIndex,
+                          FacetIndex facetIndex,
+                          AvailabilityIndex availabilityIndex,
+                          BookResponseCache bookResponseCache,
+                          SearchResultCache searchResultCache,
+                          CatalogVersion catalogVersion,
+                          ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager) {
         this.bookRepository = bookRepository;
         this.authorRepository = authorRepository;
         this.categoryRepository = categoryRepository;
+        this.fullTextIndex = fullTextIndex;
+        this.titleFuzzyIndex = titleFuzzyIndex;
+        this.authorNameIndex = authorNameIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.authorBookIndex = authorBookIndex;
+        this.facetIndex = facetIndex;
+        this.availabilityIndex = availabilityIndex;
+        this.bookResponseCache = bookResponseCache;
+        this.searchResultCache = searchResultCache;
+        this.catalogVersion = catalogVersion;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
@@ -59,19 +142,24 @@ public class BookServiceImpl implements BookService {
             bookRequest.getAvailableCopies() : bookRequest.getTotalCopies());
         book.setLocation(bookRequest.getLocation());
  
-        List<Author> authors = authorRepository.findAllById(bookRequest.getAuthorIds());
+        List<Author> authors = authorRepository.loadAllById(bookRequest.getAuthorIds());
         book.setAuthors(authors.stream().collect(Collectors.toSet()));
  
-        List<Category> categories = categoryRepository.findAllById(bookRequest.getCategoryIds());
+        List<Category> categories = categoryRepository.loadAllById(bookRequest.getCategoryIds());
         book.setCategories(categories.stream().collect(Collectors.toSet()));
 
         book = bookRepository.save(book);
+        eventPublisher.publishEvent(CatalogChangeEvent.saved(BookDocument.from(book)));
         return convertToResponse(book);
     }
 
+    // Un préstamo concurrente sube la versión del libro: se reintenta la edición con los datos nuevos
     @Override
-    @Transactional
     public BookResponse updateBook(Long id, BookRequest bookRequest) {
+        return OptimisticRetry.execute(transactionTemplate, status -> applyBookUpdate(id, bookRequest));
+    }
+
+    private BookResponse applyBookUpdate(Long id, BookRequest bookRequest) {
         Book book = bookRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Libro no encontrado"));
  
@@ -92,15 +180,16 @@ public class BookServiceImpl implements BookService {
         book.setTotalCopies(bookRequest.getTotalCopies());
         book.setLocation(bookRequest.getLocation());
  
-        List<Author> authors = authorRepository.findAllById(bookRequest.getAuthorIds());
+        List<Author> authors = authorRepository.loadAllById(bookRequest.getAuthorIds());
         book.getAuthors().clear();
         book.getAuthors().addAll(authors);
  
-        List<Category> categories = categoryRepository.findAllById(bookRequest.getCategoryIds());
+        List<Category> categories = categoryRepository.loadAllById(bookRequest.getCategoryIds());
         book.getCategories().clear();
         book.getCategories().addAll(categories);
 
         book = bookRepository.save(book);
+        eventPublisher.publishEvent(CatalogChangeEvent.saved(BookDocument.from(book)));
         return convertToResponse(book);
     }
 
@@ -115,105 +204,528 @@ public class BookServiceImpl implements BookService {
         }
 
         bookRepository.delete(book);
+        eventPublisher.publishEvent(CatalogChangeEvent.deleted(id));
         return ApiResponse.success("Libro eliminado exitosamente");
     }
 
     @Override
     public BookResponse getBookById(Long id) {
-        Book book = bookRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Libro no encontrado"));
-        return convertToResponse(book);
+        return bookResponseCache.get(id, this::loadBookResponse);
     }
 
     @Override
     public BookResponse getBookByIsbn(String isbn) {
-        Book book = bookRepository.findByIsbn(isbn)
+        return bookResponseCache.getByIsbn(isbn,
+            key -> bookRepository.findIdByIsbn(key)
+                .orElseThrow(() -> new RuntimeException("Libro no encontrado")),
+            this::loadBookResponse);
+    }
+
+    @Override
+    public List<BookBatchItem> getBooksByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un id");
+        }
+        if (ids.size() > BookBatchRequest.MAX_IDS) {
+            throw new IllegalArgumentException("Se admiten como máximo " + BookBatchRequest.MAX_IDS
+                + " ids por consulta");
+        }
+
+        Map<Long, BookResponse> found = loadResponses(ids);
+        return ids.stream()
+            .map(id -> found.containsKey(id) ? BookBatchItem.found(found.get(id)) : BookBatchItem.notFound(id))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<LocalDateTime> getBookLastModified(Long id) {
+        return bookRepository.findLastModifiedById(id);
+    }
+
+    @Override
+    public Optional<LocalDateTime> getBookLastModifiedByIsbn(String isbn) {
+        return bookRepository.findLastModifiedByIsbn(isbn);
+    }
+
+    // Las respuestas ya armadas en la caché de detalle no se vuelven a consultar; las demás se cargan
+    // por bloques y se guardan en ella
+    private Map<Long, BookResponse> loadResponses(Collection<Long> ids) {
+        Map<Long, BookResponse> found = new HashMap<>();
+        List<Long> pending = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(ids)) {
+            if (id == null) {
+                continue;
+            }
+            BookResponse cached = bookResponseCache.getIfPresent(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                pending.add(id);
+            }
+        }
+        if (pending.isEmpty()) {
+            return found;
+        }
+
+        long stamp = bookResponseCache.invalidationStamp();
+        Map<Long, BookResponse> loaded = new HashMap<>();
+        for (int from = 0; from < pending.size(); from += ID_LOOKUP_CHUNK_SIZE) {
+            List<Long> chunk = pending.subList(from, Math.min(from + ID_LOOKUP_CHUNK_SIZE, pending.size()));
+            convertToResponses(bookRepository.findAllById(chunk))
+                .forEach(response -> loaded.put(response.getId(), response));
+        }
+        bookResponseCache.putAllIfUnchanged(loaded, stamp);
+        found.putAll(loaded);
+        return found;
+    }
+
+    private BookResponse loadBookResponse(Long id) {
+        Book book = bookRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Libro no encontrado"));
         return convertToResponse(book);
     }
 
     @Override
     public Page<BookResponse> getAllBooks(Pageable pageable) {
-        return bookRepository.findAll(pageable)
-            .map(this::convertToResponse);
+        return toResponsePage(bookRepository.findAll(pageable));
+    }
+
+    @Override
+    public CursorPageResponse<BookResponse> getAllBooks(String cursor, Pageable pageable) {
+        CursorUtil.Cursor after = CursorUtil.decode(cursor, pageable, CURSOR_FIELDS);
+        PageRequest limit = PageRequest.of(0, pageable.getPageSize() + 1);
+        boolean byTitle = "title".equals(after.getField());
+        List<Book> books;
+        if (byTitle) {
+            books = after.isDescending()
+                ? bookRepository.findNextByTitleDesc(after.getValue(), after.getId(), limit)
+                : bookRepository.findNextByTitle(after.getValue(), after.getId(), limit);
+        } else {
+            books = after.isDescending()
+                ? bookRepository.findNextByIdDesc(after.getId(), limit)
+                : bookRepository.findNextById(after.getId(), limit);
+        }
+        return CursorPageResponse.ofRows(books, pageable.getPageSize(), this::convertToResponses,
+            book -> after.next(byTitle ? book.getTitle() : null, book.getId()));
     }
 
     @Override
     public Page<BookResponse> searchBooks(String title, String author, Long categoryId, 
-                                         Integer publicationYear, String language, Pageable pageable) {
-        return bookRepository.searchBooks(title, author, categoryId, publicationYear, language, pageable)
-            .map(this::convertToResponse);
+                                         Integer publicationYear, String language, Integer tolerance,
+                                         Pageable pageable) {
+        long version = catalogVersion.contentVersion();
+        String key = SearchResultCache.key("books", pageable, lowerCase(title), lowerCase(author), categoryId,
+            publicationYear, lowerCase(language), tolerance);
+        SearchResultCache.Entry cached = searchResultCache.get(key, version);
+        if (cached != null) {
+            return hydrate(cached, pageable);
+        }
+
+        Page<BookResponse> page = searchBooksUncached(title, author, categoryId, publicationYear, language,
+            tolerance, pageable);
+        cacheResult(key, version, page);
+        return page;
+    }
+
+    private Page<BookResponse> searchBooksUncached(String title, String author, Long categoryId,
+                                                  Integer publicationYear, String language, Integer tolerance,
+                                                  Pageable pageable) {
+        Page<BookResponse> exact = toResponsePage(bookRepository.searchBooks(title, author, categoryId, 
+                publicationYear, language, pageable));
+        exact.forEach(response -> response.setFuzzyMatch(false));
+ 
+        boolean hasText = (title != null && !title.isBlank()) || (author != null && !author.isBlank());
+        // Una página posterior a la última también llega vacía: solo se recurre a la búsqueda
+        // aproximada cuando la exacta no encuentra ningún libro
+        if (exact.getTotalElements() > 0 || !hasText || Integer.valueOf(0).equals(tolerance)) {
+            return exact;
+        }
+        return fuzzySearchBooks(title, author, categoryId, publicationYear, language, tolerance, pageable);
+    }
+
+    // Segundo intento cuando la búsqueda exacta no encuentra nada: título y autor por trigramas
+    private Page<BookResponse> fuzzySearchBooks(String title, String author, Long categoryId,
+                                               Integer publicationYear, String language,
+                                               Integer tolerance, Pageable pageable) {
+        FuzzyCandidates candidates = findFuzzyCandidates(title, author, tolerance);
+        if (candidates.ids.isEmpty()) {
+            return Page.empty(pageable);
+        }
+
+        Page<BookResponse> page = toResponsePage(
+            bookRepository.searchBooksByIds(candidates.ids, categoryId, publicationYear, language, pageable));
+        page.forEach(response -> {
+            FuzzyMatch titleMatch = candidates.titleMatches.get(response.getId());
+            boolean fuzzyAuthor = response.getAuthors().stream()
+                .map(a -> candidates.authorMatches.get(a.getId()))
+                .filter(Objects::nonNull)
+                .allMatch(FuzzyMatch::isFuzzy);
+            response.setFuzzyMatch((titleMatch != null && titleMatch.isFuzzy())
+                || (!candidates.authorMatches.isEmpty() && fuzzyAuthor));
+        });
+        return page;
+    }
+
+    private FuzzyCandidates findFuzzyCandidates(String title, String author, Integer tolerance) {
+        Map<Long, FuzzyMatch> titleMatches = new HashMap<>();
+        Map<Long, FuzzyMatch> authorMatches = new HashMap<>();
+        Set<Long> candidateIds = null;
+        if (title != null && !title.isBlank()) {
+            titleMatches = titleFuzzyIndex.search(title, tolerance, MAX_FUZZY_CANDIDATES).stream()
+                .collect(Collectors.toMap(FuzzyMatch::getId, Function.identity()));
+            candidateIds = new HashSet<>(titleMatches.keySet());
+        }
+
+        if (author != null && !author.isBlank() && (candidateIds == null || !candidateIds.isEmpty())) {
+            authorMatches = authorNameIndex.search(author, tolerance, MAX_FUZZY_CANDIDATES).stream()
+                .collect(Collectors.toMap(FuzzyMatch::getId, Function.identity()));
+            List<Long> authorBookIds = authorMatches.isEmpty()
+                ? List.of()
+                : bookRepository.findIdsByAuthorIds(authorMatches.keySet());
+            if (candidateIds == null) {
+                candidateIds = new HashSet<>(authorBookIds);
+            } else {
+                candidateIds.retainAll(authorBookIds);
+            }
+        }
+        return new FuzzyCandidates(candidateIds != null ? candidateIds : Set.of(), titleMatches, authorMatches);
     }
 
     @Override
-    public List<BookResponse> getBooksByAuthor(Long authorId) {
-        return bookRepository.findByAuthorNameContaining("", null) // Se necesita mejorar esta consulta
-            .stream()
-            .filter(book -> book.getAuthors().stream().anyMatch(a -> a.getId().equals(authorId)))
-            .map(this::convertToResponse)
+    public Page<BookResponse> getBooksByAuthor(Long authorId, Pageable pageable) {
+        if (!authorBookIndex.isReady() || pageable.getSort().isSorted()) {
+            return toResponsePage(bookRepository.findByAuthorId(authorId, pageable));
+        }
+
+        // La lista del autor ya está ordenada por id: basta con recortar la página
+        long[] bookIds = authorBookIndex.booksOf(authorId);
+        int from = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), bookIds.length) : 0;
+        int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), bookIds.length) : bookIds.length;
+        List<Long> pageIds = Arrays.stream(bookIds, from, to).boxed().collect(Collectors.toList());
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), pageable, bookIds.length);
+        }
+
+        List<Book> books = bookRepository.findAllById(pageIds).stream()
+            .sorted(Comparator.comparing(Book::getId))
             .collect(Collectors.toList());
+        return new PageImpl<>(convertToResponses(books), pageable, bookIds.length);
     }
 
     @Override
     public List<BookResponse> getBooksByCategory(Long categoryId) {
-        return bookRepository.findByCategoryId(categoryId, null)
-            .stream()
-            .map(this::convertToResponse)
-            .collect(Collectors.toList());
+        return convertToResponses(bookRepository.findByCategoryId(categoryId, null).getContent());
     }
 
     @Override
-    public List<BookResponse> getAvailableBooks() {
-        return bookRepository.findByAvailableCopiesGreaterThan(0, null)
-            .stream()
-            .map(this::convertToResponse)
+    public Page<BookResponse> getAvailableBooks(Pageable pageable) {
+        if (!availabilityIndex.isReady() || pageable.isUnpaged() || pageable.getSort().isSorted()) {
+            return toResponsePage(bookRepository.findByAvailableCopiesGreaterThan(0, pageable));
+        }
+
+        List<Long> pageIds = availablePageIds(pageable);
+        List<Book> books = bookRepository.findAllById(pageIds).stream()
+            .sorted(Comparator.comparing(Book::getId))
             .collect(Collectors.toList());
+        return new PageImpl<>(convertToResponses(books), pageable, availabilityIndex.countAvailable());
     }
 
     @Override
-    public Page<BookResponse> publicSearch(String keyword, String category, String author, Pageable pageable) {
-        return bookRepository.publicSearch(keyword, category, author, pageable)
-            .map(this::convertToResponse);
+    public Page<BookResponse> publicSearch(String keyword, String category, String author,
+                                           boolean availableOnly, Pageable pageable) {
+        // Sin filtro de disponibilidad el resultado no cambia con préstamos y devoluciones
+        long version = availableOnly ? catalogVersion.current() : catalogVersion.contentVersion();
+        boolean ranked = canRankInMemory(availableOnly);
+        String key = ranked
+            ? SearchResultCache.key("public-ranked", pageable, keywordKey(keyword), filterKey(category),
+                filterKey(author), availableOnly)
+            : SearchResultCache.key("public", pageable, lowerCase(keyword), lowerCase(category),
+                lowerCase(author), availableOnly);
+        SearchResultCache.Entry cached = searchResultCache.get(key, version);
+        if (cached != null) {
+            return hydrate(cached, pageable);
+        }
+
+        Page<BookResponse> page = ranked
+            ? rankedPublicSearch(keyword, category, author, availableOnly, pageable)
+            : toResponsePage(bookRepository.publicSearch(keyword, category, author, availableOnly, pageable));
+        cacheResult(key, version, page);
+        return page;
+    }
+
+    private Page<BookResponse> rankedPublicSearch(String keyword, String category, String author,
+                                                  boolean availableOnly, Pageable pageable) {
+
+        List<Long> rankedIds = rankPublicSearch(keyword, category, author, availableOnly);
+        List<Long> pageIds = slice(rankedIds, pageable);
+
+        Map<Long, Book> booksById = bookRepository.findAllById(pageIds).stream()
+            .collect(Collectors.toMap(Book::getId, Function.identity()));
+        List<Book> books = pageIds.stream()
+            .map(booksById::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        return new PageImpl<>(convertToResponses(books), pageable, rankedIds.size());
     }
 
     @Override
     public List<BookResponse> getPopularBooks(int limit, LocalDate startDate, LocalDate endDate) {
-        return bookRepository.findPopularBooks(startDate, endDate, 
-                org.springframework.data.domain.PageRequest.of(0, limit))
-            .stream()
-            .map(this::convertToResponse)
+        return convertToResponses(bookRepository.findPopularBooks(startDate, endDate, 
+                org.springframework.data.domain.PageRequest.of(0, limit)));
+    }
+
+    @Override
+    public List<BookSummaryResponse> getBookSummariesByCategory(Long categoryId) {
+        return withAuthorNames(bookRepository.findSummariesByCategoryId(categoryId));
+    }
+
+    @Override
+    public Page<BookSummaryResponse> getAvailableBookSummaries(Pageable pageable) {
+        if (!availabilityIndex.isReady() || pageable.isUnpaged() || pageable.getSort().isSorted()) {
+            Page<BookSummaryResponse> page = bookRepository.findAvailableSummaries(pageable);
+            withAuthorNames(page.getContent());
+            return page;
+        }
+
+        List<Long> pageIds = availablePageIds(pageable);
+        List<BookSummaryResponse> content = pageIds.isEmpty() ? new ArrayList<>()
+            : bookRepository.findSummariesByIds(pageIds).stream()
+                .sorted(Comparator.comparing(BookSummaryResponse::getId))
+                .collect(Collectors.toList());
+        return new PageImpl<>(withAuthorNames(content), pageable, availabilityIndex.countAvailable());
+    }
+
+    @Override
+    public Page<BookSummaryResponse> publicSearchSummaries(String keyword, String category, String author,
+                                                          boolean availableOnly, Pageable pageable) {
+        if (!canRankInMemory(availableOnly)) {
+            Page<BookSummaryResponse> page = bookRepository.publicSearchSummaries(keyword, category, author,
+                availableOnly, pageable);
+            withAuthorNames(page.getContent());
+            return page;
+        }
+
+        List<Long> rankedIds = rankPublicSearch(keyword, category, author, availableOnly);
+        List<Long> pageIds = slice(rankedIds, pageable);
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(new ArrayList<>(), pageable, rankedIds.size());
+        }
+
+        Map<Long, BookSummaryResponse> summariesById = bookRepository.findSummariesByIds(pageIds).stream()
+            .collect(Collectors.toMap(BookSummaryResponse::getId, Function.identity()));
+        List<BookSummaryResponse> content = pageIds.stream()
+            .map(summariesById::get)
+            .filter(Objects::nonNull)
             .collect(Collectors.toList());
+        return new PageImpl<>(withAuthorNames(content), pageable, rankedIds.size());
+    }
+
+    @Override
+    public List<BookSummaryResponse> getPopularBookSummaries(int limit, LocalDate startDate, LocalDate endDate) {
+        return withAuthorNames(bookRepository.findPopularSummaries(startDate, endDate, PageRequest.of(0, limit)));
     }
 
     @Override
+    public FacetsResponse searchBooksFacets(String title, String author, Long categoryId,
+                                            Integer publicationYear, String language, Integer tolerance) {
+        List<Long> ids = bookRepository.searchBookIds(title, author, categoryId, publicationYear, language);
+        boolean hasText = (title != null && !title.isBlank()) || (author != null && !author.isBlank());
+        if (ids.isEmpty() && hasText && !Integer.valueOf(0).equals(tolerance)) {
+            Set<Long> candidateIds = findFuzzyCandidates(title, author, tolerance).ids;
+            if (!candidateIds.isEmpty()) {
+                ids = bookRepository.searchBookIdsByIds(candidateIds, categoryId, publicationYear, language);
+            }
+        }
+        return facetIndex.isReady() ? facetIndex.count(ids) : null;
+    }
+
+    @Override
+    public FacetsResponse publicSearchFacets(String keyword, String category, String author,
+                                             boolean availableOnly) {
+        if (!facetIndex.isReady()) {
+            return null;
+        }
+        List<Long> ids = canRankInMemory(availableOnly)
+            ? rankPublicSearch(keyword, category, author, availableOnly)
+            : bookRepository.publicSearchIds(keyword, category, author, availableOnly);
+        return facetIndex.count(ids);
+    }
+
+    @Override
+    @Transactional
     public ApiResponse updateBookCopies(Long bookId, Integer copies) {
-        Book book = bookRepository.findById(bookId)
-            .orElseThrow(() -> new RuntimeException("Libro no encontrado"));
+        if (!bookRepository.existsById(bookId)) {
+            throw new RuntimeException("Libro no encontrado");
+        }
 
         if (copies < 0) {
             throw new RuntimeException("El número de copias no puede ser negativo");
         }
 
-        int currentLoans = book.getTotalCopies() - book.getAvailableCopies();
-        if (copies < currentLoans) {
+        // Las copias prestadas se calculan en la misma sentencia que cambia el total
+        if (bookRepository.updateTotalCopies(bookId, copies, LocalDateTime.now()) == 0) {
             throw new RuntimeException("No se puede reducir el número de copias porque hay préstamos activos");
         }
-
-        book.setTotalCopies(copies);
-        book.setAvailableCopies(copies - currentLoans);
-        bookRepository.save(book);
+        bookRepository.findInventoryById(bookId).ifPresent(eventPublisher::publishEvent);
 
         return ApiResponse.success("Copias actualizadas exitosamente");
     }
 
     @Override
     public boolean isBookAvailable(Long bookId) {
-        Book book = bookRepository.findById(bookId)
-            .orElseThrow(() -> new RuntimeException("Libro no encontrado"));
-        return book.getAvailableCopies() > 0;
+        return getBookAvailability(bookId).get("available") == Boolean.TRUE;
+    }
+
+    @Override
+    public Map<String, Object> getBookAvailability(Long bookId) {
+        int[] copies = availabilityIndex.isReady() ? availabilityIndex.copiesOf(bookId) : null;
+        if (copies == null) {
+            Book book = bookRepository.findById(bookId)
+                .orElseThrow(() -> new RuntimeException("Libro no encontrado"));
+            copies = new int[] {book.getAvailableCopies(), book.getTotalCopies()};
+        }
+
+        Map<String, Object> availability = new HashMap<>();
+        availability.put("bookId", bookId);
+        availability.put("availableCopies", copies[0]);
+        availability.put("totalCopies", copies[1]);
+        availability.put("available", copies[0] > 0);
+        return availability;
+    }
+
+    @Override
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        return suggestionIndex.suggest(prefix, Math.min(Math.max(limit, 1), MAX_SUGGESTIONS));
+    }
+
+    private boolean canRankInMemory(boolean availableOnly) {
+        return fullTextIndex.isReady() && (!availableOnly || availabilityIndex.isReady());
+    }
+
+    private List<Long> rankPublicSearch(String keyword, String category, String author, boolean availableOnly) {
+        List<Long> rankedIds = fullTextIndex.search(keyword, category, author);
+        if (!availableOnly) {
+            return rankedIds;
+        }
+        return rankedIds.stream()
+            .filter(availabilityIndex::isAvailable)
+            .collect(Collectors.toList());
+    }
+
+    private List<Long> availablePageIds(Pageable pageable) {
+        return Arrays.stream(availabilityIndex.availableIds(pageable.getOffset(), pageable.getPageSize()))
+            .boxed()
+            .collect(Collectors.toList());
+    }
+
+    private void cacheResult(String key, long version, Page<BookResponse> page) {
+        List<BookResponse> content = page.getContent();
+        List<Long> ids = content.stream().map(BookResponse::getId).collect(Collectors.toList());
+        BitSet fuzzy = null;
+        if (content.stream().anyMatch(response -> response.getFuzzyMatch() != null)) {
+            fuzzy = new BitSet(content.size());
+            for (int i = 0; i < content.size(); i++) {
+                fuzzy.set(i, Boolean.TRUE.equals(content.get(i).getFuzzyMatch()));
+            }
+        }
+        searchResultCache.put(key, version, ids, page.getTotalElements(), fuzzy);
+    }
+
+    // Las respuestas de la caché de detalle se comparten: la marca de coincidencia va en una copia
+    private Page<BookResponse> hydrate(SearchResultCache.Entry entry, Pageable pageable) {
+        long[] ids = entry.getIds();
+        Map<Long, BookResponse> responses = loadResponses(Arrays.stream(ids).boxed().collect(Collectors.toList()));
+        List<BookResponse> content = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            BookResponse response = responses.get(ids[i]);
+            if (response == null) {
+                continue;
+            }
+            Boolean fuzzy = entry.isFuzzy(i);
+            if (fuzzy != null) {
+                response = new BookResponse(response);
+                response.setFuzzyMatch(fuzzy);
+            }
+            content.add(response);
+        }
+        return new PageImpl<>(content, pageable, entry.getTotal());
+    }
+
+    // Las consultas JPQL comparan con LOWER(...) LIKE: solo las mayúsculas dan el mismo resultado
+    private static String lowerCase(String text) {
+        return text == null ? null : text.toLowerCase(Locale.ROOT);
+    }
+
+    // El índice en memoria solo ve los términos analizados y el ISBN sin separadores
+    private static String keywordKey(String keyword) {
+        return keyword == null ? null
+            : String.join(" ", TextAnalyzer.tokenize(keyword)) + "|" + TextAnalyzer.normalizeIsbn(keyword);
+    }
+
+    private static String filterKey(String filter) {
+        return filter == null ? null : TextAnalyzer.normalize(filter.trim());
+    }
+
+    private static <T> List<T> slice(List<T> items, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return items;
+        }
+        int from = (int) Math.min(pageable.getOffset(), items.size());
+        int to = Math.min(from + pageable.getPageSize(), items.size());
+        return items.subList(from, to);
+    }
+
+    private Page<BookResponse> toResponsePage(Page<Book> page) {
+        return new PageImpl<>(convertToResponses(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    // Convierte una lista de libros cargando autores y categorías en bloque (evita el N+1 por fila)
+    private List<BookResponse> convertToResponses(List<Book> books) {
+        if (books.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = books.stream().map(Book::getId).distinct().collect(Collectors.toList());
+        Map<Long, List<Author>> authorsByBook = new HashMap<>();
+        Map<Long, List<Category>> categoriesByBook = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += RELATION_BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + RELATION_BATCH_SIZE, ids.size()));
+            for (Object[] row : bookRepository.findAuthorsByBookIds(chunk)) {
+                authorsByBook.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((Author) row[1]);
+            }
+            for (Object[] row : bookRepository.findCategoriesByBookIds(chunk)) {
+                categoriesByBook.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((Category) row[1]);
+            }
+        }
+        return books.stream()
+            .map(book -> convertToResponse(book,
+                authorsByBook.getOrDefault(book.getId(), List.of()),
+                categoriesByBook.getOrDefault(book.getId(), List.of())))
+            .collect(Collectors.toList());
+    }
+
+    // Completa los nombres de autor de los resúmenes con una consulta por bloque de ids
+    private List<BookSummaryResponse> withAuthorNames(List<BookSummaryResponse> summaries) {
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+        List<Long> ids = summaries.stream().map(BookSummaryResponse::getId).collect(Collectors.toList());
+        Map<Long, List<String>> namesByBook = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += RELATION_BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + RELATION_BATCH_SIZE, ids.size()));
+            for (Object[] row : bookRepository.findAuthorNamesByBookIds(chunk)) {
+                namesByBook.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((String) row[1]);
+            }
+        }
+        summaries.forEach(summary -> summary.setAuthors(namesByBook.getOrDefault(summary.getId(), List.of())));
+        return summaries;
     }
 
     private BookResponse convertToResponse(Book book) {
+        return convertToResponse(book, book.getAuthors(), book.getCategories());
+    }
+
+    private BookResponse convertToResponse(Book book, Collection<Author> bookAuthors,
+                                           Collection<Category> bookCategories) {
         BookResponse response = new BookResponse();
         response.setId(book.getId());
         response.setTitle(book.getTitle());
@@ -231,8 +743,8 @@ public class BookServiceImpl implements BookService {
         response.setCreatedAt(book.getCreatedAt());
         response.setUpdatedAt(book.getUpdatedAt());
  
-        if (book.getAuthors() != null) {
-            List<AuthorResponse> authors = book.getAuthors().stream()
+        if (bookAuthors != null) {
+            List<AuthorResponse> authors = bookAuthors.stream()
                 .map(author -> {
                     AuthorResponse authorResponse = new AuthorResponse();
                     authorResponse.setId(author.getId());
@@ -246,8 +758,8 @@ public class BookServiceImpl implements BookService {
             response.setAuthors(authors);
         }
  
-        if (book.getCategories() != null) {
-            List<CategoryResponse> categories = book.getCategories().stream()
+        if (bookCategories != null) {
+            List<CategoryResponse> categories = bookCategories.stream()
                 .map(category -> {
                     CategoryResponse categoryResponse = new CategoryResponse();
                     categoryResponse.setId(category.getId());
@@ -261,4 +773,17 @@ public class BookServiceImpl implements BookService {
 
         return response;
     }
+
+    private static final class FuzzyCandidates {
+        private final Set<Long> ids;
+        private final Map<Long, FuzzyMatch> titleMatches;
+        private final Map<Long, FuzzyMatch> authorMatches;
+
+        private FuzzyCandidates(Set<Long> ids, Map<Long, FuzzyMatch> titleMatches,
+                                Map<Long, FuzzyMatch> authorMatches) {
+            this.ids = ids;
+            this.titleMatches = titleMatches;
+            this.authorMatches = authorMatches;
+        }
+    }
 }
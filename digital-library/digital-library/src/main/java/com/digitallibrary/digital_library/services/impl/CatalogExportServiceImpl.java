@@ -0,0 +1,155 @@
+package com.digitallibrary.digital_library.services.impl;
+
+import com.digitallibrary.digital_library.models.Book;
+import com.digitallibrary.digital_library.repositories.BookRepository;
+import com.digitallibrary.digital_library.services.CatalogExportService;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Exporta el catálogo completo como NDJSON (un libro por línea). Los libros se leen en
+ * bloques por clave (id mayor que el último exportado) dentro de una transacción de solo
+ * lectura: autores y categorías del bloque se cargan con dos consultas y después se vacía
+ * el contexto de persistencia, así la memoria no crece con el tamaño del catálogo y no
+ * hace falta un cursor del lado del servidor.
+ */
+@Service
+public class CatalogExportServiceImpl implements CatalogExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogExportServiceImpl.class);
+    private static final int CHUNK_SIZE = 500;
+
+    private final BookRepository bookRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    public CatalogExportServiceImpl(BookRepository bookRepository,
+                                    EntityManager entityManager,
+                                    ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportBooksAsNdjson(OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        long exported = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+
+            PageRequest limit = PageRequest.of(0, CHUNK_SIZE);
+            long lastId = 0;
+            List<Book> chunk = bookRepository.findNextById(lastId, limit);
+            while (!chunk.isEmpty()) {
+                lastId = chunk.get(chunk.size() - 1).getId();
+                boolean more = chunk.size() == CHUNK_SIZE;
+                exported += writeChunk(generator, chunk);
+                chunk = more ? bookRepository.findNextById(lastId, limit) : List.of();
+            }
+            generator.writeRaw('\n');
+        } catch (UncheckedIOException e) {
+            // El cliente cerró la conexión a mitad de la exportación
+            throw e.getCause();
+        }
+        log.info("Exportación NDJSON del catálogo: {} libros en {} ms", exported, System.currentTimeMillis() - start);
+        return exported;
+    }
+
+    private int writeChunk(JsonGenerator generator, List<Book> chunk) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = chunk.stream().map(Book::getId).collect(Collectors.toList());
+        Map<Long, List<Object[]>> authorsByBook = groupByBook(bookRepository.findAuthorRefsByBookIds(ids));
+        Map<Long, List<Object[]>> categoriesByBook = groupByBook(bookRepository.findCategoryRefsByBookIds(ids));
+
+        try {
+            for (Book book : chunk) {
+                writeBook(generator, book,
+                    authorsByBook.getOrDefault(book.getId(), List.of()),
+                    categoriesByBook.getOrDefault(book.getId(), List.of()));
+            }
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        entityManager.clear();
+        return chunk.size();
+    }
+
+    private void writeBook(JsonGenerator generator, Book book,
+                           List<Object[]> authors, List<Object[]> categories) throws IOException {
+        generator.writeStartObject();
+        generator.writeNumberField("id", book.getId());
+        writeString(generator, "title", book.getTitle());
+        writeString(generator, "isbn", book.getIsbn());
+        writeString(generator, "description", book.getDescription());
+        writeNumber(generator, "publicationYear", book.getPublicationYear());
+        writeString(generator, "publisher", book.getPublisher());
+        writeString(generator, "edition", book.getEdition());
+        writeString(generator, "language", book.getLanguage());
+        writeNumber(generator, "pages", book.getPages());
+        writeString(generator, "coverImageUrl", book.getCoverImageUrl());
+        writeNumber(generator, "totalCopies", book.getTotalCopies());
+        writeNumber(generator, "availableCopies", book.getAvailableCopies());
+        writeString(generator, "location", book.getLocation());
+        writeString(generator, "createdAt", book.getCreatedAt() != null ? book.getCreatedAt().toString() : null);
+        writeString(generator, "updatedAt", book.getUpdatedAt() != null ? book.getUpdatedAt().toString() : null);
+        writeRefs(generator, "authors", authors);
+        writeRefs(generator, "categories", categories);
+        generator.writeEndObject();
+    }
+
+    private void writeRefs(JsonGenerator generator, String field, List<Object[]> refs) throws IOException {
+        generator.writeArrayFieldStart(field);
+        for (Object[] ref : refs) {
+            generator.writeStartObject();
+            generator.writeNumberField("id", (Long) ref[1]);
+            writeString(generator, "name", (String) ref[2]);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    // Igual que la configuración de Jackson de la API: los nulos no se escriben
+    private static void writeString(JsonGenerator generator, String field, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(field, value);
+        }
+    }
+
+    private static void writeNumber(JsonGenerator generator, String field, Integer value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(field, value);
+        }
+    }
+
+    private static Map<Long, List<Object[]>> groupByBook(List<Object[]> rows) {
+        Map<Long, List<Object[]>> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            grouped.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add(row);
+        }
+        return grouped;
+    }
+}
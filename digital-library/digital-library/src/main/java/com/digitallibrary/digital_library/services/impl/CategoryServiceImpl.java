@@ -7,7 +7,9 @@ import com.digitallibrary.digital_library.exceptions.DuplicateResourceException;
 import com.digitallibrary.digital_library.exceptions.ResourceNotFoundException;
 import com.digitallibrary.digital_library.models.Category;
 import com.digitallibrary.digital_library.repositories.CategoryRepository;
+import com.digitallibrary.digital_library.search.CategoryChangeEvent;
 import com.digitallibrary.digital_library.services.CategoryService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -22,9 +24,12 @@ import java.util.stream.Collectors;
 public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public CategoryServiceImpl(CategoryRepository categoryRepository) {
+    public CategoryServiceImpl(CategoryRepository categoryRepository,
+                               ApplicationEventPublisher eventPublisher) {
         this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -60,6 +65,7 @@ public class CategoryServiceImpl implements CategoryService {
         category.setDescription(categoryRequest.getDescription());
         
         category = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangeEvent(category.getId()));
         return convertToResponse(category);
     }
 
@@ -78,6 +84,7 @@ public class CategoryServiceImpl implements CategoryService {
         category.setDescription(categoryRequest.getDescription());
         
         category = categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangeEvent(category.getId()));
         return convertToResponse(category);
     }
 
@@ -92,6 +99,7 @@ public class CategoryServiceImpl implements CategoryService {
         }
         
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CategoryChangeEvent(id));
         return ApiResponse.success("Categoría eliminada exitosamente");
     }
 
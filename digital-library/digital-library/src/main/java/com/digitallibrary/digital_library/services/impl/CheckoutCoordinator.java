@@ -0,0 +1,231 @@
+package com.digitallibrary.digital_library.services.impl;
+
+import com.digitallibrary.digital_library.dtos.request.LoanRequest;
+import com.digitallibrary.digital_library.dtos.response.LoanResponse;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Agrupa los préstamos simultáneos de un mismo libro. Las solicitudes se encolan en una franja
+ * elegida por id de libro y un hilo propio del coordinador vacía la franja: cada pasada toma como
+ * mucho {@code MAX_BATCH} solicitudes, entrega cada grupo de un libro al {@link BatchHandler} en
+ * orden de llegada y, si quedan más, vuelve a encolar la franja detrás de las demás. Los hilos de
+ * las peticiones solo esperan su resultado, con un tiempo máximo, sin ocupar una conexión.
+ */
+final class CheckoutCoordinator {
+
+    private static final int STRIPES = 64;
+    private static final int MAX_BATCH = 100;
+    private static final int DRAIN_THREADS = 4;
+    private static final long WAIT_TIMEOUT_MS = 10_000;
+
+    /**
+     * Procesa en una transacción las solicitudes de un libro. Debe resolver cada una con
+     * {@link Checkout#grant} o {@link Checkout#reject}; las que queden pendientes se rechazan.
+     */
+    interface BatchHandler {
+        void process(Long bookId, List<Checkout> batch);
+    }
+
+    static final class Checkout {
+        private static final int PENDING = 0;
+        private static final int TAKEN = 1;
+        private static final int WITHDRAWN = 2;
+
+        private final LoanRequest request;
+        private final CompletableFuture<Granted> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private Checkout(LoanRequest request) {
+            this.request = request;
+        }
+
+        LoanRequest getRequest() {
+            return request;
+        }
+
+        /**
+         * Concede el préstamo. {@code afterGrant}, si no es nulo, se ejecuta en el hilo del
+         * solicitante, fuera de la transacción y del hilo que procesa el grupo.
+         */
+        void grant(LoanResponse response, Runnable afterGrant) {
+            result.complete(new Granted(response, afterGrant));
+        }
+
+        void reject(RuntimeException reason) {
+            result.completeExceptionally(reason);
+        }
+
+        boolean isDone() {
+            return result.isDone();
+        }
+
+        // El coordinador y el solicitante que deja de esperar compiten por la solicitud
+        private boolean take() {
+            return state.compareAndSet(PENDING, TAKEN);
+        }
+
+        private boolean withdraw() {
+            return state.compareAndSet(PENDING, WITHDRAWN);
+        }
+    }
+
+    private record Granted(LoanResponse response, Runnable afterGrant) {
+    }
+
+    private static final class Stripe {
+        private final Queue<Checkout> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final BatchHandler handler;
+    private final ExecutorService drainer;
+    private final long waitTimeoutMs;
+
+    CheckoutCoordinator(BatchHandler handler) {
+        this(handler, DRAIN_THREADS, WAIT_TIMEOUT_MS);
+    }
+
+    CheckoutCoordinator(BatchHandler handler, int drainThreads, long waitTimeoutMs) {
+        this.handler = handler;
+        this.waitTimeoutMs = waitTimeoutMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.drainer = Executors.newFixedThreadPool(drainThreads, runnable -> {
+            Thread thread = new Thread(runnable, "checkout-drain-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    LoanResponse checkout(LoanRequest request) {
+        Checkout checkout = new Checkout(request);
+        Stripe stripe = stripes[Math.floorMod(Long.hashCode(request.getBookId()), STRIPES)];
+        stripe.pending.add(checkout);
+        schedule(stripe);
+
+        Granted granted = await(checkout);
+        if (granted.afterGrant() != null) {
+            granted.afterGrant().run();
+        }
+        return granted.response();
+    }
+
+    void shutdown() {
+        drainer.shutdownNow();
+    }
+
+    // Si el tiempo se agota antes de que el coordinador tome la solicitud, se retira y nunca se
+    // procesa; si ya está en una transacción se espera a su resultado para no perder un préstamo
+    private Granted await(Checkout checkout) {
+        boolean interrupted = false;
+        try {
+            try {
+                return checkout.result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (checkout.withdraw()) {
+                    throw new IllegalStateException("La solicitud de préstamo no se pudo atender a tiempo");
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                if (checkout.withdraw()) {
+                    throw new IllegalStateException("La solicitud de préstamo se interrumpió");
+                }
+            }
+            while (true) {
+                try {
+                    return checkout.result.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void schedule(Stripe stripe) {
+        if (stripe.scheduled.compareAndSet(false, true)) {
+            try {
+                drainer.execute(() -> drain(stripe));
+            } catch (RejectedExecutionException e) {
+                stripe.scheduled.set(false);
+                rejectPending(stripe, new IllegalStateException("El servicio de préstamos se está deteniendo"));
+            }
+        }
+    }
+
+    // Una sola pasada por franja: tras soltarla se vuelve a mirar la cola, porque una solicitud que
+    // llegó mientras se procesaba no pudo programarla y depende de esta comprobación
+    private void drain(Stripe stripe) {
+        try {
+            Map<Long, List<Checkout>> byBook = new LinkedHashMap<>();
+            int taken = 0;
+            Checkout checkout;
+            while (taken < MAX_BATCH && (checkout = stripe.pending.poll()) != null) {
+                if (checkout.take()) {
+                    byBook.computeIfAbsent(checkout.request.getBookId(), k -> new ArrayList<>()).add(checkout);
+                    taken++;
+                }
+            }
+            for (Map.Entry<Long, List<Checkout>> entry : byBook.entrySet()) {
+                process(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            stripe.scheduled.set(false);
+        }
+        if (!stripe.pending.isEmpty()) {
+            schedule(stripe);
+        }
+    }
+
+    private void process(Long bookId, List<Checkout> batch) {
+        RuntimeException failure = null;
+        try {
+            handler.process(bookId, batch);
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            RuntimeException reason = failure != null ? failure
+                : new IllegalStateException("La solicitud de préstamo no se procesó");
+            for (Checkout checkout : batch) {
+                if (!checkout.isDone()) {
+                    checkout.reject(reason);
+                }
+            }
+        }
+    }
+
+    private void rejectPending(Stripe stripe, RuntimeException reason) {
+        Checkout checkout;
+        while ((checkout = stripe.pending.poll()) != null) {
+            if (checkout.take()) {
+                checkout.reject(reason);
+            }
+        }
+    }
+}
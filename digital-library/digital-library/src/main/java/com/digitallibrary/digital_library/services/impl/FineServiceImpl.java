@@ -0,0 +1,192 @@
+package com.digitallibrary.digital_library.services.impl;
+
+import com.digitallibrary.digital_library.config.SchedulingConfig;
+import com.digitallibrary.digital_library.events.LoanChangeEvent;
+import com.digitallibrary.digital_library.models.enums.LoanStatus;
+import com.digitallibrary.digital_library.repositories.LoanRepository;
+import com.digitallibrary.digital_library.services.FineService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+public class FineServiceImpl implements FineService {
+
+    private static final Logger log = LoggerFactory.getLogger(FineServiceImpl.class);
+
+    private static final double DAILY_FINE = 1.0;
+    private static final int ACCRUAL_CHUNK_SIZE = 5000;
+    // Media hora después de cada paso a OVERDUE, para cargar ya los préstamos recién vencidos
+    private static final String ACCRUAL_CRON = "0 35 0-5 * * *";
+
+    private static final String INSERT_ENTRY = "INSERT INTO fine_ledger (loan_id, user_id, accrual_date, amount, " +
+        "created_at) VALUES (?, ?, ?, ?, ?)";
+    private static final String UPSERT_BALANCE = "INSERT INTO fine_balances (user_id, balance, updated_at) " +
+        "VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE balance = balance + VALUES(balance), updated_at = VALUES(updated_at)";
+    private static final String UPDATE_LOAN_FINE = "UPDATE loans SET fine_amount = ? WHERE id = ?";
+    // Multas anteriores al libro de multas: un movimiento por préstamo y el saldo de cada usuario
+    private static final String BACKFILL_LEDGER = "INSERT INTO fine_ledger (loan_id, user_id, accrual_date, amount, " +
+        "created_at) SELECT id, user_id, COALESCE(return_date, CURRENT_DATE), fine_amount, CURRENT_TIMESTAMP " +
+        "FROM loans WHERE fine_amount > 0";
+    private static final String BACKFILL_BALANCES = "INSERT INTO fine_balances (user_id, balance, updated_at) " +
+        "SELECT user_id, SUM(fine_amount), CURRENT_TIMESTAMP FROM loans WHERE fine_amount > 0 GROUP BY user_id";
+
+    private final LoanRepository loanRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    // Punto de reanudación del devengo: día en curso y último id confirmado
+    private LocalDate accrualRunDate;
+    private long accrualResumeAfterId;
+
+    public FineServiceImpl(LoanRepository loanRepository,
+                           JdbcTemplate jdbcTemplate,
+                           ApplicationEventPublisher eventPublisher,
+                           PlatformTransactionManager transactionManager) {
+        this.loanRepository = loanRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public double fineFor(LocalDate dueDate, LocalDate date) {
+        long daysOverdue = ChronoUnit.DAYS.between(dueDate, date);
+        return daysOverdue > 0 ? daysOverdue * DAILY_FINE : 0.0;
+    }
+
+    // Solo con el libro de multas vacío, es decir, la primera vez que arranca una base de datos con
+    // multas de antes de que existiera: con movimientos ya registrados no se vuelve a cargar nada.
+    // Si otra instancia lo hace a la vez, la clave primaria de fine_balances hace fallar la segunda
+    // transacción completa.
+    @Override
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillBalances() {
+        try {
+            int[] rows = transactionTemplate.execute(status -> {
+                Long entries = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fine_ledger", Long.class);
+                Long balances = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fine_balances", Long.class);
+                if (entries == null || entries > 0 || balances == null || balances > 0) {
+                    return null;
+                }
+                return new int[] {jdbcTemplate.update(BACKFILL_LEDGER), jdbcTemplate.update(BACKFILL_BALANCES)};
+            });
+            if (rows != null && rows[0] > 0) {
+                log.info("Multas anteriores al libro de multas: {} movimientos, {} saldos", rows[0], rows[1]);
+            }
+        } catch (RuntimeException e) {
+            log.warn("No se pudieron cargar los saldos de multas anteriores: {}", e.getMessage());
+        }
+    }
+
+    // Un movimiento por cargo y un solo ajuste de saldo por usuario, ambos en lotes JDBC; los
+    // saldos se actualizan en orden de usuario para que dos lotes no se bloqueen mutuamente
+    @Override
+    @Transactional
+    public void recordCharges(List<Charge> charges, LocalDate date) {
+        if (charges.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, charges, charges.size(), (ps, charge) -> {
+            ps.setLong(1, charge.getLoanId());
+            ps.setLong(2, charge.getUserId());
+            ps.setDate(3, Date.valueOf(date));
+            ps.setDouble(4, charge.getAmount());
+            ps.setTimestamp(5, now);
+        });
+
+        Map<Long, Double> byUser = new TreeMap<>();
+        for (Charge charge : charges) {
+            byUser.merge(charge.getUserId(), charge.getAmount(), Double::sum);
+        }
+        List<Map.Entry<Long, Double>> balances = new ArrayList<>(byUser.entrySet());
+        jdbcTemplate.batchUpdate(UPSERT_BALANCE, balances, balances.size(), (ps, balance) -> {
+            ps.setLong(1, balance.getKey());
+            ps.setDouble(2, balance.getValue());
+            ps.setTimestamp(3, now);
+        });
+    }
+
+    // Carga a cada préstamo vencido lo que le falta hasta la multa del día, en bloques de
+    // ACCRUAL_CHUNK_SIZE préstamos por transacción recorridos por id. Un préstamo ya cargado hoy
+    // no genera movimiento, así que repetir la ejecución no duplica cargos.
+    @Override
+    @Scheduled(cron = ACCRUAL_CRON, scheduler = SchedulingConfig.BATCH_SCHEDULER)
+    public synchronized void accrueDailyFines() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(accrualRunDate)) {
+            accrualRunDate = today;
+            accrualResumeAfterId = 0L;
+        }
+
+        long started = System.nanoTime();
+        long rows = 0;
+        int chunks = 0;
+        try {
+            while (true) {
+                long afterId = accrualResumeAfterId;
+                long[] chunk = transactionTemplate.execute(status -> accrueChunk(today, afterId));
+                if (chunk == null) {
+                    break;
+                }
+                accrualResumeAfterId = chunk[0];
+                rows += chunk[1];
+                chunks++;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Devengo de multas interrumpido tras el préstamo {}: {}", accrualResumeAfterId, e.getMessage());
+        }
+
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        log.info("Devengo de multas: {} cargos en {} bloques, {} s ({} filas/s)", rows, chunks,
+            String.format("%.2f", seconds), seconds > 0 ? Math.round(rows / seconds) : rows);
+    }
+
+    // Último id del bloque y cargos registrados, o null si no quedan préstamos vencidos
+    private long[] accrueChunk(LocalDate today, long afterId) {
+        List<Object[]> loans = loanRepository.findOverdueForAccrual(afterId, PageRequest.of(0, ACCRUAL_CHUNK_SIZE));
+        if (loans.isEmpty()) {
+            return null;
+        }
+        List<Charge> charges = new ArrayList<>();
+        List<Object[]> fines = new ArrayList<>();
+        for (Object[] row : loans) {
+            Long loanId = (Long) row[0];
+            Long userId = (Long) row[1];
+            double accrued = row[4] == null ? 0.0 : (Double) row[4];
+            double fine = fineFor((LocalDate) row[3], today);
+            if (fine > accrued) {
+                charges.add(new Charge(loanId, userId, fine - accrued));
+                fines.add(new Object[] {fine, loanId});
+                eventPublisher.publishEvent(new LoanChangeEvent(loanId, userId, (Long) row[2],
+                    LoanStatus.OVERDUE, LoanStatus.OVERDUE));
+            }
+        }
+        if (!fines.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_LOAN_FINE, fines);
+            recordCharges(charges, today);
+        }
+        return new long[] {(Long) loans.get(loans.size() - 1)[0], charges.size()};
+    }
+}
@@ -1,80 +1,396 @@
 package com.digitallibrary.digital_library.services.impl;
 
+import com.digitallibrary.digital_library.cache.BorrowerEligibility;
+import com.digitallibrary.digital_library.cache.BorrowerEligibilityCache;
+import com.digitallibrary.digital_library.cache.LibraryCounters;
+import com.digitallibrary.digital_library.config.SchedulingConfig;
+import com.digitallibrary.digital_library.dtos.request.BulkLoanRequest;
+import com.digitallibrary.digital_library.dtos.request.BulkReturnRequest;
 import com.digitallibrary.digital_library.dtos.request.LoanRequest;
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
+import com.digitallibrary.digital_library.dtos.response.BulkLoanItem;
+import com.digitallibrary.digital_library.dtos.response.CursorPageResponse;
 import com.digitallibrary.digital_library.dtos.response.LoanResponse;
+import com.digitallibrary.digital_library.events.LoanChangeEvent;
+import com.digitallibrary.digital_library.exceptions.BookNotAvailableException;
 import com.digitallibrary.digital_library.models.Book;
 import com.digitallibrary.digital_library.models.Loan;
 import com.digitallibrary.digital_library.models.User;
 import com.digitallibrary.digital_library.models.enums.LoanStatus;
 import com.digitallibrary.digital_library.repositories.BookRepository;
 import com.digitallibrary.digital_library.repositories.LoanRepository;
+import com.digitallibrary.digital_library.repositories.ReservationRepository;
 import com.digitallibrary.digital_library.repositories.UserRepository;
+import com.digitallibrary.digital_library.search.InventoryChangeEvent;
 import com.digitallibrary.digital_library.services.EmailService;
+import com.digitallibrary.digital_library.services.FineService;
 import com.digitallibrary.digital_library.services.LoanService;
+import com.digitallibrary.digital_library.utils.CursorUtil;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.sql.Date;
+import java.sql.Timestamp;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class LoanServiceImpl implements LoanService {
 
+    private static final Logger log = LoggerFactory.getLogger(LoanServiceImpl.class);
+
     private final LoanRepository loanRepository;
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
+    private final ReservationRepository reservationRepository;
     private final EmailService emailService;
+    private final FineService fineService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BorrowerEligibilityCache borrowerEligibilityCache;
+    private final LibraryCounters libraryCounters;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final CheckoutCoordinator checkoutCoordinator = new CheckoutCoordinator(this::checkoutBatch);
+
+    // Punto de reanudación del paso a OVERDUE: día en curso y último id confirmado
+    private LocalDate overdueRunDate;
+    private long overdueResumeAfterId;
     private static final int MAX_RENEWALS = 2;
+    private static final int MAX_ACTIVE_LOANS = 5;
+    private static final int RESERVATION_BATCH_SIZE = 1000;
+    private static final int OVERDUE_CHUNK_SIZE = 5000;
+    // Cada hora entre las 00:05 y las 05:05: las ejecuciones posteriores del día reanudan la primera
+    private static final String OVERDUE_CRON = "0 5 0-5 * * *";
     private static final int LOAN_DURATION_DAYS = 14;
+    private static final Set<String> CURSOR_FIELDS = Set.of(CursorUtil.ID, "loanDate");
+
+    private static final String INSERT_LOAN = "INSERT INTO loans (user_id, book_id, loan_date, due_date, status, " +
+        "renewals_count, fine_amount, notes, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
     public LoanServiceImpl(LoanRepository loanRepository,
                           UserRepository userRepository,
                           BookRepository bookRepository,
-                          EmailService emailService) {
+                          ReservationRepository reservationRepository,
+                          EmailService emailService,
+                          FineService fineService,
+                          ApplicationEventPublisher eventPublisher,
+                          BorrowerEligibilityCache borrowerEligibilityCache,
+                          LibraryCounters libraryCounters,
+                          PlatformTransactionManager transactionManager,
+                          JdbcTemplate jdbcTemplate) {
         this.loanRepository = loanRepository;
         this.userRepository = userRepository;
         this.bookRepository = bookRepository;
+        this.reservationRepository = reservationRepository;
         this.emailService = emailService;
+        this.fineService = fineService;
+        this.eventPublisher = eventPublisher;
+        this.borrowerEligibilityCache = borrowerEligibilityCache;
+        this.libraryCounters = libraryCounters;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
     }
 
+    // Los préstamos simultáneos de un mismo libro se resuelven juntos en checkoutBatch
     @Override
-    @Transactional
     public LoanResponse createLoan(LoanRequest loanRequest) {
-        User user = userRepository.findById(loanRequest.getUserId())
-            .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        if (loanRequest.getBookId() == null) {
+            throw new IllegalArgumentException("Debe indicar el libro");
+        }
+        return checkoutCoordinator.checkout(loanRequest);
+    }
 
-        Book book = bookRepository.findById(loanRequest.getBookId())
-            .orElseThrow(() -> new RuntimeException("Libro no encontrado"));
- 
-        if (!user.getIsActive()) {
-            throw new RuntimeException("El usuario no está activo");
+    @PreDestroy
+    public void stopCheckouts() {
+        checkoutCoordinator.shutdown();
+    }
+
+    // Una transacción por grupo: se bloquean los usuarios, se validan las solicitudes en orden de
+    // llegada, se bloquea la fila del libro una sola vez y se reparten las copias; las que no
+    // alcanzan se rechazan al momento. El aviso de cada préstamo se prepara dentro de la
+    // transacción y lo envía el hilo del solicitante tras el commit, sin retener el hilo que
+    // procesa los grupos.
+    private void checkoutBatch(Long bookId, List<CheckoutCoordinator.Checkout> batch) {
+        List<CheckoutCoordinator.Checkout> grantedCheckouts = new ArrayList<>();
+        List<Runnable> confirmations = new ArrayList<>();
+        List<LoanResponse> responses = transactionTemplate.execute(status -> {
+            Map<Long, User> lockedUsers = lockBorrowers(batch.stream()
+                .map(checkout -> checkout.getRequest().getUserId())
+                .collect(Collectors.toList()));
+            Map<Long, Long> activeLoans = activeLoanCounts(lockedUsers.keySet());
+            Set<Long> holdingBook = lockedUsers.isEmpty() ? Set.of()
+                : new HashSet<>(loanRepository.findUserIdsWithActiveLoan(bookId, lockedUsers.keySet()));
+
+            List<CheckoutCoordinator.Checkout> valid = new ArrayList<>();
+            List<User> users = new ArrayList<>();
+            for (CheckoutCoordinator.Checkout checkout : batch) {
+                Long userId = checkout.getRequest().getUserId();
+                try {
+                    validateBorrower(lockedUsers.containsKey(userId) ? userId : null,
+                        activeLoans.getOrDefault(userId, 0L), holdingBook.contains(userId),
+                        valid.stream().filter(other -> other.getRequest().getUserId().equals(userId)).count());
+                    users.add(lockedUsers.get(userId));
+                    valid.add(checkout);
+                } catch (RuntimeException e) {
+                    checkout.reject(e);
+                }
+            }
+            if (valid.isEmpty()) {
+                return List.of();
+            }
+
+            Book book = bookRepository.findByIdForUpdate(bookId).orElse(null);
+            if (book == null) {
+                valid.forEach(checkout -> checkout.reject(new RuntimeException("Libro no encontrado")));
+                return List.of();
+            }
+            int granted = Math.max(0, Math.min(valid.size(), book.getAvailableCopies()));
+            for (int i = granted; i < valid.size(); i++) {
+                valid.get(i).reject(new BookNotAvailableException(bookId));
+            }
+            if (granted == 0) {
+                return List.of();
+            }
+
+            book.setAvailableCopies(book.getAvailableCopies() - granted);
+            bookRepository.saveAndFlush(book);
+            eventPublisher.publishEvent(InventoryChangeEvent.of(book));
+
+            boolean reserved = reservationRepository.existsOpenByBookId(bookId);
+            List<LoanResponse> created = new ArrayList<>();
+            for (int i = 0; i < granted; i++) {
+                Loan loan = loanRepository.save(newLoan(valid.get(i).getRequest(), users.get(i), book));
+                eventPublisher.publishEvent(new LoanChangeEvent(loan.getId(), loan.getUser().getId(), bookId,
+                    null, LoanStatus.ACTIVE));
+                grantedCheckouts.add(valid.get(i));
+                confirmations.add(loanConfirmation(loan.getUser().getEmail(), book.getTitle(), loan.getDueDate()));
+                created.add(convertToResponse(loan, reserved));
+            }
+            return created;
+        });
+
+        for (int i = 0; i < grantedCheckouts.size(); i++) {
+            grantedCheckouts.get(i).grant(responses.get(i), confirmations.get(i));
         }
- 
-        if (book.getAvailableCopies() <= 0) {
-            throw new RuntimeException("El libro no está disponible");
+    }
+
+    private Runnable loanConfirmation(String email, String title, LocalDate dueDate) {
+        return () -> {
+            try {
+                emailService.sendLoanConfirmation(email, title, dueDate);
+            } catch (Exception e) {
+                log.warn("No se pudo enviar la confirmación del préstamo a {}: {}", email, e.getMessage());
+            }
+        };
+    }
+
+    // Varios libros para un mismo usuario en una transacción: una sola comprobación del usuario,
+    // las filas de los libros bloqueadas en orden de id y los préstamos insertados en un lote JDBC.
+    // Un libro que no se puede prestar se rechaza sin afectar a los demás.
+    @Override
+    public List<BulkLoanItem> createLoans(BulkLoanRequest request) {
+        Long userId = request.getUserId();
+        List<Loan> granted = new ArrayList<>();
+        List<BulkLoanItem> results = transactionTemplate.execute(status -> {
+            Map<Long, User> lockedUsers = lockBorrowers(userId == null ? List.of() : List.of(userId));
+            BorrowerEligibility eligibility = lockedUsers.isEmpty() ? null : eligibilityOf(userId);
+            checkBorrowerStatus(eligibility);
+            long activeLoans = activeLoanCounts(lockedUsers.keySet()).getOrDefault(userId, 0L);
+
+            Set<Long> requested = request.getBookIds().stream()
+                .filter(bookId -> bookId != null)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+            Set<Long> alreadyLoaned = activeLoans == 0 || requested.isEmpty() ? Set.of()
+                : loanRepository.findActiveByUserIdAndBookIds(userId, requested).stream()
+                    .map(loan -> loan.getBook().getId())
+                    .collect(Collectors.toSet());
+            Map<Long, Book> books = requested.isEmpty() ? Map.of()
+                : bookRepository.findAllByIdForUpdate(requested).stream()
+                    .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+            long slots = MAX_ACTIVE_LOANS - activeLoans;
+            BulkLoanItem[] items = new BulkLoanItem[request.getBookIds().size()];
+            List<Book> toLend = new ArrayList<>();
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i < items.length; i++) {
+                Long bookId = request.getBookIds().get(i);
+                Book book = bookId == null ? null : books.get(bookId);
+                if (bookId == null) {
+                    items[i] = BulkLoanItem.failure(null, "Debe indicar el libro");
+                } else if (!seen.add(bookId)) {
+                    items[i] = BulkLoanItem.failure(bookId, "El libro está repetido en la solicitud");
+                } else if (book == null) {
+                    items[i] = BulkLoanItem.failure(bookId, "Libro no encontrado");
+                } else if (alreadyLoaned.contains(bookId)) {
+                    items[i] = BulkLoanItem.failure(bookId, "El usuario ya tiene un préstamo activo de este libro");
+                } else if (toLend.size() >= slots) {
+                    items[i] = BulkLoanItem.failure(bookId, "El usuario ha alcanzado el límite de préstamos");
+                } else if (book.getAvailableCopies() <= 0) {
+                    items[i] = BulkLoanItem.failure(bookId, new BookNotAvailableException(bookId).getMessage());
+                } else {
+                    toLend.add(book);
+                }
+            }
+
+            if (!toLend.isEmpty()) {
+                LocalDate loanDate = LocalDate.now();
+                LocalDate dueDate = request.getDueDate() != null
+                    ? request.getDueDate() : loanDate.plusDays(LOAN_DURATION_DAYS);
+                insertLoans(userId, toLend, loanDate, dueDate, request.getNotes());
+                for (Book book : toLend) {
+                    book.setAvailableCopies(book.getAvailableCopies() - 1);
+                }
+                bookRepository.saveAllAndFlush(toLend);
+                toLend.forEach(book -> eventPublisher.publishEvent(InventoryChangeEvent.of(book)));
+
+                Map<Long, Loan> created = loanRepository.findActiveByUserIdAndBookIds(userId,
+                        toLend.stream().map(Book::getId).collect(Collectors.toList())).stream()
+                    .collect(Collectors.toMap(loan -> loan.getBook().getId(), Function.identity()));
+                Set<Long> reserved = reservedBookIds(new ArrayList<>(created.values()));
+                for (int i = 0; i < items.length; i++) {
+                    if (items[i] == null) {
+                        Loan loan = created.get(request.getBookIds().get(i));
+                        eventPublisher.publishEvent(new LoanChangeEvent(loan.getId(), userId,
+                            loan.getBook().getId(), null, LoanStatus.ACTIVE));
+                        granted.add(loan);
+                        items[i] = BulkLoanItem.success(loan.getBook().getId(),
+                            convertToResponse(loan, reserved.contains(loan.getBook().getId())));
+                    }
+                }
+            }
+            return List.of(items);
+        });
+
+        // Un solo aviso con todos los libros prestados en la operación
+        if (!granted.isEmpty()) {
+            try {
+                User user = granted.get(0).getUser();
+                String titles = granted.stream()
+                    .map(loan -> "- " + loan.getBook().getTitle())
+                    .collect(Collectors.joining("\n"));
+                emailService.sendNotification(user.getEmail(), "Confirmación de préstamos",
+                    "Se han registrado los siguientes préstamos con vencimiento el "
+                        + granted.get(0).getDueDate() + ":\n" + titles);
+            } catch (Exception e) {
+                log.warn("No se pudo enviar la confirmación de préstamos del usuario {}: {}", userId, e.getMessage());
+            }
         }
- 
-        if (hasOverdueLoans(user.getId())) {
-            throw new RuntimeException("El usuario tiene préstamos vencidos");
+        return results;
+    }
+
+    // IDENTITY no devuelve claves en lote de forma portable: el llamador recupera los préstamos
+    // por usuario y libro, que no admite dos préstamos activos iguales
+    private void insertLoans(Long userId, List<Book> books, LocalDate loanDate, LocalDate dueDate, String notes) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_LOAN, books, books.size(), (ps, book) -> {
+            ps.setLong(1, userId);
+            ps.setLong(2, book.getId());
+            ps.setDate(3, Date.valueOf(loanDate));
+            ps.setDate(4, Date.valueOf(dueDate));
+            ps.setString(5, LoanStatus.ACTIVE.name());
+            ps.setInt(6, 0);
+            ps.setDouble(7, 0.0);
+            ps.setString(8, notes);
+            ps.setTimestamp(9, now);
+        });
+    }
+
+    // Bloquea las filas de los usuarios antes de leer sus préstamos: dos operaciones simultáneas
+    // del mismo usuario con libros distintos se ordenan aquí, y como ninguna lectura de la
+    // transacción es anterior al bloqueo, el recuento posterior ya ve lo que confirmó la primera.
+    // Los usuarios que no existen no aparecen en el resultado.
+    private Map<Long, User> lockBorrowers(List<Long> userIds) {
+        Set<Long> ids = userIds.stream()
+            .filter(id -> id != null)
+            .collect(Collectors.toCollection(TreeSet::new));
+        return ids.isEmpty() ? Map.of() : userRepository.findAllByIdForUpdate(ids).stream()
+            .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
+    // Préstamos activos leídos de la base de datos, no de la caché: es el dato que decide el límite
+    private Map<Long, Long> activeLoanCounts(Set<Long> userIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (Object[] row : loanRepository.countActiveByUserIds(userIds)) {
+                counts.put((Long) row[0], ((Number) row[1]).longValue());
+            }
         }
- 
-        if (getUserLoanCount(user.getId()) >= 5) {
+        return counts;
+    }
+
+    // Comprobaciones del usuario que no dependen de las copias, con sus filas ya bloqueadas;
+    // pendingInBatch son las solicitudes del mismo usuario ya aceptadas en el grupo, que aún no
+    // cuentan como préstamos activos
+    private void validateBorrower(Long userId, long activeLoans, boolean holdsBook, long pendingInBatch) {
+        BorrowerEligibility eligibility = userId == null ? null : eligibilityOf(userId);
+        checkBorrowerStatus(eligibility);
+
+        if (activeLoans + pendingInBatch >= MAX_ACTIVE_LOANS) {
             throw new RuntimeException("El usuario ha alcanzado el límite de préstamos");
         }
- 
-        if (loanRepository.existsByUserIdAndBookIdAndStatus(
-                user.getId(), book.getId(), LoanStatus.ACTIVE)) {
+
+        if (pendingInBatch > 0 || holdsBook) {
             throw new RuntimeException("El usuario ya tiene un préstamo activo de este libro");
         }
+    }
+
+    private void checkBorrowerStatus(BorrowerEligibility eligibility) {
+        if (eligibility == null) {
+            throw new RuntimeException("Usuario no encontrado");
+        }
  
+        if (!eligibility.isActive()) {
+            throw new RuntimeException("El usuario no está activo");
+        }
+ 
+        if (eligibility.hasOverdueLoans(LocalDate.now())) {
+            throw new RuntimeException("El usuario tiene préstamos vencidos");
+        }
+    }
+
+    private BorrowerEligibility eligibilityOf(Long userId) {
+        return borrowerEligibilityCache.get(userId, this::loadEligibility);
+    }
+
+    // Consultas por índice: el estado del usuario y el resumen de sus préstamos
+    private BorrowerEligibility loadEligibility(Long userId) {
+        Boolean active = userRepository.findIsActiveById(userId).orElse(null);
+        if (active == null) {
+            return null;
+        }
+        Object[] row = loanRepository.summarizeBorrower(userId).get(0);
+        return new BorrowerEligibility(userId, active,
+            row[0] == null ? 0 : ((Number) row[0]).longValue(),
+            row[1] != null && ((Number) row[1]).longValue() > 0,
+            (LocalDate) row[2]);
+    }
+
+    private Loan newLoan(LoanRequest loanRequest, User user, Book book) {
         Loan loan = new Loan();
         loan.setUser(user);
         loan.setBook(book);
@@ -84,23 +400,7 @@ public class LoanServiceImpl implements LoanService {
             loanRequest.getDueDate() : LocalDate.now().plusDays(LOAN_DURATION_DAYS));
         loan.setStatus(LoanStatus.ACTIVE);
         loan.setNotes(loanRequest.getNotes());
- 
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
-        bookRepository.save(book);
-
-        loan = loanRepository.save(loan);
- 
-        try {
-            emailService.sendLoanConfirmation(
-                user.getEmail(), 
-                book.getTitle(), 
-                loan.getDueDate()
-            );
-        } catch (Exception e) { 
-            System.err.println("Error sending loan confirmation: " + e.getMessage());
-        }
-
-        return convertToResponse(loan);
+        return loan;
     }
 
     @Override
@@ -112,78 +412,184 @@ public class LoanServiceImpl implements LoanService {
 
     @Override
     public List<LoanResponse> getLoansByUser(Long userId) {
-        return loanRepository.findByUserId(userId, null)
-            .stream()
-            .map(this::convertToResponse)
-            .collect(Collectors.toList());
+        return convertToResponses(loanRepository.findByUserId(userId, null).getContent());
     }
 
     @Override
     public List<LoanResponse> getLoansByBook(Long bookId) {
-        return loanRepository.findByBookId(bookId, null)
-            .stream()
-            .map(this::convertToResponse)
-            .collect(Collectors.toList());
+        return convertToResponses(loanRepository.findByBookId(bookId, null).getContent());
     }
 
     @Override
     public Page<LoanResponse> getAllLoans(String status, LocalDate startDate, LocalDate endDate, Pageable pageable) {
-        LoanStatus loanStatus = null;
+        Page<Loan> page = loanRepository.searchLoans(parseStatus(status), startDate, endDate, pageable);
+        return new PageImpl<>(convertToResponses(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    @Override
+    public CursorPageResponse<LoanResponse> getAllLoans(String status, LocalDate startDate, LocalDate endDate,
+                                                        String cursor, Pageable pageable) {
+        CursorUtil.Cursor after = CursorUtil.decode(cursor, pageable, CURSOR_FIELDS);
+        PageRequest limit = PageRequest.of(0, pageable.getPageSize() + 1);
+        boolean byLoanDate = "loanDate".equals(after.getField());
+        LoanStatus loanStatus = parseStatus(status);
+        List<Loan> loans;
+        if (byLoanDate) {
+            loans = after.isDescending()
+                ? loanRepository.searchLoansAfterLoanDateDesc(loanStatus, startDate, endDate,
+                    after.getDateValue(), after.getId(), limit)
+                : loanRepository.searchLoansAfterLoanDate(loanStatus, startDate, endDate,
+                    after.getDateValue(), after.getId(), limit);
+        } else {
+            loans = after.isDescending()
+                ? loanRepository.searchLoansAfterIdDesc(loanStatus, startDate, endDate, after.getId(), limit)
+                : loanRepository.searchLoansAfterId(loanStatus, startDate, endDate, after.getId(), limit);
+        }
+        return CursorPageResponse.ofRows(loans, pageable.getPageSize(), this::convertToResponses,
+            loan -> after.next(byLoanDate ? loan.getLoanDate() : null, loan.getId()));
+    }
+
+    private LoanStatus parseStatus(String status) {
         if (status != null && !status.isEmpty()) {
             try {
-                loanStatus = LoanStatus.valueOf(status.toUpperCase());
+                return LoanStatus.valueOf(status.toUpperCase());
             } catch (IllegalArgumentException e) {
                 // Si el estado no es válido, se ignora
             }
         }
-
-        return loanRepository.searchLoans(loanStatus, startDate, endDate, pageable)
-            .map(this::convertToResponse);
+        return null;
     }
 
     @Override
     public List<LoanResponse> getActiveLoans() {
-        return loanRepository.findByStatus(LoanStatus.ACTIVE)
-            .stream()
-            .map(this::convertToResponse)
-            .collect(Collectors.toList());
+        return convertToResponses(loanRepository.findByStatus(LoanStatus.ACTIVE));
     }
 
     @Override
     public List<LoanResponse> getOverdueLoans() {
-        return loanRepository.findOverdueLoans()
-            .stream()
-            .map(this::convertToResponse)
-            .collect(Collectors.toList());
+        return convertToResponses(loanRepository.findOverdueLoans());
     }
 
     @Override
     @Transactional
     public LoanResponse returnLoan(Long id) {
-        Loan loan = loanRepository.findById(id)
+        Loan loan = loanRepository.findByIdForUpdate(id)
             .orElseThrow(() -> new RuntimeException("Préstamo no encontrado"));
 
         if (loan.getStatus() != LoanStatus.ACTIVE && loan.getStatus() != LoanStatus.OVERDUE) {
             throw new RuntimeException("El préstamo ya ha sido devuelto");
         }
+        if (loanRepository.markReturned(loan.getId(), LocalDate.now()) == 0) {
+            throw new RuntimeException("El préstamo ya ha sido devuelto");
+        }
+        eventPublisher.publishEvent(new LoanChangeEvent(loan.getId(), loan.getUser().getId(),
+            loan.getBook().getId(), loan.getStatus(), LoanStatus.RETURNED));
  
         loan.setStatus(LoanStatus.RETURNED);
         loan.setReturnDate(LocalDate.now());
  
-        Book book = loan.getBook();
-        book.setAvailableCopies(book.getAvailableCopies() + 1);
-        bookRepository.save(book);
- 
-        if (loan.getDueDate().isBefore(LocalDate.now())) {
-            long daysOverdue = ChronoUnit.DAYS.between(loan.getDueDate(), LocalDate.now());
-            double fine = daysOverdue * 1.0;  
-            loan.setFineAmount(fine);
+        // Si ya estaban todas las copias disponibles (inventario ajustado a mano) no hay nada que sumar
+        Long bookId = loan.getBook().getId();
+        if (bookRepository.incrementAvailableCopies(bookId, LocalDateTime.now()) > 0) {
+            publishInventoryChange(bookId);
+        } else {
+            log.warn("Devolución del préstamo {}: el libro {} ya tenía todas sus copias disponibles",
+                loan.getId(), bookId);
+        }
+        FineService.Charge charge = applyLateFine(loan, LocalDate.now());
+        if (charge != null) {
+            fineService.recordCharges(List.of(charge), LocalDate.now());
         }
 
         loan = loanRepository.save(loan);
         return convertToResponse(loan);
     }
 
+    // Devolución de varios préstamos en una transacción: se bloquean los préstamos y después los
+    // libros afectados, ambos en orden de id, y cada libro recibe de una vez las copias devueltas.
+    // Las actualizaciones de préstamos y libros salen en lotes JDBC al hacer flush.
+    @Override
+    public List<BulkLoanItem> returnLoans(BulkReturnRequest request) {
+        return transactionTemplate.execute(status -> {
+            Set<Long> requested = request.getLoanIds().stream()
+                .filter(loanId -> loanId != null)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+            Map<Long, Loan> loans = requested.isEmpty() ? Map.of()
+                : loanRepository.findAllByIdForUpdate(requested).stream()
+                    .collect(Collectors.toMap(Loan::getId, Function.identity()));
+
+            LocalDate today = LocalDate.now();
+            List<Loan> returned = new ArrayList<>();
+            List<LoanStatus> previousStatuses = new ArrayList<>();
+            List<FineService.Charge> charges = new ArrayList<>();
+            Map<Long, Integer> copiesPerBook = new TreeMap<>();
+            BulkLoanItem[] items = new BulkLoanItem[request.getLoanIds().size()];
+            Set<Long> seen = new HashSet<>();
+            for (int i = 0; i < items.length; i++) {
+                Long loanId = request.getLoanIds().get(i);
+                Loan loan = loanId == null ? null : loans.get(loanId);
+                if (loanId == null) {
+                    items[i] = BulkLoanItem.failure(null, "Debe indicar el préstamo");
+                } else if (!seen.add(loanId)) {
+                    items[i] = BulkLoanItem.failure(loanId, "El préstamo está repetido en la solicitud");
+                } else if (loan == null) {
+                    items[i] = BulkLoanItem.failure(loanId, "Préstamo no encontrado");
+                } else if (loan.getStatus() != LoanStatus.ACTIVE && loan.getStatus() != LoanStatus.OVERDUE) {
+                    items[i] = BulkLoanItem.failure(loanId, "El préstamo ya ha sido devuelto");
+                } else {
+                    previousStatuses.add(loan.getStatus());
+                    loan.setStatus(LoanStatus.RETURNED);
+                    loan.setReturnDate(today);
+                    FineService.Charge charge = applyLateFine(loan, today);
+                    if (charge != null) {
+                        charges.add(charge);
+                    }
+                    returned.add(loan);
+                    copiesPerBook.merge(loan.getBook().getId(), 1, Integer::sum);
+                }
+            }
+
+            if (!returned.isEmpty()) {
+                List<Book> books = bookRepository.findAllByIdForUpdate(copiesPerBook.keySet());
+                for (Book book : books) {
+                    book.setAvailableCopies(Math.min(book.getTotalCopies(),
+                        book.getAvailableCopies() + copiesPerBook.get(book.getId())));
+                }
+                bookRepository.saveAllAndFlush(books);
+                books.forEach(book -> eventPublisher.publishEvent(InventoryChangeEvent.of(book)));
+                loanRepository.saveAll(returned);
+                fineService.recordCharges(charges, today);
+                for (int i = 0; i < returned.size(); i++) {
+                    Loan loan = returned.get(i);
+                    eventPublisher.publishEvent(new LoanChangeEvent(loan.getId(), loan.getUser().getId(),
+                        loan.getBook().getId(), previousStatuses.get(i), LoanStatus.RETURNED));
+                }
+            }
+
+            Set<Long> reserved = reservedBookIds(returned);
+            for (int i = 0; i < items.length; i++) {
+                if (items[i] == null) {
+                    Loan loan = loans.get(request.getLoanIds().get(i));
+                    items[i] = BulkLoanItem.success(loan.getId(),
+                        convertToResponse(loan, reserved.contains(loan.getBook().getId())));
+                }
+            }
+            return List.of(items);
+        });
+    }
+
+    // Completa la multa del préstamo hasta la fecha de devolución; devuelve lo que falta por cargar
+    // en el libro de multas además de lo ya devengado por el proceso diario, o null si nada
+    private FineService.Charge applyLateFine(Loan loan, LocalDate returnDate) {
+        double fine = fineService.fineFor(loan.getDueDate(), returnDate);
+        double accrued = loan.getFineAmount() == null ? 0.0 : loan.getFineAmount();
+        if (fine <= accrued) {
+            return null;
+        }
+        loan.setFineAmount(fine);
+        return new FineService.Charge(loan.getId(), loan.getUser().getId(), fine - accrued);
+    }
+
     @Override
     @Transactional
     public LoanResponse renewLoan(Long id) {
@@ -205,6 +611,8 @@ public class LoanServiceImpl implements LoanService {
         loan.setDueDate(loan.getDueDate().plusDays(LOAN_DURATION_DAYS));
         loan.setRenewalsCount(loan.getRenewalsCount() + 1);
         loan = loanRepository.save(loan);
+        eventPublisher.publishEvent(new LoanChangeEvent(loan.getId(), loan.getUser().getId(),
+            loan.getBook().getId(), loan.getStatus(), loan.getStatus()));
 
         return convertToResponse(loan);
     }
@@ -217,15 +625,19 @@ public class LoanServiceImpl implements LoanService {
 
         try {
             LoanStatus newStatus = LoanStatus.valueOf(status.toUpperCase());
+            LoanStatus previousStatus = loan.getStatus();
             loan.setStatus(newStatus);
+            eventPublisher.publishEvent(new LoanChangeEvent(loan.getId(), loan.getUser().getId(),
+                loan.getBook().getId(), previousStatus, newStatus));
              
             if (newStatus == LoanStatus.LOST) {
-                Book book = loan.getBook();
-                book.setTotalCopies(book.getTotalCopies() - 1);
-                if (book.getAvailableCopies() > 0) {
-                    book.setAvailableCopies(book.getAvailableCopies() - 1);
+                Long bookId = loan.getBook().getId();
+                if (bookRepository.removeLostCopy(bookId, LocalDateTime.now()) > 0) {
+                    publishInventoryChange(bookId);
+                } else {
+                    log.warn("Préstamo {} perdido: el libro {} ya no tenía copias en el inventario",
+                        loan.getId(), bookId);
                 }
-                bookRepository.save(book);
             }
 
             loan = loanRepository.save(loan);
@@ -246,6 +658,8 @@ public class LoanServiceImpl implements LoanService {
         }
 
         loanRepository.delete(loan);
+        eventPublisher.publishEvent(new LoanChangeEvent(loan.getId(), loan.getUser().getId(),
+            loan.getBook().getId(), loan.getStatus(), null));
         return ApiResponse.success("Préstamo eliminado exitosamente");
     }
 
@@ -255,57 +669,137 @@ public class LoanServiceImpl implements LoanService {
         User user = userRepository.findByUsername(username)
             .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
-        return loanRepository.findByUserId(user.getId(), null)
-            .stream()
-            .map(this::convertToResponse)
-            .collect(Collectors.toList());
+        return convertToResponses(loanRepository.findByUserId(user.getId(), null).getContent());
     }
 
+    // Contadores en memoria mantenidos por eventos: sin consultas a la base de datos
     @Override
     public Map<String, Object> getLoanStats() {
         Map<String, Object> stats = new HashMap<>();
         
-        stats.put("totalLoans", loanRepository.count());
-        stats.put("activeLoans", loanRepository.countByStatus(LoanStatus.ACTIVE));
-        stats.put("overdueLoans", loanRepository.countByStatus(LoanStatus.OVERDUE));
-        stats.put("returnedLoans", loanRepository.countByStatus(LoanStatus.RETURNED));
-         
-        LocalDate firstDayOfMonth = LocalDate.now().withDayOfMonth(1);
-        LocalDate lastDayOfMonth = LocalDate.now().withDayOfMonth(
-            LocalDate.now().lengthOfMonth());
-        stats.put("loansThisMonth", loanRepository.countByLoanDateBetween(
-            firstDayOfMonth, lastDayOfMonth));
+        stats.put("totalLoans", libraryCounters.totalLoans());
+        stats.put("activeLoans", libraryCounters.loans(LoanStatus.ACTIVE));
+        stats.put("overdueLoans", libraryCounters.loans(LoanStatus.OVERDUE));
+        stats.put("returnedLoans", libraryCounters.loans(LoanStatus.RETURNED));
+        stats.put("loansThisMonth", libraryCounters.loansThisMonth());
         
         return stats;
     }
 
+    // La reserva se comprueba con una consulta de existencia, sin cargar la colección del libro
     @Override
     public boolean canRenewLoan(Long loanId) {
         Loan loan = loanRepository.findById(loanId)
             .orElseThrow(() -> new RuntimeException("Préstamo no encontrado"));
- 
-        boolean hasReservations = !loan.getBook().getReservations().isEmpty();
-         
+        return isRenewable(loan, reservationRepository.existsOpenByBookId(loan.getBook().getId()));
+    }
+
+    private static boolean isRenewable(Loan loan, boolean bookReserved) {
         boolean hasFines = loan.getFineAmount() > 0;
 
         return loan.getRenewalsCount() < MAX_RENEWALS && 
-               !hasReservations && 
+               !bookReserved && 
                !hasFines;
     }
 
     @Override
     public boolean hasOverdueLoans(Long userId) {
-        List<Loan> overdueLoans = loanRepository.findOverdueLoans();
-        return overdueLoans.stream()
-            .anyMatch(loan -> loan.getUser().getId().equals(userId));
+        BorrowerEligibility eligibility = eligibilityOf(userId);
+        return eligibility != null && eligibility.hasOverdueLoans(LocalDate.now());
     }
 
     @Override
     public int getUserLoanCount(Long userId) {
-        return loanRepository.countByUserIdAndStatus(userId, LoanStatus.ACTIVE).intValue();
+        BorrowerEligibility eligibility = eligibilityOf(userId);
+        return eligibility == null ? 0 : (int) eligibility.getActiveLoans();
+    }
+
+    // Pasa a OVERDUE los préstamos activos vencidos en bloques de OVERDUE_CHUNK_SIZE filas, una
+    // transacción por bloque recorriendo por id. Si un bloque falla se conserva el último id
+    // confirmado y la siguiente ejecución del mismo día continúa desde ahí.
+    @Override
+    @Scheduled(cron = OVERDUE_CRON, scheduler = SchedulingConfig.BATCH_SCHEDULER)
+    public synchronized void processOverdueLoans() {
+        LocalDate today = LocalDate.now();
+        if (!today.equals(overdueRunDate)) {
+            overdueRunDate = today;
+            overdueResumeAfterId = 0L;
+        }
+
+        long started = System.nanoTime();
+        long rows = 0;
+        int chunks = 0;
+        try {
+            while (true) {
+                long afterId = overdueResumeAfterId;
+                long[] chunk = transactionTemplate.execute(status -> markOverdueChunk(today, afterId));
+                if (chunk == null) {
+                    break;
+                }
+                overdueResumeAfterId = chunk[0];
+                rows += chunk[1];
+                chunks++;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Paso a OVERDUE interrumpido tras el préstamo {}: {}", overdueResumeAfterId, e.getMessage());
+        }
+
+        double seconds = (System.nanoTime() - started) / 1_000_000_000.0;
+        log.info("Paso a OVERDUE: {} préstamos en {} bloques, {} s ({} filas/s)", rows, chunks,
+            String.format("%.2f", seconds), seconds > 0 ? Math.round(rows / seconds) : rows);
+    }
+
+    // Último id del bloque y filas actualizadas, o null si no quedan préstamos por pasar
+    private long[] markOverdueChunk(LocalDate today, long afterId) {
+        List<Object[]> candidates = loanRepository.findOverdueCandidates(today, afterId,
+            PageRequest.of(0, OVERDUE_CHUNK_SIZE));
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        Long fromId = (Long) candidates.get(0)[0];
+        Long toId = (Long) candidates.get(candidates.size() - 1)[0];
+        int updated = loanRepository.markOverdue(fromId, toId, today);
+        for (Object[] row : candidates) {
+            eventPublisher.publishEvent(new LoanChangeEvent((Long) row[0], (Long) row[1], (Long) row[2],
+                LoanStatus.ACTIVE, LoanStatus.OVERDUE));
+        }
+        return new long[] {toId, updated};
+    }
+
+    // Las actualizaciones masivas no pasan por la entidad: las existencias se leen ya aplicadas
+    private void publishInventoryChange(Long bookId) {
+        bookRepository.findInventoryById(bookId).ifPresent(eventPublisher::publishEvent);
     }
 
     private LoanResponse convertToResponse(Loan loan) {
+        return convertToResponse(loan, reservationRepository.existsOpenByBookId(loan.getBook().getId()));
+    }
+
+    // Convierte una lista de préstamos consultando en bloque qué libros tienen reservas abiertas
+    private List<LoanResponse> convertToResponses(List<Loan> loans) {
+        Set<Long> reserved = reservedBookIds(loans);
+        return loans.stream()
+            .map(loan -> convertToResponse(loan, reserved.contains(loan.getBook().getId())))
+            .collect(Collectors.toList());
+    }
+
+    // El id del libro se lee del proxy sin inicializarlo
+    private Set<Long> reservedBookIds(List<Loan> loans) {
+        List<Long> bookIds = loans.stream()
+            .map(loan -> loan.getBook().getId())
+            .distinct()
+            .collect(Collectors.toList());
+        Set<Long> reserved = new HashSet<>();
+        for (int from = 0; from < bookIds.size(); from += RESERVATION_BATCH_SIZE) {
+            List<Long> chunk = bookIds.subList(from, Math.min(from + RESERVATION_BATCH_SIZE, bookIds.size()));
+            for (Object[] row : reservationRepository.countOpenByBookIds(chunk)) {
+                reserved.add((Long) row[0]);
+            }
+        }
+        return reserved;
+    }
+
+    private LoanResponse convertToResponse(Loan loan, boolean bookReserved) {
         LoanResponse response = new LoanResponse();
         response.setId(loan.getId());
         response.setUserId(loan.getUser().getId());
@@ -322,7 +816,7 @@ public class LoanServiceImpl implements LoanService {
         response.setNotes(loan.getNotes());
         response.setCreatedAt(loan.getCreatedAt());
  
-        response.setCanRenew(canRenewLoan(loan.getId()));
+        response.setCanRenew(isRenewable(loan, bookReserved));
         response.setIsOverdue(loan.getStatus() == LoanStatus.OVERDUE || 
             (loan.getStatus() == LoanStatus.ACTIVE && loan.getDueDate().isBefore(LocalDate.now())));
         
@@ -1,9 +1,17 @@
 package com.digitallibrary.digital_library.services.impl;
 
+import com.digitallibrary.digital_library.cache.BookResponseCache;
+import com.digitallibrary.digital_library.cache.BorrowerEligibilityCache;
+import com.digitallibrary.digital_library.cache.LibraryCounters;
+import com.digitallibrary.digital_library.cache.SearchResultCache;
 import com.digitallibrary.digital_library.models.*;
 import com.digitallibrary.digital_library.models.enums.*;
 import com.digitallibrary.digital_library.repositories.*;
 import com.digitallibrary.digital_library.services.ReportService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
@@ -12,6 +20,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -24,27 +33,45 @@ public class ReportServiceImpl implements ReportService {
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
     private final ReservationRepository reservationRepository;
+    private final FineBalanceRepository fineBalanceRepository;
+    private final EntityManagerFactory entityManagerFactory;
+    private final BookResponseCache bookResponseCache;
+    private final SearchResultCache searchResultCache;
+    private final BorrowerEligibilityCache borrowerEligibilityCache;
+    private final LibraryCounters libraryCounters;
 
     public ReportServiceImpl(LoanRepository loanRepository,
                             BookRepository bookRepository,
                             UserRepository userRepository,
                             CategoryRepository categoryRepository,
-                            ReservationRepository reservationRepository) {
+                            ReservationRepository reservationRepository,
+                            FineBalanceRepository fineBalanceRepository,
+                            EntityManagerFactory entityManagerFactory,
+                            BookResponseCache bookResponseCache,
+                            SearchResultCache searchResultCache,
+                            BorrowerEligibilityCache borrowerEligibilityCache,
+                            LibraryCounters libraryCounters) {
         this.loanRepository = loanRepository;
         this.bookRepository = bookRepository;
         this.userRepository = userRepository;
         this.categoryRepository = categoryRepository;
         this.reservationRepository = reservationRepository;
+        this.fineBalanceRepository = fineBalanceRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.bookResponseCache = bookResponseCache;
+        this.searchResultCache = searchResultCache;
+        this.borrowerEligibilityCache = borrowerEligibilityCache;
+        this.libraryCounters = libraryCounters;
     }
 
     @Override
     public Map<String, Object> generateLoanSummaryReport(LocalDate startDate, LocalDate endDate) {
         Map<String, Object> report = new HashMap<>();
          
-        report.put("totalLoans", loanRepository.count());
-        report.put("activeLoans", loanRepository.countByStatus(LoanStatus.ACTIVE));
-        report.put("overdueLoans", loanRepository.countByStatus(LoanStatus.OVERDUE));
-        report.put("returnedLoans", loanRepository.countByStatus(LoanStatus.RETURNED));
+        report.put("totalLoans", libraryCounters.totalLoans());
+        report.put("activeLoans", libraryCounters.loans(LoanStatus.ACTIVE));
+        report.put("overdueLoans", libraryCounters.loans(LoanStatus.OVERDUE));
+        report.put("returnedLoans", libraryCounters.loans(LoanStatus.RETURNED));
          
         if (startDate != null && endDate != null) {
             long loansInPeriod = loanRepository.countByLoanDateBetween(startDate, endDate);
@@ -175,7 +202,7 @@ List<Object[]> availablePopularBooksFormatted = availablePopularBooks.stream()
         report.put("usersWithOverdueLoans", usersWithOverdueLoansFormatted);
         
         report.put("totalUsers", userRepository.count());
-        report.put("activeUsers", userRepository.countByIsActiveTrue());
+        report.put("activeUsers", libraryCounters.activeUsers());
         report.put("limit", limit);
         
         return report;
@@ -204,6 +231,8 @@ List<Object[]> availablePopularBooksFormatted = availablePopularBooks.stream()
             .mapToDouble(loan -> loan.getFineAmount() != null ? loan.getFineAmount() : 0.0)
             .sum();
         report.put("totalFines", totalFines);
+        // Saldo acumulado de todos los usuarios, incluidas las multas de préstamos ya devueltos
+        report.put("outstandingFineBalance", fineBalanceRepository.sumBalances());
          
         Map<String, Integer> usersWithMostOverdue = new HashMap<>();
         overdueLoans.forEach(loan -> {
@@ -252,21 +281,14 @@ List<Object[]> availablePopularBooksFormatted = availablePopularBooks.stream()
         List<Object[]> reservationStats = reservationRepository.getReservationStats();
         report.put("reservationStats", reservationStats);
          
-        List<Reservation> activeReservations = 
-            reservationRepository.findByStatus(ReservationStatus.ACTIVE, PageRequest.of(0, 100))
-                .getContent();
-        report.put("activeReservations", activeReservations.size());
-         
-        List<Reservation> pendingReservations = 
-            reservationRepository.findByStatus(ReservationStatus.PENDING, PageRequest.of(0, 100))
-                .getContent();
-        report.put("pendingReservations", pendingReservations.size());
+        report.put("activeReservations", libraryCounters.reservations(ReservationStatus.ACTIVE));
+        report.put("pendingReservations", libraryCounters.reservations(ReservationStatus.PENDING));
          
         List<Object[]> mostReservedBooks = reservationRepository.findMostReservedBooks(
             null, null, PageRequest.of(0, 10));
         report.put("mostReservedBooks", mostReservedBooks);
         
-        report.put("totalReservations", reservationRepository.count());
+        report.put("totalReservations", libraryCounters.totalReservations());
         report.put("generatedAt", LocalDate.now());
         
         return report;
@@ -279,10 +301,10 @@ List<Object[]> availablePopularBooksFormatted = availablePopularBooks.stream()
         report.put("totalBooks", bookRepository.count());
         report.put("availableBooks", bookRepository.countByAvailableCopiesGreaterThan(0));
         report.put("totalUsers", userRepository.count());
-        report.put("activeUsers", userRepository.countByIsActiveTrue());
-        report.put("totalLoans", loanRepository.count());
-        report.put("activeLoans", loanRepository.countByStatus(LoanStatus.ACTIVE));
-        report.put("totalReservations", reservationRepository.count());
+        report.put("activeUsers", libraryCounters.activeUsers());
+        report.put("totalLoans", libraryCounters.totalLoans());
+        report.put("activeLoans", libraryCounters.loans(LoanStatus.ACTIVE));
+        report.put("totalReservations", libraryCounters.totalReservations());
         report.put("totalCategories", categoryRepository.count());
          
         List<Book> lowStockBooks = bookRepository.findByAvailableCopiesLessThan(3);
@@ -301,6 +323,48 @@ List<Object[]> availablePopularBooksFormatted = availablePopularBooks.stream()
         return report;
     }
 
+    @Override
+    public Map<String, Object> generateCacheStatsReport() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> report = new LinkedHashMap<>();
+
+        report.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        report.put("since", statistics.getStart());
+        report.put("secondLevelCache", hitMissStats(statistics.getSecondLevelCacheHitCount(),
+            statistics.getSecondLevelCacheMissCount(), statistics.getSecondLevelCachePutCount()));
+        report.put("queryCache", hitMissStats(statistics.getQueryCacheHitCount(),
+            statistics.getQueryCacheMissCount(), statistics.getQueryCachePutCount()));
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region != null) {
+                Map<String, Object> regionStats = hitMissStats(region.getHitCount(), region.getMissCount(),
+                    region.getPutCount());
+                // JCache no expone el tamaño de la región y Hibernate devuelve un valor negativo
+                if (region.getElementCountInMemory() >= 0) {
+                    regionStats.put("elementsInMemory", region.getElementCountInMemory());
+                }
+                regions.put(regionName, regionStats);
+            }
+        }
+        report.put("regions", regions);
+        report.put("bookResponses", bookResponseCache.stats());
+        report.put("searchResults", searchResultCache.stats());
+        report.put("borrowerEligibility", borrowerEligibilityCache.stats());
+        report.put("counters", libraryCounters.stats());
+        return report;
+    }
+
+    private static Map<String, Object> hitMissStats(long hits, long misses, long puts) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("puts", puts);
+        stats.put("hitRatio", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+        return stats;
+    }
+
     @Override
     public byte[] exportLoansReport(LocalDate startDate, LocalDate endDate, String format) {
       
@@ -327,17 +391,16 @@ List<Object[]> availablePopularBooksFormatted = availablePopularBooks.stream()
         stats.put("totalBooks", bookRepository.count());
         stats.put("availableBooks", bookRepository.countByAvailableCopiesGreaterThan(0));
         stats.put("totalUsers", userRepository.count());
-        stats.put("activeUsers", userRepository.countByIsActiveTrue());
-        stats.put("totalLoans", loanRepository.count());
-        stats.put("activeLoans", loanRepository.countByStatus(LoanStatus.ACTIVE));
-        stats.put("overdueLoans", loanRepository.countByStatus(LoanStatus.OVERDUE));
-        stats.put("totalReservations", reservationRepository.count());
+        stats.put("activeUsers", libraryCounters.activeUsers());
+        stats.put("totalLoans", libraryCounters.totalLoans());
+        stats.put("activeLoans", libraryCounters.loans(LoanStatus.ACTIVE));
+        stats.put("overdueLoans", libraryCounters.loans(LoanStatus.OVERDUE));
+        stats.put("totalReservations", libraryCounters.totalReservations());
          
         LocalDate firstDayOfMonth = LocalDate.now().withDayOfMonth(1);
         LocalDate lastDayOfMonth = LocalDate.now().withDayOfMonth(
             LocalDate.now().lengthOfMonth());
-        stats.put("loansThisMonth", loanRepository.countByLoanDateBetween(
-            firstDayOfMonth, lastDayOfMonth));
+        stats.put("loansThisMonth", libraryCounters.loansThisMonth());
          
         List<Object[]> popularBooksThisMonth = loanRepository.findMostLoanedBooks(
             firstDayOfMonth, lastDayOfMonth, PageRequest.of(0, 5));
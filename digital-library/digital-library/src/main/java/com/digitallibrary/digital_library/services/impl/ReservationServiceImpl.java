@@ -4,6 +4,7 @@ package com.digitallibrary.digital_library.services.impl;
 import com.digitallibrary.digital_library.dtos.request.ReservationRequest;
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
 import com.digitallibrary.digital_library.dtos.response.ReservationResponse;
+import com.digitallibrary.digital_library.events.ReservationChangeEvent;
 import com.digitallibrary.digital_library.exceptions.BookNotAvailableException;
 import com.digitallibrary.digital_library.exceptions.ResourceNotFoundException;
 import com.digitallibrary.digital_library.models.Book;
@@ -15,6 +16,7 @@ import com.digitallibrary.digital_library.repositories.ReservationRepository;
 import com.digitallibrary.digital_library.repositories.UserRepository;
 import com.digitallibrary.digital_library.services.EmailService;
 import com.digitallibrary.digital_library.services.ReservationService;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,15 +32,18 @@ public class ReservationServiceImpl implements ReservationService {
     private final UserRepository userRepository;
     private final BookRepository bookRepository;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public ReservationServiceImpl(ReservationRepository reservationRepository,
                                  UserRepository userRepository,
                                  BookRepository bookRepository,
-                                 EmailService emailService) {
+                                 EmailService emailService,
+                                 ApplicationEventPublisher eventPublisher) {
         this.reservationRepository = reservationRepository;
         this.userRepository = userRepository;
         this.bookRepository = bookRepository;
         this.emailService = emailService;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -76,6 +81,7 @@ public class ReservationServiceImpl implements ReservationService {
         reservation.setPriority(pendingReservations.size() + 1);
         
         reservation = reservationRepository.save(reservation);
+        eventPublisher.publishEvent(new ReservationChangeEvent(reservation.getId(), null, ReservationStatus.PENDING));
         return convertToResponse(reservation);
     }
 
@@ -113,8 +119,11 @@ public class ReservationServiceImpl implements ReservationService {
             throw new RuntimeException("Solo se pueden cancelar reservas pendientes o activas");
         }
         
+        ReservationStatus previousStatus = reservation.getStatus();
         reservation.setStatus(ReservationStatus.CANCELLED);
         reservationRepository.save(reservation);
+        eventPublisher.publishEvent(new ReservationChangeEvent(reservation.getId(), previousStatus,
+            ReservationStatus.CANCELLED));
          
         recalculatePriorities(reservation.getBook().getId());
         
@@ -138,6 +147,8 @@ public class ReservationServiceImpl implements ReservationService {
         reservation.setStatus(ReservationStatus.ACTIVE);
         reservation.setNotifiedAt(LocalDateTime.now());
         reservationRepository.save(reservation);
+        eventPublisher.publishEvent(new ReservationChangeEvent(reservation.getId(), ReservationStatus.PENDING,
+            ReservationStatus.ACTIVE));
          
         try {
             emailService.sendReservationAvailable(
@@ -160,6 +171,8 @@ public class ReservationServiceImpl implements ReservationService {
         for (Reservation reservation : expiredReservations) {
             reservation.setStatus(ReservationStatus.EXPIRED);
             reservationRepository.save(reservation);
+            eventPublisher.publishEvent(new ReservationChangeEvent(reservation.getId(), ReservationStatus.PENDING,
+                ReservationStatus.EXPIRED));
         }
         
         if (!expiredReservations.isEmpty()) {
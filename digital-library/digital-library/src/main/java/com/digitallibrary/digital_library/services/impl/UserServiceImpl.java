@@ -2,12 +2,18 @@ package com.digitallibrary.digital_library.services.impl;
  
 
 import com.digitallibrary.digital_library.dtos.response.ApiResponse;
+import com.digitallibrary.digital_library.dtos.response.CursorPageResponse;
 import com.digitallibrary.digital_library.dtos.response.UserResponse;
+import com.digitallibrary.digital_library.events.UserDeletedEvent;
+import com.digitallibrary.digital_library.events.UserStatusChangeEvent;
 import com.digitallibrary.digital_library.models.User;
 import com.digitallibrary.digital_library.models.enums.UserRole;
 import com.digitallibrary.digital_library.repositories.UserRepository;
 import com.digitallibrary.digital_library.services.UserService;
+import com.digitallibrary.digital_library.utils.CursorUtil;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -15,15 +21,19 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private static final Set<String> CURSOR_FIELDS = Set.of(CursorUtil.ID, "username");
 
-    public UserServiceImpl(UserRepository userRepository) {
+    public UserServiceImpl(UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
@@ -43,16 +53,38 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Page<UserResponse> getAllUsers(String role, String search, Pageable pageable) {
-        UserRole userRole = null;
+        return userRepository.searchUsers(parseRole(role), search, pageable)
+            .map(this::convertToResponse);
+    }
+
+    @Override
+    public CursorPageResponse<UserResponse> getAllUsers(String role, String search, String cursor, Pageable pageable) {
+        CursorUtil.Cursor after = CursorUtil.decode(cursor, pageable, CURSOR_FIELDS);
+        PageRequest limit = PageRequest.of(0, pageable.getPageSize() + 1);
+        boolean byUsername = "username".equals(after.getField());
+        UserRole userRole = parseRole(role);
+        List<User> users;
+        if (byUsername) {
+            users = after.isDescending()
+                ? userRepository.searchUsersAfterUsernameDesc(userRole, search, after.getValue(), after.getId(), limit)
+                : userRepository.searchUsersAfterUsername(userRole, search, after.getValue(), after.getId(), limit);
+        } else {
+            users = after.isDescending()
+                ? userRepository.searchUsersAfterIdDesc(userRole, search, after.getId(), limit)
+                : userRepository.searchUsersAfterId(userRole, search, after.getId(), limit);
+        }
+        return CursorPageResponse.of(users, pageable.getPageSize(), this::convertToResponse,
+            user -> after.next(byUsername ? user.getUsername() : null, user.getId()));
+    }
+
+    private UserRole parseRole(String role) {
         if (role != null && !role.isEmpty()) {
             try {
-                userRole = UserRole.valueOf(role.toUpperCase());
+                return UserRole.valueOf(role.toUpperCase());
             } catch (IllegalArgumentException e) { 
             }
         }
-
-        return userRepository.searchUsers(userRole, search, pageable)
-            .map(this::convertToResponse);
+        return null;
     }
 
     @Override
@@ -93,6 +125,10 @@ public class UserServiceImpl implements UserService {
         }
 
         userRepository.delete(user);
+        eventPublisher.publishEvent(new UserDeletedEvent(user.getId()));
+        if (Boolean.TRUE.equals(user.getIsActive())) {
+            eventPublisher.publishEvent(new UserStatusChangeEvent(user.getId(), false));
+        }
         return ApiResponse.success("Usuario eliminado exitosamente");
     }
 
@@ -104,6 +140,7 @@ public class UserServiceImpl implements UserService {
 
         user.setIsActive(!user.getIsActive());
         userRepository.save(user);
+        eventPublisher.publishEvent(new UserStatusChangeEvent(user.getId(), user.getIsActive()));
 
         String status = user.getIsActive() ? "activado" : "desactivado";
         return ApiResponse.success("Usuario " + status + " exitosamente");
@@ -0,0 +1,29 @@
+package com.digitallibrary.digital_library.utils;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * GET condicional con ETag y Last-Modified. Se evalúa antes de armar la respuesta: si el cliente
+ * ya tiene la versión vigente se responde 304 sin mapear ni serializar nada.
+ */
+public final class ConditionalGet {
+
+    // Permite guardar la respuesta pero obliga a revalidarla; Spring Security pondría no-store
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * Fija ETag y Last-Modified en la respuesta y devuelve {@code true} si ya quedó como 304;
+     * en ese caso el controlador debe devolver {@code null}.
+     */
+    public static boolean notModified(WebRequest request, String etag, long lastModified) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        }
+        return request.checkNotModified(etag, lastModified);
+    }
+}
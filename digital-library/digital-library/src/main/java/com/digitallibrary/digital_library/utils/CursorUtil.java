@@ -0,0 +1,118 @@
+package com.digitallibrary.digital_library.utils;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Cursores opacos para la paginación por clave (keyset). El cursor guarda el campo
+ * de orden, su dirección, el valor de ese campo en la última fila devuelta y su ID.
+ * Un valor ausente se codifica distinto de la cadena vacía.
+ */
+public final class CursorUtil {
+
+    public static final String ID = "id";
+
+    private CursorUtil() {
+    }
+
+    public static String encode(String field, Sort.Direction direction, Object value, Long id) {
+        String raw = field + "|" + direction + "|" + id + (value != null ? "|" + value : "");
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Un cursor vacío abre la primera página con el orden pedido en {@code pageable}.
+     * Un cursor existente conserva su propio orden para que las páginas sigan siendo coherentes.
+     * En la primera página el valor es {@code null} y el ID queda fuera del rango de IDs
+     * (0 en orden ascendente, {@link Long#MAX_VALUE} en descendente).
+     */
+    public static Cursor decode(String cursor, Pageable pageable, Set<String> allowedFields) {
+        if (cursor == null || cursor.isBlank()) {
+            Sort.Order order = sortOrder(pageable, allowedFields);
+            return new Cursor(order.getProperty(), order.getDirection(), null,
+                order.isDescending() ? Long.MAX_VALUE : 0L);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length < 3 || !allowedFields.contains(parts[0])) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+            String value = parts.length == 4 ? parts[3] : null;
+            return new Cursor(parts[0], Sort.Direction.valueOf(parts[1]), value, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
+    }
+
+    private static Sort.Order sortOrder(Pageable pageable, Set<String> allowedFields) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!allowedFields.contains(order.getProperty())) {
+                throw new IllegalArgumentException(
+                    "Orden no admitido en modo cursor: " + order.getProperty());
+            }
+            return order;
+        }
+        return Sort.Order.asc(ID);
+    }
+
+    public static class Cursor {
+
+        private final String field;
+        private final Sort.Direction direction;
+        private final String value;
+        private final Long id;
+
+        public Cursor(String field, Sort.Direction direction, String value, Long id) {
+            this.field = field;
+            this.direction = direction;
+            this.value = value;
+            this.id = id;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public Sort.Direction getDirection() {
+            return direction;
+        }
+
+        public boolean isDescending() {
+            return direction.isDescending();
+        }
+
+        /**
+         * Cursor de la página siguiente con el mismo campo y dirección.
+         */
+        public String next(Object lastValue, Long lastId) {
+            return encode(field, direction, lastValue, lastId);
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public LocalDate getDateValue() {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return LocalDate.parse(value);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Cursor inválido");
+            }
+        }
+
+        public Long getId() {
+            return id;
+        }
+    }
+}
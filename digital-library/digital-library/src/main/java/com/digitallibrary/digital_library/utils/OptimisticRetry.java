@@ -0,0 +1,44 @@
+package com.digitallibrary.digital_library.utils;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Reintenta una transacción completa cuando otra modificó la misma entidad versionada entre la
+ * lectura y el commit. Cada intento vuelve a leer los datos; tras el último se propaga el error.
+ */
+public final class OptimisticRetry {
+
+    public static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MS = 10;
+
+    private OptimisticRetry() {
+    }
+
+    public static <T> T execute(TransactionTemplate transaction, TransactionCallback<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transaction.execute(work);
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                backoff(attempt);
+            }
+        }
+    }
+
+    // Espera creciente con jitter para que los intentos en conflicto no vuelvan a coincidir
+    private static void backoff(int attempt) {
+        long delay = BASE_BACKOFF_MS * attempt + ThreadLocalRandom.current().nextLong(BASE_BACKOFF_MS);
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento interrumpido", e);
+        }
+    }
+}
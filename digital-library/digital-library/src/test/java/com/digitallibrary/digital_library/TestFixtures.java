@@ -0,0 +1,61 @@
+package com.digitallibrary.digital_library;
+
+import com.digitallibrary.digital_library.models.Book;
+import com.digitallibrary.digital_library.models.Loan;
+import com.digitallibrary.digital_library.models.User;
+import com.digitallibrary.digital_library.models.enums.LoanStatus;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entidades de prueba sin guardar. Las pruebas de integración comparten contexto y base de
+ * datos, así que los nombres de usuario e ISBN llevan un prefijo único por prueba.
+ */
+public final class TestFixtures {
+
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.nanoTime() % 1_000_000L);
+
+    private TestFixtures() {
+    }
+
+    /**
+     * Prefijo distinto en cada llamada, para usuarios e ISBN de una misma prueba.
+     */
+    public static String uniquePrefix(String tag) {
+        return tag + SEQUENCE.incrementAndGet();
+    }
+
+    public static User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@biblioteca.test");
+        user.setPassword("x");
+        user.setFirstName("Lector");
+        user.setLastName(username);
+        return user;
+    }
+
+    public static Book book(String isbn, String title, int copies) {
+        Book book = new Book();
+        book.setIsbn(isbn);
+        book.setTitle(title);
+        book.setTotalCopies(copies);
+        book.setAvailableCopies(copies);
+        return book;
+    }
+
+    /**
+     * Préstamo de catorce días que vence en {@code dueDate}; los devueltos se devuelven ese día.
+     */
+    public static Loan loan(User user, Book book, LoanStatus status, LocalDate dueDate) {
+        Loan loan = new Loan();
+        loan.setUser(user);
+        loan.setBook(book);
+        loan.setLoanDate(dueDate.minusDays(14));
+        loan.setDueDate(dueDate);
+        loan.setStatus(status);
+        loan.setReturnDate(status == LoanStatus.RETURNED ? dueDate : null);
+        return loan;
+    }
+}
@@ -0,0 +1,67 @@
+package com.digitallibrary.digital_library.controllers;
+
+import com.digitallibrary.digital_library.models.Book;
+import com.digitallibrary.digital_library.repositories.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BookExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    void exportRunsWithItsOwnTimeoutAndWritesEveryBook() throws Exception {
+        // Más de un bloque de exportación
+        List<Book> books = new ArrayList<>();
+        String prefix = "EX-" + System.nanoTime() % 1_000_000L + "-";
+        for (int i = 0; i < 520; i++) {
+            Book book = new Book();
+            book.setTitle("Exportado " + i);
+            book.setIsbn(prefix + i);
+            books.add(book);
+        }
+        bookRepository.saveAll(books);
+
+        MvcResult started = mockMvc.perform(get("/api/books/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(30 * 60 * 1000L);
+
+        String body = mockMvc.perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        List<Long> ids = new ArrayList<>();
+        for (String line : body.trim().split("\n")) {
+            ids.add(objectMapper.readTree(line).get("id").asLong());
+        }
+        assertThat(ids).hasSize((int) bookRepository.count()).isSorted().doesNotHaveDuplicates();
+        assertThat(body).contains("\"title\":\"Exportado 519\"");
+    }
+}
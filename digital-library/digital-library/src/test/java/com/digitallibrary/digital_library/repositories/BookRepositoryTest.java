@@ -0,0 +1,56 @@
+package com.digitallibrary.digital_library.repositories;
+
+import com.digitallibrary.digital_library.TestFixtures;
+import com.digitallibrary.digital_library.dtos.response.BookSummaryResponse;
+import com.digitallibrary.digital_library.models.Book;
+import com.digitallibrary.digital_library.models.User;
+import com.digitallibrary.digital_library.models.enums.LoanStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class BookRepositoryTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void popularSummariesAreOrderedByLoanCount() {
+        String prefix = TestFixtures.uniquePrefix("pop");
+        User user = userRepository.save(TestFixtures.user(prefix));
+        Book once = bookRepository.save(TestFixtures.book(prefix + "-1", "Prestado una vez", 1));
+        Book thrice = bookRepository.save(TestFixtures.book(prefix + "-3", "Prestado tres veces", 1));
+        Book twice = bookRepository.save(TestFixtures.book(prefix + "-2", "Prestado dos veces", 1));
+
+        // Préstamos en un periodo que ninguna otra prueba usa
+        LocalDate dueDate = LocalDate.of(1990, 3, 15);
+        loanRepository.save(TestFixtures.loan(user, once, LoanStatus.RETURNED, dueDate));
+        for (int i = 0; i < 3; i++) {
+            loanRepository.save(TestFixtures.loan(user, thrice, LoanStatus.RETURNED, dueDate));
+        }
+        for (int i = 0; i < 2; i++) {
+            loanRepository.save(TestFixtures.loan(user, twice, LoanStatus.RETURNED, dueDate));
+        }
+
+        assertThat(bookRepository.findPopularSummaries(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 12, 31),
+                PageRequest.of(0, 2)))
+            .extracting(BookSummaryResponse::getId)
+            .containsExactly(thrice.getId(), twice.getId());
+    }
+}
@@ -0,0 +1,49 @@
+package com.digitallibrary.digital_library.repositories;
+
+import com.digitallibrary.digital_library.TestFixtures;
+import com.digitallibrary.digital_library.models.Book;
+import com.digitallibrary.digital_library.models.Loan;
+import com.digitallibrary.digital_library.models.User;
+import com.digitallibrary.digital_library.models.enums.LoanStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class LoanRepositoryTest {
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void overdueLoansIncludeActiveLoansPastTheirDueDate() {
+        String prefix = TestFixtures.uniquePrefix("od");
+        User user = userRepository.save(TestFixtures.user(prefix));
+        Book book = bookRepository.save(TestFixtures.book(prefix, "Libro vencido", 1));
+
+        LocalDate today = LocalDate.now();
+        Loan pastDue = loanRepository.save(TestFixtures.loan(user, book, LoanStatus.ACTIVE, today.minusDays(1)));
+        Loan marked = loanRepository.save(TestFixtures.loan(user, book, LoanStatus.OVERDUE, today.minusDays(10)));
+        loanRepository.save(TestFixtures.loan(user, book, LoanStatus.ACTIVE, today));
+        loanRepository.save(TestFixtures.loan(user, book, LoanStatus.RETURNED, today.minusDays(5)));
+
+        assertThat(loanRepository.findOverdueLoans())
+            .filteredOn(loan -> loan.getBook().getId().equals(book.getId()))
+            .extracting(Loan::getId)
+            .containsExactlyInAnyOrder(pastDue.getId(), marked.getId());
+    }
+}
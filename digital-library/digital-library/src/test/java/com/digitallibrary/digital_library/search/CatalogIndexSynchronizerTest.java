@@ -0,0 +1,122 @@
+package com.digitallibrary.digital_library.search;
+
+import com.digitallibrary.digital_library.models.Author;
+import com.digitallibrary.digital_library.models.Book;
+import com.digitallibrary.digital_library.models.Category;
+import com.digitallibrary.digital_library.repositories.AuthorRepository;
+import com.digitallibrary.digital_library.repositories.BookRepository;
+import com.digitallibrary.digital_library.repositories.CategoryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class CatalogIndexSynchronizerTest {
+
+    private CatalogIndex index;
+    private AuthorBookIndex authorBookIndex;
+    private BookRepository bookRepository;
+    private CatalogIndexSynchronizer synchronizer;
+
+    @BeforeEach
+    void setUp() {
+        index = mock(CatalogIndex.class);
+        authorBookIndex = mock(AuthorBookIndex.class);
+        bookRepository = mock(BookRepository.class);
+        synchronizer = new CatalogIndexSynchronizer(List.of(index), mock(CatalogSnapshotStore.class),
+            authorBookIndex, bookRepository, mock(AuthorRepository.class), mock(CategoryRepository.class),
+            mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void inventoryEventThatArrivesLateIsDropped() {
+        synchronizer.onInventoryChange(new InventoryChangeEvent(1L, 0, 2, 7L));
+        synchronizer.onInventoryChange(new InventoryChangeEvent(1L, 1, 2, 6L));
+
+        verify(index).updateInventory(1L, 0, 2);
+        verify(index, never()).updateInventory(1L, 1, 2);
+    }
+
+    @Test
+    void versionsAreTrackedPerBook() {
+        synchronizer.onInventoryChange(new InventoryChangeEvent(1L, 0, 2, 7L));
+        synchronizer.onInventoryChange(new InventoryChangeEvent(2L, 3, 3, 1L));
+        synchronizer.onInventoryChange(new InventoryChangeEvent(1L, 2, 2, 8L));
+
+        verify(index).updateInventory(1L, 0, 2);
+        verify(index).updateInventory(2L, 3, 3);
+        verify(index).updateInventory(1L, 2, 2);
+        verifyNoMoreInteractions(index);
+    }
+
+    @Test
+    void deletedBookForgetsItsVersion() {
+        synchronizer.onInventoryChange(new InventoryChangeEvent(1L, 0, 2, 7L));
+        synchronizer.onCatalogChange(CatalogChangeEvent.deleted(1L));
+        synchronizer.onInventoryChange(new InventoryChangeEvent(1L, 1, 1, 0L));
+
+        verify(index).updateInventory(1L, 1, 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void authorRenameReindexesTheAuthorsBooks() {
+        Book book = book(1L, "Gabo", "Novela");
+        when(authorBookIndex.booksOf(5L)).thenReturn(new long[] {1L});
+        when(bookRepository.findAllById(anyList())).thenReturn(List.of(book));
+
+        synchronizer.onAuthorChange(AuthorChangeEvent.saved(5L, "Gabo"));
+
+        ArgumentCaptor<List<BookDocument>> documents = ArgumentCaptor.forClass(List.class);
+        verify(index).index(documents.capture());
+        assertThat(documents.getValue()).singleElement()
+            .satisfies(document -> assertThat(document.getAuthorNames()).containsExactly("Gabo"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void categoryRenameReindexesTheCategorysBooks() {
+        when(bookRepository.findIdsByCategoryId(9L)).thenReturn(List.of(1L));
+        when(bookRepository.findAllById(anyList())).thenReturn(List.of(book(1L, "Gabo", "Realismo mágico")));
+
+        synchronizer.onCategoryChange(new CategoryChangeEvent(9L));
+
+        ArgumentCaptor<List<BookDocument>> documents = ArgumentCaptor.forClass(List.class);
+        verify(index).index(documents.capture());
+        assertThat(documents.getValue()).singleElement()
+            .satisfies(document -> assertThat(document.getCategoryNames()).containsExactly("Realismo mágico"));
+    }
+
+    @Test
+    void deletedAuthorTouchesNoBooks() {
+        synchronizer.onAuthorChange(AuthorChangeEvent.deleted(5L));
+
+        verifyNoMoreInteractions(index, bookRepository);
+    }
+
+    private static Book book(Long id, String authorName, String categoryName) {
+        Author author = new Author();
+        author.setId(5L);
+        author.setName(authorName);
+        Category category = new Category();
+        category.setId(9L);
+        category.setName(categoryName);
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle("Cien años de soledad");
+        book.setAuthors(Set.of(author));
+        book.setCategories(Set.of(category));
+        return book;
+    }
+}
@@ -0,0 +1,48 @@
+package com.digitallibrary.digital_library.search;
+
+import com.digitallibrary.digital_library.dtos.response.FacetValue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FacetIndexTest {
+
+    private FacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FacetIndex();
+        index.rebuild(List.of(book(1L, "Novela"), book(2L, "Novela")));
+    }
+
+    @Test
+    void renamedCategoryShowsItsNewLabel() {
+        index.index(List.of(book(1L, "Narrativa"), book(2L, "Narrativa")));
+
+        assertThat(index.count(List.of(1L, 2L)).getCategories()).singleElement()
+            .satisfies(value -> {
+                assertThat(value.getLabel()).isEqualTo("Narrativa");
+                assertThat(value.getCount()).isEqualTo(2);
+            });
+    }
+
+    @Test
+    void removedBooksTakeTheirCategoryWithThem() {
+        index.remove(1L);
+        index.remove(2L);
+
+        assertThat(index.count(List.of(1L, 2L)).getTotal()).isZero();
+        index.index(book(3L, "Poesía"));
+        assertThat(index.count(List.of(1L, 2L, 3L)).getCategories())
+            .extracting(FacetValue::getLabel)
+            .containsExactly("Poesía");
+    }
+
+    private static BookDocument book(Long id, String category) {
+        return new BookDocument(id, "Libro " + id, null, null, List.of(), List.of(),
+            List.of(7L), List.of(category), "es", 1967, 1, 1);
+    }
+}
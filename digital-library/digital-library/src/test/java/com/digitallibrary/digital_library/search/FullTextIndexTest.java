@@ -0,0 +1,44 @@
+package com.digitallibrary.digital_library.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FullTextIndexTest {
+
+    private FullTextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new FullTextIndex();
+        index.rebuild(List.of(
+            book(1L, "Cien años de soledad", "Gabriel García Márquez", "Novela"),
+            book(2L, "El amor en los tiempos del cólera", "Gabriel García Márquez", "Novela"),
+            book(3L, "Rayuela", "Julio Cortázar", "Novela")));
+    }
+
+    @Test
+    void keywordMadeOnlyOfStopWordsMatchesNothing() {
+        assertThat(index.search("de la", null, null)).isEmpty();
+        assertThat(index.search("the", null, null)).isEmpty();
+    }
+
+    @Test
+    void blankKeywordReturnsEveryBookThatPassesTheFilters() {
+        assertThat(index.search("  ", null, null)).containsExactly(1L, 2L, 3L);
+        assertThat(index.search(null, null, "cortazar")).containsExactly(3L);
+    }
+
+    @Test
+    void stopWordsAreIgnoredNextToRealTerms() {
+        assertThat(index.search("de soledad", null, null)).containsExactly(1L);
+    }
+
+    private static BookDocument book(Long id, String title, String author, String category) {
+        return new BookDocument(id, title, "978-0-00-00000" + id, null, List.of(id), List.of(author),
+            List.of(1L), List.of(category), "es", 1967, 1, 1);
+    }
+}
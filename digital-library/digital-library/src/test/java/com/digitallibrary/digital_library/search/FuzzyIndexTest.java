@@ -0,0 +1,30 @@
+package com.digitallibrary.digital_library.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FuzzyIndexTest {
+
+    @Test
+    void matchesEveryQueryWordWithinTheTolerance() {
+        FuzzyIndex index = new FuzzyIndex();
+        index.put(1L, "Gabriel García Márquez");
+        index.put(2L, "Julio Cortázar");
+
+        assertThat(index.search("garcia marques", null, 10))
+            .extracting(FuzzyMatch::getId).containsExactly(1L);
+        assertThat(index.search("cortazr", 0, 10)).isEmpty();
+        assertThat(index.search("cortazr", 1, 10))
+            .extracting(FuzzyMatch::getId).containsExactly(2L);
+    }
+
+    @Test
+    void removedEntriesNoLongerMatch() {
+        FuzzyIndex index = new FuzzyIndex();
+        index.put(1L, "Rayuela");
+        index.remove(1L);
+
+        assertThat(index.search("rayuela", null, 10)).isEmpty();
+    }
+}
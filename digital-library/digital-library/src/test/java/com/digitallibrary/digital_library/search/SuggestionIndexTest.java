@@ -0,0 +1,99 @@
+package com.digitallibrary.digital_library.search;
+
+import com.digitallibrary.digital_library.dtos.response.SuggestionResponse;
+import com.digitallibrary.digital_library.repositories.LoanRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SuggestionIndexTest {
+
+    private SuggestionIndex index;
+    private LoanRepository loanRepository;
+
+    @BeforeEach
+    void setUp() {
+        loanRepository = mock(LoanRepository.class);
+        when(loanRepository.countLoansPerBook()).thenReturn(List.of(
+            new Object[]{1L, 10L}, new Object[]{2L, 4L}));
+        index = new SuggestionIndex(loanRepository);
+        index.rebuild(List.of(
+            book(1L, "Cien años de soledad", 7L, "Gabriel García Márquez"),
+            book(2L, "Crónica de una muerte anunciada", 7L, "Gabriel García Márquez")));
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    void ordersByLoansAndMatchesInnerWords() {
+        assertThat(texts(index.suggest("c", 10)))
+            .containsExactly("Cien años de soledad", "Crónica de una muerte anunciada");
+        assertThat(texts(index.suggest("soled", 10))).containsExactly("Cien años de soledad");
+        assertThat(index.suggest("garcia", 10)).singleElement()
+            .satisfies(suggestion -> assertThat(suggestion.getWeight()).isEqualTo(14L));
+    }
+
+    @Test
+    void changedTitleReplacesTheOldOneWithoutRebuilding() {
+        index.index(book(2L, "Memoria de mis putas tristes", 7L, "Gabriel García Márquez"));
+
+        assertThat(texts(index.suggest("cronica", 10))).isEmpty();
+        assertThat(index.suggest("memoria", 10)).singleElement()
+            .satisfies(suggestion -> assertThat(suggestion.getWeight()).isEqualTo(4L));
+        assertThat(texts(index.suggest("c", 10))).containsExactly("Cien años de soledad");
+    }
+
+    @Test
+    void authorWeightFollowsItsRemainingBooks() {
+        index.index(book(3L, "Rayuela", 8L, "Julio Cortázar"));
+        index.remove(1L);
+
+        assertThat(index.suggest("garcia", 10)).singleElement()
+            .satisfies(suggestion -> assertThat(suggestion.getWeight()).isEqualTo(4L));
+        assertThat(texts(index.suggest("cortazar", 10))).containsExactly("Julio Cortázar");
+        assertThat(texts(index.suggest("cien", 10))).isEmpty();
+
+        index.remove(2L);
+        assertThat(index.suggest("garcia", 10)).isEmpty();
+    }
+
+    @Test
+    void renamedAuthorReplacesTheOldName() {
+        index.index(List.of(
+            book(1L, "Cien años de soledad", 7L, "Gabo"),
+            book(2L, "Crónica de una muerte anunciada", 7L, "Gabo")));
+
+        assertThat(index.suggest("garcia", 10)).isEmpty();
+        assertThat(index.suggest("gabo", 10)).singleElement()
+            .satisfies(suggestion -> assertThat(suggestion.getWeight()).isEqualTo(14L));
+
+        // La reconstrucción periódica parte de los libros ya renombrados
+        index.refresh();
+        verify(loanRepository, timeout(5000).times(2)).countLoansPerBook();
+        await().pollDelay(Duration.ofMillis(100)).untilAsserted(() ->
+            assertThat(texts(index.suggest("gabo", 10))).containsExactly("Gabo"));
+        assertThat(index.suggest("garcia", 10)).isEmpty();
+    }
+
+    private static List<String> texts(List<SuggestionResponse> suggestions) {
+        return suggestions.stream().map(SuggestionResponse::getText).toList();
+    }
+
+    private static BookDocument book(Long id, String title, Long authorId, String author) {
+        return new BookDocument(id, title, null, null, List.of(authorId), List.of(author),
+            List.of(), List.of(), null, null, 1, 1);
+    }
+}
@@ -0,0 +1,114 @@
+package com.digitallibrary.digital_library.services;
+
+import com.digitallibrary.digital_library.dtos.response.BookResponse;
+import com.digitallibrary.digital_library.models.Author;
+import com.digitallibrary.digital_library.models.Book;
+import com.digitallibrary.digital_library.models.Category;
+import com.digitallibrary.digital_library.repositories.AuthorRepository;
+import com.digitallibrary.digital_library.repositories.BookRepository;
+import com.digitallibrary.digital_library.repositories.CategoryRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Las listas de libros cargan autores y categorías en bloque: el número de consultas
+ * no depende del tamaño de la página.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BookListQueryCountTest {
+
+    // Página, COUNT, autores y categorías
+    private static final long MAX_STATEMENTS_PER_PAGE = 4;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @BeforeAll
+    void seedCatalog() {
+        Category category = new Category();
+        category.setName("Consultas " + System.nanoTime());
+        category = categoryRepository.save(category);
+
+        for (int i = 0; i < 25; i++) {
+            Author first = author("Autor A" + i);
+            Author second = author("Autor B" + i);
+            Book book = new Book();
+            book.setTitle("Libro de consultas " + i);
+            book.setIsbn("QC-" + System.nanoTime() % 1_000_000_000L + "-" + i);
+            book.setTotalCopies(1);
+            book.setAvailableCopies(1);
+            book.setAuthors(new HashSet<>(List.of(first, second)));
+            book.setCategories(new HashSet<>(Set.of(category)));
+            bookRepository.save(book);
+        }
+    }
+
+    @Test
+    void offsetPageUsesAFixedNumberOfStatements() {
+        long small = statementsFor(() -> bookService.getAllBooks(PageRequest.of(0, 5)));
+        long large = statementsFor(() -> {
+            Page<BookResponse> page = bookService.getAllBooks(PageRequest.of(0, 20));
+            // Otras clases de prueba comparten la base de datos: solo los libros sembrados aquí tienen
+            // autores seguro
+            assertThat(page.getContent()).hasSize(20);
+            assertThat(page.getContent())
+                .filteredOn(book -> book.getTitle().startsWith("Libro de consultas "))
+                .allSatisfy(book -> assertThat(book.getAuthors()).hasSize(2));
+            return page;
+        });
+
+        assertThat(large).isEqualTo(small).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE);
+    }
+
+    @Test
+    void cursorPageUsesAFixedNumberOfStatements() {
+        long small = statementsFor(() -> bookService.getAllBooks(null, PageRequest.of(0, 5)));
+        long large = statementsFor(() -> bookService.getAllBooks(null, PageRequest.of(0, 20)));
+
+        // Sin COUNT: la fila sobrante indica si hay más
+        assertThat(large).isEqualTo(small).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE - 1);
+    }
+
+    private long statementsFor(Supplier<?> call) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        call.get();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Author author(String name) {
+        Author author = new Author();
+        author.setName(name);
+        return authorRepository.save(author);
+    }
+}
@@ -0,0 +1,149 @@
+package com.digitallibrary.digital_library.services;
+
+import com.digitallibrary.digital_library.TestFixtures;
+import com.digitallibrary.digital_library.dtos.request.LoanRequest;
+import com.digitallibrary.digital_library.exceptions.BookNotAvailableException;
+import com.digitallibrary.digital_library.models.Book;
+import com.digitallibrary.digital_library.models.User;
+import com.digitallibrary.digital_library.models.enums.LoanStatus;
+import com.digitallibrary.digital_library.repositories.BookRepository;
+import com.digitallibrary.digital_library.repositories.LoanRepository;
+import com.digitallibrary.digital_library.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 500 usuarios piden a la vez el mismo libro: solo se prestan las copias que hay y el
+ * inventario nunca baja de cero. Un usuario que pide muchos libros a la vez no supera su límite.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ConcurrentCheckoutStressTest {
+
+    private static final int BORROWERS = 500;
+    private static final int COPIES = 10;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Test
+    void concurrentCheckoutsNeverLendMoreCopiesThanExist() throws Exception {
+        String prefix = TestFixtures.uniquePrefix("st");
+        Long bookId = bookRepository.save(TestFixtures.book(prefix, "Libro muy pedido", COPIES)).getId();
+
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < BORROWERS; i++) {
+            users.add(TestFixtures.user(prefix + "_" + i));
+        }
+        userRepository.saveAll(users);
+
+        AtomicInteger granted = new AtomicInteger();
+        Map<String, AtomicInteger> failures = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (User user : users) {
+                calls.add(pool.submit(() -> {
+                    start.await();
+                    LoanRequest request = new LoanRequest();
+                    request.setUserId(user.getId());
+                    request.setBookId(bookId);
+                    try {
+                        loanService.createLoan(request);
+                        granted.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        failures.computeIfAbsent(e.getClass().getSimpleName(), k -> new AtomicInteger())
+                            .incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> call : calls) {
+                call.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(granted.get()).isEqualTo(COPIES);
+        assertThat(failures).containsOnlyKeys(BookNotAvailableException.class.getSimpleName());
+        assertThat(failures.get(BookNotAvailableException.class.getSimpleName()).get())
+            .isEqualTo(BORROWERS - COPIES);
+
+        Book after = bookRepository.findById(bookId).orElseThrow();
+        assertThat(after.getAvailableCopies()).isZero();
+        assertThat(loanRepository.findByStatus(LoanStatus.ACTIVE))
+            .filteredOn(loan -> loan.getBook().getId().equals(bookId))
+            .hasSize(COPIES);
+    }
+
+    @Test
+    void concurrentCheckoutsOfOneUserRespectTheLoanLimit() throws Exception {
+        String prefix = TestFixtures.uniquePrefix("lim");
+        Long userId = userRepository.save(TestFixtures.user(prefix)).getId();
+
+        // Libros distintos caen en franjas distintas y se procesan en paralelo
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            books.add(TestFixtures.book(prefix + "-" + i, "Libro " + i, 1));
+        }
+        bookRepository.saveAll(books);
+
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(books.size());
+        try {
+            List<Future<?>> calls = new ArrayList<>();
+            for (Book book : books) {
+                calls.add(pool.submit(() -> {
+                    start.await();
+                    LoanRequest request = new LoanRequest();
+                    request.setUserId(userId);
+                    request.setBookId(book.getId());
+                    try {
+                        loanService.createLoan(request);
+                        granted.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertThat(e).hasMessage("El usuario ha alcanzado el límite de préstamos");
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> call : calls) {
+                call.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertThat(granted.get()).isEqualTo(5);
+        assertThat(loanRepository.countByUserIdAndStatus(userId, LoanStatus.ACTIVE)).isEqualTo(5L);
+    }
+}
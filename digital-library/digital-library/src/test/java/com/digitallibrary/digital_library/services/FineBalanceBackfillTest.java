@@ -0,0 +1,76 @@
+package com.digitallibrary.digital_library.services;
+
+import com.digitallibrary.digital_library.TestFixtures;
+import com.digitallibrary.digital_library.models.Book;
+import com.digitallibrary.digital_library.models.Loan;
+import com.digitallibrary.digital_library.models.User;
+import com.digitallibrary.digital_library.models.enums.LoanStatus;
+import com.digitallibrary.digital_library.repositories.BookRepository;
+import com.digitallibrary.digital_library.repositories.FineBalanceRepository;
+import com.digitallibrary.digital_library.repositories.LoanRepository;
+import com.digitallibrary.digital_library.repositories.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Una base de datos con multas anteriores al libro de multas arranca con sus saldos cargados una
+ * sola vez. La carga comparte la transacción de la prueba, que se deshace al terminar: vaciar el
+ * libro de multas no afecta a las demás pruebas del contexto.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class FineBalanceBackfillTest {
+
+    @Autowired
+    private FineService fineService;
+
+    @Autowired
+    private FineBalanceRepository fineBalanceRepository;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void existingLoanFinesAreBackfilledOnce() {
+        String prefix = TestFixtures.uniquePrefix("fb");
+        User user = userRepository.save(TestFixtures.user(prefix));
+        Book book = bookRepository.save(TestFixtures.book(prefix, "Libro con multas", 1));
+
+        loanRepository.save(finedLoan(user, book, LoanStatus.RETURNED, 3.0));
+        loanRepository.save(finedLoan(user, book, LoanStatus.OVERDUE, 2.0));
+        loanRepository.save(finedLoan(user, book, LoanStatus.RETURNED, 0.0));
+        jdbcTemplate.update("DELETE FROM fine_ledger");
+        jdbcTemplate.update("DELETE FROM fine_balances");
+
+        fineService.backfillBalances();
+        fineService.backfillBalances();
+
+        assertThat(fineBalanceRepository.findBalanceByUserId(user.getId())).contains(5.0);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM fine_ledger WHERE user_id = ?",
+            Long.class, user.getId())).isEqualTo(2L);
+    }
+
+    private static Loan finedLoan(User user, Book book, LoanStatus status, double fine) {
+        Loan loan = TestFixtures.loan(user, book, status, LocalDate.now().minusDays(16));
+        loan.setFineAmount(fine);
+        return loan;
+    }
+}
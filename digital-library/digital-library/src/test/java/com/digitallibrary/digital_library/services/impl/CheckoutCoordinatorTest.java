@@ -0,0 +1,127 @@
+package com.digitallibrary.digital_library.services.impl;
+
+import com.digitallibrary.digital_library.dtos.request.LoanRequest;
+import com.digitallibrary.digital_library.dtos.response.LoanResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CheckoutCoordinatorTest {
+
+    private CheckoutCoordinator coordinator;
+    private final ExecutorService callers = Executors.newFixedThreadPool(32);
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+        if (coordinator != null) {
+            coordinator.shutdown();
+        }
+    }
+
+    @Test
+    void batchesAreCappedAndProcessedOffTheCallerThreads() throws Exception {
+        Queue<Integer> batchSizes = new ConcurrentLinkedQueue<>();
+        Set<String> handlerThreads = ConcurrentHashMap.newKeySet();
+        coordinator = new CheckoutCoordinator((bookId, batch) -> {
+            batchSizes.add(batch.size());
+            handlerThreads.add(Thread.currentThread().getName());
+            batch.forEach(checkout -> checkout.grant(response(checkout.getRequest().getUserId()), null));
+        });
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<LoanResponse>> calls = new ArrayList<>();
+        for (long userId = 0; userId < 500; userId++) {
+            long id = userId;
+            calls.add(callers.submit(() -> {
+                start.await();
+                return coordinator.checkout(request(id, 7L));
+            }));
+        }
+        start.countDown();
+        for (int i = 0; i < calls.size(); i++) {
+            assertThat(calls.get(i).get(30, TimeUnit.SECONDS).getId()).isEqualTo((long) i);
+        }
+
+        assertThat(batchSizes).allSatisfy(size -> assertThat(size).isBetween(1, 100));
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(500);
+        assertThat(handlerThreads).allSatisfy(name -> assertThat(name).startsWith("checkout-drain-"));
+    }
+
+    @Test
+    void afterGrantRunsOnTheRequestingThread() {
+        Set<String> confirmedOn = ConcurrentHashMap.newKeySet();
+        coordinator = new CheckoutCoordinator((bookId, batch) -> batch.forEach(checkout ->
+            checkout.grant(response(1L), () -> confirmedOn.add(Thread.currentThread().getName()))));
+
+        coordinator.checkout(request(1L, 1L));
+
+        assertThat(confirmedOn).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    void requestThatTimesOutBeforeBeingTakenIsNeverProcessed() throws Exception {
+        CountDownLatch firstTaken = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Queue<Long> processed = new ConcurrentLinkedQueue<>();
+        coordinator = new CheckoutCoordinator((bookId, batch) -> {
+            batch.forEach(checkout -> processed.add(checkout.getRequest().getUserId()));
+            firstTaken.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batch.forEach(checkout -> checkout.grant(response(checkout.getRequest().getUserId()), null));
+        }, 1, 200);
+
+        Future<LoanResponse> first = callers.submit(() -> coordinator.checkout(request(1L, 3L)));
+        assertThat(firstTaken.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> coordinator.checkout(request(2L, 3L)))
+            .isInstanceOf(IllegalStateException.class);
+
+        // La primera ya estaba en proceso: espera su resultado aunque pase el tiempo máximo
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getId()).isEqualTo(1L);
+        assertThat(processed).containsExactly(1L);
+    }
+
+    @Test
+    void handlerFailureRejectsTheWholeBatch() {
+        coordinator = new CheckoutCoordinator((bookId, batch) -> {
+            throw new IllegalArgumentException("fallo");
+        });
+
+        assertThatThrownBy(() -> coordinator.checkout(request(1L, 1L)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("fallo");
+    }
+
+    private static LoanRequest request(Long userId, Long bookId) {
+        LoanRequest request = new LoanRequest();
+        request.setUserId(userId);
+        request.setBookId(bookId);
+        return request;
+    }
+
+    private static LoanResponse response(Long id) {
+        LoanResponse response = new LoanResponse();
+        response.setId(id);
+        return response;
+    }
+}
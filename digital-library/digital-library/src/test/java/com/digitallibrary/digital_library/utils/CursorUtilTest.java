@@ -0,0 +1,64 @@
+package com.digitallibrary.digital_library.utils;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorUtilTest {
+
+    private static final Set<String> FIELDS = Set.of(CursorUtil.ID, "title");
+
+    @Test
+    void firstPageTakesTheRequestedOrder() {
+        CursorUtil.Cursor ascending = CursorUtil.decode(null, PageRequest.of(0, 10), FIELDS);
+        assertThat(ascending.getField()).isEqualTo(CursorUtil.ID);
+        assertThat(ascending.isDescending()).isFalse();
+        assertThat(ascending.getId()).isZero();
+
+        CursorUtil.Cursor descending = CursorUtil.decode("",
+            PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "title")), FIELDS);
+        assertThat(descending.getField()).isEqualTo("title");
+        assertThat(descending.isDescending()).isTrue();
+        assertThat(descending.getValue()).isNull();
+        assertThat(descending.getId()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void nextCursorKeepsDirectionAndValue() {
+        CursorUtil.Cursor first = CursorUtil.decode(null,
+            PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "title")), FIELDS);
+
+        // Un cursor existente manda sobre el orden de la petición
+        CursorUtil.Cursor next = CursorUtil.decode(first.next("Rayuela | edición", 42L),
+            PageRequest.of(0, 10), FIELDS);
+
+        assertThat(next.getField()).isEqualTo("title");
+        assertThat(next.isDescending()).isTrue();
+        assertThat(next.getValue()).isEqualTo("Rayuela | edición");
+        assertThat(next.getId()).isEqualTo(42L);
+    }
+
+    @Test
+    void emptyValueIsNotConfusedWithMissingValue() {
+        CursorUtil.Cursor first = CursorUtil.decode(null, PageRequest.of(0, 10, Sort.by("title")), FIELDS);
+
+        assertThat(CursorUtil.decode(first.next("", 7L), PageRequest.of(0, 10), FIELDS).getValue()).isEmpty();
+        assertThat(CursorUtil.decode(first.next(null, 7L), PageRequest.of(0, 10), FIELDS).getValue()).isNull();
+    }
+
+    @Test
+    void rejectsTamperedCursorsAndUnsupportedSorts() {
+        assertThatThrownBy(() -> CursorUtil.decode("bm9wZQ", PageRequest.of(0, 10), FIELDS))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CursorUtil.decode(CursorUtil.encode("isbn", Sort.Direction.ASC, "x", 1L),
+            PageRequest.of(0, 10), FIELDS))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> CursorUtil.decode(null, PageRequest.of(0, 10, Sort.by("isbn")), FIELDS))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}